@@ -0,0 +1,44 @@
+#!/bin/sh
+#
+# Summarizes the LCPL events of a flight recording made with jfr/lcpl.jfc:
+# the duration of every analysis phase and the slowest classes and methods.
+#
+# Usage: jfr/lcpl-report.sh <recording.jfr> [count]
+
+if [ $# -lt 1 ]; then
+	echo "Usage: $0 <recording.jfr> [count]" >&2
+	exit 1
+fi
+RECORDING=$1
+COUNT=${2:-10}
+
+# prints one line per event: duration in ms followed by the requested fields
+events() {
+	jfr print --events "$1" "$RECORDING" | awk -v fields="$2" '
+		function millis(value, unit) {
+			if (unit == "s") return value * 1000;
+			if (unit == "us") return value / 1000;
+			if (unit == "ns") return value / 1000000;
+			return value;
+		}
+		BEGIN { n = split(fields, wanted, ","); }
+		/^[a-zA-Z.]+ \{/ { line = ""; duration = 0; delete seen; }
+		$1 == "duration" { duration = millis($3, $4); }
+		{ for (i = 1; i <= n; i++) if ($1 == wanted[i]) { gsub(/"/, "", $3); seen[wanted[i]] = $3; } }
+		/^\}/ {
+			line = sprintf("%12.3f", duration);
+			for (i = 1; i <= n; i++) line = line "  " seen[wanted[i]];
+			print line;
+		}'
+}
+
+echo "Phases (ms)"
+events lcpl.AnalysisPhase phase
+
+echo
+echo "Slowest classes (ms, class, nodes)"
+events lcpl.ClassCheck className,nodeCount | sort -rn | head -n "$COUNT"
+
+echo
+echo "Slowest methods (ms, class, method, line, nodes)"
+events lcpl.MethodCheck className,methodName,line,nodeCount | sort -rn | head -n "$COUNT"
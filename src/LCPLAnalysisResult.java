@@ -0,0 +1,70 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The outcome of an analysis started by LCPLAnalysisService: the analyzed program and, if the
+ * program is not correct, the error. After an error the program is analyzed only partly.
+ */
+public class LCPLAnalysisResult {
+
+	private Program program;
+	private LCPLException error;
+	private LCPLClassHierarchy classHierarchy;
+	private List<String> skippedFeatures;
+
+	public LCPLAnalysisResult(Program program, LCPLException error, LCPLClassHierarchy classHierarchy,
+			List<String> skippedFeatures) {
+		this.program		= program;
+		this.error			= error;
+		this.classHierarchy = classHierarchy;
+		this.skippedFeatures = Collections.unmodifiableList(new ArrayList<String>(skippedFeatures));
+	}
+
+	public Program getProgram() {
+		return program;
+	}
+
+	public boolean isCorrect() {
+		return error == null;
+	}
+
+	/*
+	 * The first error of the program, or null if it is correct.
+	 */
+	public LCPLException getError() {
+		return error;
+	}
+
+	/*
+	 * The error of the program as a diagnostic, or an empty list if it is correct.
+	 */
+	public List<LCPLDiagnostic> getDiagnostics() {
+		if(error == null) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(LCPLDiagnostic.fromException(error));
+	}
+
+	/*
+	 * True if the analysis was stopped by its budget before it could decide whether the
+	 * program is correct.
+	 */
+	public boolean isAborted() {
+		return error instanceof LCPLBudgetExceededException;
+	}
+
+	/*
+	 * The inheritance relations, or null if the analysis did not get to them.
+	 */
+	public LCPLClassHierarchy getClassHierarchy() {
+		return classHierarchy;
+	}
+
+	/*
+	 * The features not verified by a lazy analysis, as "Class.feature (line n)".
+	 */
+	public List<String> getSkippedFeatures() {
+		return skippedFeatures;
+	}
+}
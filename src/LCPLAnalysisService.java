@@ -0,0 +1,110 @@
+import java.util.concurrent.Executor;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The entry point of the analysis for the programs that embed it.
+ *
+ * analyze can be called at the same time from any number of threads, on different programs or
+ * on the same one: the program given is not changed, the analysis works on a copy of it
+ * (LCPLCompactProgram), which is returned in the result. The analyses share only the built-in
+ * classes (LCPLPrelude.getShared), which they do not change; everything else belongs to one
+ * analysis. setCopyInput(false) analyzes the program given instead, for a caller that owns it
+ * and does not need it as it was loaded; a program analyzed this way must not be used by
+ * another thread until the analysis returns.
+ *
+ * With an executor the bodies of the classes of a program are walked as tasks of the executor
+ * (LCPLSemanticAnalyzer.setExecutor); an executor can be shared by the service and the rest
+ * of the application. The analysis waits for its tasks, so it should not be called from a task
+ * of a bounded executor it uses. The options are set before the service is shared between
+ * threads.
+ *
+ * The input is a program as it is loaded, not an analyzed one.
+ */
+public class LCPLAnalysisService {
+
+	private Executor executor;
+	private boolean lazy;
+	private boolean layout;
+	private boolean preciseJoins;
+	private boolean copyInput;
+
+	public LCPLAnalysisService() {
+		this(null);
+	}
+
+	public LCPLAnalysisService(Executor executor) {
+		this.executor  = executor;
+		this.copyInput = true;
+	}
+
+	/*
+	 * Verifies only the code reachable from Main.main (LCPLSemanticAnalyzer.setLazy). A lazy
+	 * analysis walks the bodies on the calling thread.
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	/*
+	 * Computes the vtables and the attributes offsets (LCPLSemanticAnalyzer.setLayout).
+	 */
+	public void setLayout(boolean layout) {
+		this.layout = layout;
+	}
+
+	/*
+	 * Types the ifs with the lowest common ancestor of their branches
+	 * (LCPLSemanticAnalyzer.setPreciseJoins).
+	 */
+	public void setPreciseJoins(boolean preciseJoins) {
+		this.preciseJoins = preciseJoins;
+	}
+
+	public void setCopyInput(boolean copyInput) {
+		this.copyInput = copyInput;
+	}
+
+	/*
+	 * Method that analyzes a program and returns the analyzed program with its first error.
+	 * The exceptions other than LCPLException are errors of the analyzer and are thrown.
+	 */
+	public LCPLAnalysisResult analyze(Program input) {
+		return analyze(input, null);
+	}
+
+	/*
+	 * Method that analyzes a program within a budget (LCPLSemanticAnalyzer.setBudget), which
+	 * belongs to this analysis; another thread may cancel it. The timeout includes the copy of
+	 * the input.
+	 */
+	public LCPLAnalysisResult analyze(Program input, LCPLBudget budget) {
+		return analyze(input, budget, copyInput);
+	}
+
+	/*
+	 * Method that analyzes a program, or a copy of it, whatever the option of the service.
+	 */
+	LCPLAnalysisResult analyze(Program input, LCPLBudget budget, boolean copy) {
+		if(budget != null) {
+			budget.start();
+		}
+		Program p = copy ? LCPLCompactProgram.fromProgram(input).toProgram() : input;
+		new LCPLFreezer().freeze(p);
+
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+		sa.setLazy(lazy);
+		sa.setLayout(layout);
+		sa.setPreciseJoins(preciseJoins);
+		sa.setSharedPrelude(true);
+		sa.setExecutor(executor);
+		sa.setBudget(budget);
+		LCPLException error = null;
+		try {
+			sa.startSemanticAnalysis();
+		} catch (LCPLException ex) {
+			error = ex;
+		}
+		return new LCPLAnalysisResult(p, error, sa.getClassHierarchy(), sa.getSkippedFeatures());
+	}
+}
@@ -0,0 +1,198 @@
+import java.io.*;
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that writes only what the analysis adds to the program, as a stream of annotations
+ * keyed by the ids of the nodes of the input. A consumer that has its own copy of the input
+ * numbers it the same way and zips the annotations back onto it.
+ *
+ * The ids are given in pre-order, from 0: every class, then its features in order; a method is
+ * followed by its parameters and by the expressions of its body, an attribute by the
+ * expressions of its initialization. The expressions are numbered in the order of
+ * LCPLTreeScanner. The nodes the analysis creates (the built-in classes, the implicit casts,
+ * the self of a dispatch without object) have no id.
+ *
+ * Every line is "<id> <key> <value>", the ids never decrease:
+ *	parent <class>			the superclass of a class
+ *	attributes <n>			the number of attributes of an object of a class (-layout)
+ *	returns <type>			the return type of a method
+ *	slot <n>			the vtable slot of a method or a dispatch (-layout)
+ *	type <type>			the type of an attribute, a parameter or an expression
+ *	offset <n>			the offset of an attribute (-layout)
+ *	variable <reference>		the variable of a symbol or an assignment
+ *	method <reference>		the method invoked by a dispatch
+ *	devirtualized <reference>	the only method a dispatch can call (-devirtualize)
+ *	cast <type>			the analysis wrapped the expression in a cast to the type
+ * A reference is the id of the node, "self", or "<class>.<method>" for a built-in method.
+ */
+public class LCPLAnnotationEmitter implements LCPLProgramEmitter {
+
+	public static final String HEADER = "# lcpl-annotations 1";
+
+	private Map<Object, Integer> ids = new IdentityHashMap<Object, Integer>();
+	private int nextId;
+	private Writer output;
+
+	/*
+	 * The ids are those of the input, so the emitter must be created before the analysis.
+	 */
+	public LCPLAnnotationEmitter(Program input) {
+		LCPLTreeScanner numbering = new LCPLTreeScanner() {
+			protected void visitExpression(Expression expression) {
+				ids.put(expression, nextId++);
+			}
+		};
+		for(LCPLClass lcplClass : input.getClasses()) {
+			ids.put(lcplClass, nextId++);
+			for(Feature feature : lcplClass.getFeatures()) {
+				ids.put(feature, nextId++);
+				if(feature instanceof Method) {
+					for(FormalParam param : ((Method)feature).getParameters()) {
+						ids.put(param, nextId++);
+					}
+					numbering.scanExpression(((Method)feature).getBody());
+				}
+				else if(feature instanceof Attribute) {
+					numbering.scanExpression(((Attribute)feature).getInit());
+				}
+			}
+		}
+	}
+
+	/*
+	 * Method that returns the number of nodes of the input.
+	 */
+	public int getNodeCount() {
+		return nextId;
+	}
+
+	public void emit(Program p, Writer output) throws IOException {
+		this.output = output;
+		output.write(HEADER);
+		output.write('\n');
+
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			protected void visitExpression(Expression expression) {
+				try {
+					emitExpression(expression);
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+		};
+		try {
+			for(LCPLClass lcplClass : p.getClasses()) {
+				Integer id = ids.get(lcplClass);
+				if(id == null) {
+					continue;
+				}
+				if(lcplClass.getParentData() != null) {
+					line(id, "parent", lcplClass.getParentData().getName());
+				}
+				if(lcplClass.getAttributesCount() != null) {
+					line(id, "attributes", lcplClass.getAttributesCount().toString());
+				}
+				for(Feature feature : lcplClass.getFeatures()) {
+					if(feature instanceof Method) {
+						emitMethod((Method)feature);
+						scanner.scanExpression(((Method)feature).getBody());
+					}
+					else if(feature instanceof Attribute) {
+						emitAttribute((Attribute)feature);
+						scanner.scanExpression(((Attribute)feature).getInit());
+					}
+				}
+			}
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		output.flush();
+	}
+
+	private void emitMethod(Method method) throws IOException {
+		int id = ids.get(method);
+		if(method.getReturnTypeData() != null) {
+			line(id, "returns", method.getReturnTypeData().getName());
+		}
+		if(method.getVtableSlot() != null) {
+			line(id, "slot", method.getVtableSlot().toString());
+		}
+		for(FormalParam param : method.getParameters()) {
+			if(param.getVariableType() != null) {
+				line(ids.get(param), "type", param.getVariableType().getName());
+			}
+		}
+	}
+
+	private void emitAttribute(Attribute attribute) throws IOException {
+		int id = ids.get(attribute);
+		if(attribute.getTypeData() != null) {
+			line(id, "type", attribute.getTypeData().getName());
+		}
+		if(attribute.getOffset() != null) {
+			line(id, "offset", attribute.getOffset().toString());
+		}
+	}
+
+	private void emitExpression(Expression expression) throws IOException {
+		Integer id = ids.get(expression);
+		if(id == null) {
+			if(expression instanceof Cast) {
+				/* an implicit cast is an annotation of the first expression of the input below it */
+				Expression e = ((Cast)expression).getE1();
+				while(!ids.containsKey(e) && e instanceof Cast) {
+					e = ((Cast)e).getE1();
+				}
+				if(ids.containsKey(e)) {
+					line(ids.get(e), "cast", ((Cast)expression).getType());
+				}
+			}
+			return;
+		}
+		if(expression.getTypeData() == null) {
+			/* a body the lazy analysis skipped */
+			return;
+		}
+
+		line(id, "type", expression.getTypeData().getName());
+		if(expression instanceof Symbol) {
+			line(id, "variable", reference(((Symbol)expression).getVariable()));
+		}
+		else if(expression instanceof Assignment) {
+			line(id, "variable", reference(((Assignment)expression).getSymbolData()));
+		}
+		else if(expression instanceof BaseDispatch) {
+			BaseDispatch dispatch = (BaseDispatch)expression;
+			line(id, "method", reference(dispatch.getMethod()));
+			if(dispatch.getVtableSlot() != null) {
+				line(id, "slot", dispatch.getVtableSlot().toString());
+			}
+			if(dispatch instanceof Dispatch && ((Dispatch)dispatch).getDevirtualizedMethod() != null) {
+				line(id, "devirtualized", reference(((Dispatch)dispatch).getDevirtualizedMethod()));
+			}
+		}
+	}
+
+	private String reference(Object node) {
+		Integer id = ids.get(node);
+		if(id != null) {
+			return id.toString();
+		}
+		if(node instanceof Method) {
+			return ((Method)node).getParent().getName() + "." + ((Method)node).getName();
+		}
+		/* the only variables that are not in the input are the self parameters */
+		return LCPLConstants.SELF;
+	}
+
+	private void line(int id, String key, String value) throws IOException {
+		output.write(Integer.toString(id));
+		output.write(' ');
+		output.write(key);
+		output.write(' ');
+		output.write(value);
+		output.write('\n');
+	}
+}
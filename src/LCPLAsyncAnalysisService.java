@@ -0,0 +1,237 @@
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The asynchronous entry point of the analysis: the YAML is loaded, analyzed and written back
+ * as three chained stages, the loading and the writing on the I/O executor and the analysis
+ * on the CPU executor, so the two pools are sized separately. The analysis is done by an
+ * LCPLAnalysisService (with its options and its executor for the bodies) on the loaded
+ * program, which belongs to the request, so it is not copied.
+ *
+ * Every request has a budget (LCPLBudget), given or a new one, whose timeout starts when the
+ * request is submitted. Cancelling the returned future cancels the budget: a stage that has not
+ * started does not run, the analysis stops at its next check, and the loading and the writing
+ * stop at their next read or write or at the next node they build (SnakeYAML reads the whole
+ * document before it builds the objects and builds all the nodes before it writes them). An
+ * aborted analysis is not written.
+ *
+ * The caller closes the reader and the writer after the future completes. Like the service,
+ * an object of this class can be used by any number of threads.
+ */
+public class LCPLAsyncAnalysisService {
+
+	private LCPLAnalysisService service;
+	private Executor ioExecutor;
+	private Executor cpuExecutor;
+
+	public LCPLAsyncAnalysisService(LCPLAnalysisService service, Executor ioExecutor, Executor cpuExecutor) {
+		this.service	 = service;
+		this.ioExecutor	 = ioExecutor;
+		this.cpuExecutor = cpuExecutor;
+	}
+
+	public CompletableFuture<LCPLAnalysisResult> analyze(Reader input, Writer output) {
+		return analyze(input, output, new LCPLBudget());
+	}
+
+	/*
+	 * Method that loads a program from the input, analyzes it and writes it to the output, if
+	 * the output is not null. The future fails with the exception of the failed stage: an
+	 * IOException of the loading or the writing, or an error of the analyzer.
+	 */
+	public CompletableFuture<LCPLAnalysisResult> analyze(final Reader input, final Writer output, final LCPLBudget budget) {
+		budget.start();
+		final CompletableFuture<LCPLAnalysisResult> result = new CompletableFuture<LCPLAnalysisResult>();
+		result.whenComplete(new BiConsumer<LCPLAnalysisResult, Throwable>() {
+			public void accept(LCPLAnalysisResult analysis, Throwable ex) {
+				if(result.isCancelled()) {
+					budget.cancel();
+				}
+			}
+		});
+
+		CompletableFuture.supplyAsync(new Supplier<Program>() {
+			public Program get() {
+				checkCancelled(budget);
+				try {
+					return new CancellableLoader(budget).load(new CancellableReader(input, budget));
+				} catch (IOException ex) {
+					throw new CompletionException(ex);
+				}
+			}
+		}, ioExecutor).thenApplyAsync(new Function<Program, LCPLAnalysisResult>() {
+			public LCPLAnalysisResult apply(Program p) {
+				checkCancelled(budget);
+				return service.analyze(p, budget, false);
+			}
+		}, cpuExecutor).thenApplyAsync(new Function<LCPLAnalysisResult, LCPLAnalysisResult>() {
+			public LCPLAnalysisResult apply(LCPLAnalysisResult analysis) {
+				checkCancelled(budget);
+				if(output != null && !analysis.isAborted()) {
+					try {
+						Writer writer = new CancellableWriter(output, budget);
+						new CancellableEmitter(budget).emit(analysis.getProgram(), writer);
+						writer.flush();
+					} catch (IOException ex) {
+						throw new CompletionException(ex);
+					}
+				}
+				return analysis;
+			}
+		}, ioExecutor).whenComplete(new BiConsumer<LCPLAnalysisResult, Throwable>() {
+			public void accept(LCPLAnalysisResult analysis, Throwable ex) {
+				/* both do nothing if the result was cancelled */
+				if(ex != null) {
+					result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+				}
+				else {
+					result.complete(analysis);
+				}
+			}
+		});
+		return result;
+	}
+
+	private static void checkCancelled(LCPLBudget budget) {
+		if(budget.isCancelled()) {
+			throw new CancellationException("The analysis was cancelled");
+		}
+	}
+
+	/*
+	 * Loader that stops at the next object it builds when the budget is cancelled.
+	 */
+	private static class CancellableLoader extends LCPLYamlLoader {
+
+		private LCPLBudget budget;
+
+		CancellableLoader(LCPLBudget budget) {
+			this.budget = budget;
+		}
+
+		@Override
+		protected Constructor createConstructor() {
+			return new Constructor(Program.class) {
+				@Override
+				protected Object constructObject(Node node) {
+					checkCancelled(budget);
+					return super.constructObject(node);
+				}
+			};
+		}
+	}
+
+	/*
+	 * Emitter that stops at the next property it represents when the budget is cancelled.
+	 */
+	private static class CancellableEmitter extends LCPLYamlEmitter {
+
+		private LCPLBudget budget;
+
+		CancellableEmitter(LCPLBudget budget) {
+			this.budget = budget;
+		}
+
+		@Override
+		protected Representer createRepresenter() {
+			return new LCPLRepresenter() {
+				@Override
+				protected NodeTuple representJavaBeanProperty(Object javaBean, Property property, Object propertyValue,
+						Tag customTag) {
+					checkCancelled(budget);
+					return super.representJavaBeanProperty(javaBean, property, propertyValue, customTag);
+				}
+			};
+		}
+	}
+
+	/*
+	 * Reader that fails when the budget is cancelled, so the parser stops.
+	 */
+	private static class CancellableReader extends FilterReader {
+
+		private LCPLBudget budget;
+
+		CancellableReader(Reader input, LCPLBudget budget) {
+			super(input);
+			this.budget = budget;
+		}
+
+		@Override
+		public int read() throws IOException {
+			check();
+			return super.read();
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			check();
+			return super.read(buffer, offset, length);
+		}
+
+		/* the caller closes the input */
+		@Override
+		public void close() {
+		}
+
+		private void check() throws IOException {
+			if(budget.isCancelled()) {
+				throw new InterruptedIOException("The analysis was cancelled");
+			}
+		}
+	}
+
+	/*
+	 * Writer that fails when the budget is cancelled, so the emitter stops.
+	 */
+	private static class CancellableWriter extends FilterWriter {
+
+		private LCPLBudget budget;
+
+		CancellableWriter(Writer output, LCPLBudget budget) {
+			super(output);
+			this.budget = budget;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			check();
+			super.write(c);
+		}
+
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+			check();
+			super.write(buffer, offset, length);
+		}
+
+		@Override
+		public void write(String s, int offset, int length) throws IOException {
+			check();
+			super.write(s, offset, length);
+		}
+
+		/* the caller closes the output */
+		@Override
+		public void close() {
+		}
+
+		private void check() throws IOException {
+			if(budget.isCancelled()) {
+				throw new InterruptedIOException("The analysis was cancelled");
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The limits of one analysis: a timeout, the number of expressions walked and the depth of
+ * the class hierarchy, and a flag that another thread sets to cancel the analysis. When a
+ * limit is passed the analysis stops with an LCPLBudgetExceededException.
+ *
+ * The walkers count every expression and charge the budget once every CHECK_INTERVAL
+ * expressions (and at the end of every body), so a check is an increment for most nodes. The
+ * cancellation and the timeout are seen at the next charge, and with the bodies walked on
+ * several threads the quota of expressions may be passed by less than CHECK_INTERVAL
+ * expressions per thread before the analysis stops.
+ *
+ * A budget belongs to a single analysis; cancel can be called from any thread.
+ */
+public class LCPLBudget {
+
+	public static final int CHECK_INTERVAL = 256;
+	/* the walkers charge when their count is a multiple of CHECK_INTERVAL */
+	public static final int CHECK_MASK = CHECK_INTERVAL - 1;
+
+	private long timeoutNanos = Long.MAX_VALUE;
+	private long maxExpressions = Long.MAX_VALUE;
+	private int maxHierarchyDepth = Integer.MAX_VALUE;
+
+	private long deadline = Long.MAX_VALUE;
+	private boolean started;
+	private volatile boolean cancelled;
+	private AtomicLong expressions = new AtomicLong();
+
+	/*
+	 * The time the analysis may take, from the moment it starts.
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		timeoutNanos = unit.toNanos(timeout);
+	}
+
+	public void setMaxExpressions(long maxExpressions) {
+		this.maxExpressions = maxExpressions;
+	}
+
+	/*
+	 * The most classes on the way from a class to Object, Object included.
+	 */
+	public void setMaxHierarchyDepth(int maxHierarchyDepth) {
+		this.maxHierarchyDepth = maxHierarchyDepth;
+	}
+
+	/*
+	 * Stops the analysis at its next check.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public long getExpressions() {
+		return expressions.get();
+	}
+
+	/*
+	 * Method that starts the timeout. Only the first call counts, so the timeout of a budget
+	 * given to several stages (loading, then analysis) starts with the first one.
+	 */
+	public synchronized void start() {
+		if(!started) {
+			started  = true;
+			deadline = timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeoutNanos;
+		}
+	}
+
+	/*
+	 * Method that verifies the cancellation and the timeout, at the given node.
+	 */
+	public void check(TreeNode node) throws LCPLBudgetExceededException {
+		if(cancelled) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.analysisCancelled();
+			throw new LCPLBudgetExceededException(LCPLBudgetExceededException.Limit.CANCELLED, eb, message, node);
+		}
+		if(deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.analysisTimedOut(TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+			throw new LCPLBudgetExceededException(LCPLBudgetExceededException.Limit.TIMEOUT, eb, message, node);
+		}
+	}
+
+	/*
+	 * Method that adds walked expressions to the count and checks all the limits.
+	 */
+	public void charge(int walkedExpressions, TreeNode node) throws LCPLBudgetExceededException {
+		if(expressions.addAndGet(walkedExpressions) > maxExpressions) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.tooManyExpressions(maxExpressions);
+			throw new LCPLBudgetExceededException(LCPLBudgetExceededException.Limit.EXPRESSIONS, eb, message, node);
+		}
+		check(node);
+	}
+
+	/*
+	 * Method that verifies the depth of every class, with the classes sorted parents first.
+	 */
+	public void checkHierarchy(LCPLClassHierarchy hierarchy) throws LCPLBudgetExceededException {
+		if(maxHierarchyDepth == Integer.MAX_VALUE) {
+			return;
+		}
+		Map<LCPLClass, Integer> depths = new HashMap<LCPLClass, Integer>();
+		for(LCPLClass lcplClass : hierarchy.getOrderedClasses()) {
+			Integer parentDepth = lcplClass.getParentData() == null ? null : depths.get(lcplClass.getParentData());
+			int depth = parentDepth == null ? 1 : parentDepth + 1;
+			if(depth > maxHierarchyDepth) {
+				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+				String message = eb.hierarchyTooDeep(lcplClass.getName(), maxHierarchyDepth);
+				throw new LCPLBudgetExceededException(LCPLBudgetExceededException.Limit.HIERARCHY_DEPTH, eb, message, lcplClass);
+			}
+			depths.put(lcplClass, depth);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The error of an analysis stopped by its LCPLBudget: the program may be correct, the analysis
+ * did not get to the end. The node is where the analysis was when it stopped.
+ */
+public class LCPLBudgetExceededException extends LCPLDiagnosticException {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Limit {
+		CANCELLED,
+		TIMEOUT,
+		EXPRESSIONS,
+		HIERARCHY_DEPTH
+	}
+
+	private Limit limit;
+
+	public LCPLBudgetExceededException(Limit limit, LCPLExceptionsBuilder eb, String message, TreeNode node) {
+		super(eb, message, node);
+		this.limit = limit;
+	}
+
+	public Limit getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,143 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+
+/*
+ * Class that writes characters to a file through a FileChannel. The characters are gathered in
+ * a small array and encoded in bulk into a heap window (the encoder is several times faster on
+ * arrays than on a direct buffer), and the bytes are moved into a large direct buffer, which
+ * is written to the channel only when it is full. The file is written in a few big writes,
+ * without the copy to a temporary direct buffer that a write from the heap makes.
+ */
+public class LCPLChannelWriter extends Writer {
+
+	private static final int DEFAULT_BUFFER_SIZE = 4 << 20;
+	private static final int WINDOW_SIZE = 1 << 13;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private CharsetEncoder encoder;
+	/* the characters not encoded yet */
+	private char[] chars = new char[WINDOW_SIZE];
+	private int count;
+	private ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE * 4);
+
+	public LCPLChannelWriter(File file, Charset charset) throws IOException {
+		this(file, charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	public LCPLChannelWriter(File file, Charset charset, int bufferSize) throws IOException {
+		channel = new FileOutputStream(file).getChannel();
+		buffer	= ByteBuffer.allocateDirect(Math.max(bufferSize, window.capacity()));
+		encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	@Override
+	public void write(char[] source, int offset, int length) throws IOException {
+		ensureOpen();
+		while(length > 0) {
+			int step = Math.min(length, chars.length - count);
+			System.arraycopy(source, offset, chars, count, step);
+			count	+= step;
+			offset	+= step;
+			length	-= step;
+			if(count == chars.length) {
+				encode(false);
+			}
+		}
+	}
+
+	@Override
+	public void write(String source, int offset, int length) throws IOException {
+		ensureOpen();
+		while(length > 0) {
+			int step = Math.min(length, chars.length - count);
+			source.getChars(offset, offset + step, chars, count);
+			count	+= step;
+			offset	+= step;
+			length	-= step;
+			if(count == chars.length) {
+				encode(false);
+			}
+		}
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		ensureOpen();
+		chars[count++] = (char)c;
+		if(count == chars.length) {
+			encode(false);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		encode(false);
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(channel == null) {
+			return;
+		}
+		try {
+			encode(true);
+			window.clear();
+			encoder.flush(window);
+			moveWindow();
+			drain();
+		} finally {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/*
+	 * Method that encodes the gathered characters. The first half of a surrogate pair split
+	 * between two writes stays in the array until the second half comes.
+	 */
+	private void encode(boolean endOfInput) throws IOException {
+		CharBuffer in = CharBuffer.wrap(chars, 0, count);
+		while(true) {
+			window.clear();
+			CoderResult result = encoder.encode(in, window, endOfInput);
+			moveWindow();
+			if(!result.isOverflow()) {
+				break;
+			}
+		}
+		count = in.remaining();
+		System.arraycopy(chars, in.position(), chars, 0, count);
+	}
+
+	private void moveWindow() throws IOException {
+		window.flip();
+		if(buffer.remaining() < window.remaining()) {
+			drain();
+		}
+		buffer.put(window);
+	}
+
+	/*
+	 * Method that writes the whole buffer to the channel.
+	 */
+	private void drain() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void ensureOpen() throws IOException {
+		if(channel == null) {
+			throw new IOException("Writer closed");
+		}
+	}
+}
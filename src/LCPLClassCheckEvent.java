@@ -0,0 +1,25 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Java Flight Recorder event emitted around the checking of the attributes and the methods
+ * bodies of a class. It is committed only if a recording that enables it is active.
+ */
+@Name("lcpl.ClassCheck")
+@Label("LCPL Class Check")
+@Category({"LCPL", "Semantic Analysis"})
+@Description("Checking of the attributes initializations and the methods bodies of a class")
+@StackTrace(false)
+public class LCPLClassCheckEvent extends Event {
+
+	@Label("Class")
+	String className;
+
+	@Label("Node Count")
+	@Description("Number of expressions walked through")
+	int nodeCount;
+}
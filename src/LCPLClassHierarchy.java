@@ -0,0 +1,140 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that verifies the inheritance relations between the classes of a program and sorts
+ * the classes so that every class comes after its parent.
+ * The classes must have their parentData already set.
+ */
+public class LCPLClassHierarchy {
+
+	/* colors used while walking up the inheritance chains */
+	private static final int WHITE = 0;	// not visited yet
+	private static final int GRAY  = 1;	// on the chain that is being walked
+	private static final int BLACK = 2;	// done
+
+	private List<LCPLClass> classes;
+	/*
+	 * The classes in topological order: the parents before their children.
+	 */
+	private List<LCPLClass> orderedClasses;
+	/*
+	 * The classes that directly inherit every class.
+	 * Map<class, subclasses>
+	 */
+	private Map<LCPLClass, List<LCPLClass>> subclasses;
+
+	public LCPLClassHierarchy(List<LCPLClass> classes) {
+		this.classes   = classes;
+		orderedClasses = new ArrayList<LCPLClass>(classes.size());
+		subclasses	   = new HashMap<LCPLClass, List<LCPLClass>>();
+	}
+
+	/*
+	 * Method that walks once up the inheritance chain of every class. A chain that reaches
+	 * a class that is on the same chain is a cycle. Every class is visited only once, so
+	 * the cost is linear in the number of classes.
+	 */
+	public void build() throws LCPLException {
+		Map<LCPLClass, Integer> colors = new HashMap<LCPLClass, Integer>();
+		List<List<LCPLClass>> cycles = new ArrayList<List<LCPLClass>>();
+
+		for(LCPLClass lcplClass : classes) {
+			if(color(colors, lcplClass) != WHITE) {
+				continue;
+			}
+
+			List<LCPLClass> chain = new ArrayList<LCPLClass>();
+			LCPLClass current = lcplClass;
+			while(current != null && color(colors, current) == WHITE) {
+				colors.put(current, GRAY);
+				chain.add(current);
+				current = current.getParentData();
+			}
+
+			/* the chain came back to one of its classes */
+			if(current != null && color(colors, current) == GRAY) {
+				cycles.add(new ArrayList<LCPLClass>(chain.subList(chain.indexOf(current), chain.size())));
+			}
+
+			/* the root of the chain comes first */
+			for(int i = chain.size() - 1; i >= 0; i--) {
+				colors.put(chain.get(i), BLACK);
+				orderedClasses.add(chain.get(i));
+			}
+		}
+
+		if(!cycles.isEmpty()) {
+			reportCycle(cycles);
+		}
+
+		for(LCPLClass lcplClass : orderedClasses) {
+			LCPLClass parent = lcplClass.getParentData();
+			if(parent != null) {
+				List<LCPLClass> children = subclasses.get(parent);
+				if(children == null) {
+					children = new ArrayList<LCPLClass>();
+					subclasses.put(parent, children);
+				}
+				children.add(lcplClass);
+			}
+		}
+	}
+
+	/*
+	 * The classes in topological order: every class comes after its parent and the classes
+	 * that do not depend on each other keep their order from the program.
+	 */
+	public List<LCPLClass> getOrderedClasses() {
+		return orderedClasses;
+	}
+
+	/*
+	 * The classes that directly inherit the given class.
+	 */
+	public List<LCPLClass> getSubclasses(LCPLClass lcplClass) {
+		List<LCPLClass> children = subclasses.get(lcplClass);
+		if(children == null) {
+			return Collections.emptyList();
+		}
+		return children;
+	}
+
+	/*
+	 * Method that reports the cycle which contains the first class, in the order of the
+	 * program, that recursively inherits itself.
+	 */
+	private void reportCycle(List<List<LCPLClass>> cycles) throws LCPLException {
+		Map<LCPLClass, Integer> positions = new HashMap<LCPLClass, Integer>();
+		for(int i = 0; i < classes.size(); i++) {
+			positions.put(classes.get(i), i);
+		}
+
+		LCPLClass first = null;
+		for(List<LCPLClass> cycle : cycles) {
+			for(LCPLClass lcplClass : cycle) {
+				if(first == null || positions.get(lcplClass) < positions.get(first)) {
+					first = lcplClass;
+				}
+			}
+		}
+
+		/* the names of the classes on the cycle, starting and ending with the reported class */
+		List<String> cycleNames = new ArrayList<String>();
+		cycleNames.add(first.getName());
+		for(LCPLClass current = first.getParentData(); current != first; current = current.getParentData()) {
+			cycleNames.add(current.getName());
+		}
+		cycleNames.add(first.getName());
+
+		LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+		String message = eb.classRecursivelyInheritsItself(first.getName(), cycleNames);
+		throw new LCPLDiagnosticException(eb, message, first);
+	}
+
+	private int color(Map<LCPLClass, Integer> colors, LCPLClass lcplClass) {
+		Integer color = colors.get(lcplClass);
+		return color == null ? WHITE : color;
+	}
+}
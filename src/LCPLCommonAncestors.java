@@ -0,0 +1,118 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The lowest common ancestor of any two classes, in constant time: the inheritance tree is
+ * walked once in depth first order (an Euler tour, where a class is written again after
+ * every subclass) and the common ancestor of two classes is the class with the smallest
+ * depth written between their first visits. The smallest depth of every range of a power of
+ * two length is kept in a sparse table, so a query looks at two ranges.
+ *
+ * The building takes O(n log n) time and memory for n classes. The object is only read after
+ * it is built, so the walkers of different classes can use it at the same time.
+ */
+public class LCPLCommonAncestors {
+
+	/* the classes in the order of the walk, a class once for itself and once after every subclass */
+	private LCPLClass[] tour;
+	/* the depth of every class of the tour, 0 for a root */
+	private int[] depths;
+	/* the root of every class of the tour, so classes of different trees have no common ancestor */
+	private LCPLClass[] roots;
+	/* the first position of every class in the tour */
+	private Map<LCPLClass, Integer> firstVisits;
+	/* sparse[k][i] is the position of the smallest depth between i and i + 2^k - 1 */
+	private int[][] sparse;
+
+	public LCPLCommonAncestors(LCPLClassHierarchy hierarchy) {
+		List<LCPLClass> classes = hierarchy.getOrderedClasses();
+		int length = 2 * classes.size();
+		tour		= new LCPLClass[length];
+		depths		= new int[length];
+		roots		= new LCPLClass[length];
+		firstVisits = new HashMap<LCPLClass, Integer>(2 * classes.size());
+
+		/* the parents come first, so every tree is walked from its root */
+		int size = 0;
+		for(LCPLClass lcplClass : classes) {
+			if(lcplClass.getParentData() == null) {
+				size = walk(hierarchy, lcplClass, size);
+			}
+		}
+
+		int levels = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1));
+		sparse = new int[levels][];
+		sparse[0] = new int[size];
+		for(int i = 0; i < size; i++) {
+			sparse[0][i] = i;
+		}
+		for(int k = 1; k < levels; k++) {
+			int half = 1 << (k - 1);
+			sparse[k] = new int[size - (1 << k) + 1];
+			for(int i = 0; i < sparse[k].length; i++) {
+				sparse[k][i] = shallower(sparse[k - 1][i], sparse[k - 1][i + half]);
+			}
+		}
+	}
+
+	/*
+	 * Method that returns the deepest class that is an ancestor of both classes (a class is
+	 * an ancestor of itself), or null if they are in different trees or not in the hierarchy.
+	 */
+	public LCPLClass lowestCommonAncestor(LCPLClass first, LCPLClass second) {
+		Integer firstVisit = firstVisits.get(first);
+		Integer secondVisit = firstVisits.get(second);
+		if(firstVisit == null || secondVisit == null || roots[firstVisit] != roots[secondVisit]) {
+			return null;
+		}
+
+		int from = Math.min(firstVisit, secondVisit);
+		int to = Math.max(firstVisit, secondVisit);
+		int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+		return tour[shallower(sparse[k][from], sparse[k][to - (1 << k) + 1])];
+	}
+
+	/*
+	 * Method that writes the tree of a root in the tour, from the given position, and returns
+	 * the position after it. The walk keeps its own stack, so deep chains do not overflow the
+	 * stack of the thread.
+	 */
+	private int walk(LCPLClassHierarchy hierarchy, LCPLClass root, int position) {
+		Deque<LCPLClass> path = new ArrayDeque<LCPLClass>();
+		Deque<Iterator<LCPLClass>> children = new ArrayDeque<Iterator<LCPLClass>>();
+
+		firstVisits.put(root, position);
+		position = visit(root, 0, root, position);
+		path.push(root);
+		children.push(hierarchy.getSubclasses(root).iterator());
+		while(!path.isEmpty()) {
+			if(children.peek().hasNext()) {
+				LCPLClass child = children.peek().next();
+				firstVisits.put(child, position);
+				position = visit(child, path.size(), root, position);
+				path.push(child);
+				children.push(hierarchy.getSubclasses(child).iterator());
+			}
+			else {
+				path.pop();
+				children.pop();
+				if(!path.isEmpty()) {
+					position = visit(path.peek(), path.size() - 1, root, position);
+				}
+			}
+		}
+		return position;
+	}
+
+	private int visit(LCPLClass lcplClass, int depth, LCPLClass root, int position) {
+		tour[position]	 = lcplClass;
+		depths[position] = depth;
+		roots[position]	 = root;
+		return position + 1;
+	}
+
+	private int shallower(int first, int second) {
+		return depths[first] <= depths[second] ? first : second;
+	}
+}
@@ -0,0 +1,819 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * A read-only, compact representation of a program. Every node of the tree is an int handle
+ * and its data is kept in parallel arrays instead of an object per node. The strings and the
+ * types are kept in side tables and the nodes refer to them by id.
+ *
+ * The handle 0 is the program. The nodes are numbered in pre-order, and the children of a node
+ * are stored one after the other in the children array, from childStarts[node] up to
+ * childStarts[node + 1]. A missing child (an if without else, a local definition without
+ * initialization) is stored as NONE, so every kind of node has its children in fixed positions:
+ *
+ *   PROGRAM			classes...
+ *   CLASS				features...
+ *   METHOD				self, parameters..., body
+ *   ATTRIBUTE			attrInitSelf, init
+ *   BLOCK				expressions...
+ *   LOCAL_DEFINITION	init, scope
+ *   (STATIC_)DISPATCH	object, arguments...
+ *   IF_STATEMENT		condition, ifExpr, thenExpr
+ *   WHILE_STATEMENT	condition, loopBody
+ *   SUBSTRING			stringExpr, startPosition, endPosition
+ *   CAST, ASSIGNMENT, unary operations		e1
+ *   binary operations	e1, e2
+ *
+ * The other fields of a node:
+ *   value		the id of the name (of a class, feature, variable, symbol or dispatched method),
+ *   			the id of the value of a String constant, the value of an Int constant or the id
+ *   			of the symbol of an assignment
+ *   typeName	the id of the type as written in the program: the parent of a class, the return
+ *   			type of a method, the type of a variable, cast or new; the id of the type name
+ *   			of any other expression
+ *   type		the id of the type: typeData of an expression or attribute, variableType of a
+ *   			formal parameter, returnTypeData of a method, parentData of a class
+ *   auxType	the id of variableType of a local definition and of selfType of a static dispatch
+ *   ref		the handle of the variable of a symbol or assignment, of the method of a
+ *   			dispatch and of the class that contains a method
+ *
+ * The annotations of the optional passes (devirtualization, layout) are not kept.
+ */
+public class LCPLCompactProgram {
+
+	/* kinds of nodes */
+	public static final byte PROGRAM			= 0;
+	public static final byte CLASS				= 1;
+	public static final byte METHOD				= 2;
+	public static final byte ATTRIBUTE			= 3;
+	public static final byte FORMAL_PARAM		= 4;
+	public static final byte BLOCK				= 5;
+	public static final byte LOCAL_DEFINITION	= 6;
+	public static final byte DISPATCH			= 7;
+	public static final byte STATIC_DISPATCH	= 8;
+	public static final byte IF_STATEMENT		= 9;
+	public static final byte WHILE_STATEMENT	= 10;
+	public static final byte CAST				= 11;
+	public static final byte NEW_OBJECT			= 12;
+	public static final byte SUBSTRING			= 13;
+	public static final byte ASSIGNMENT			= 14;
+	public static final byte ADDITION			= 15;
+	public static final byte SUBTRACTION		= 16;
+	public static final byte MULTIPLICATION		= 17;
+	public static final byte DIVISION			= 18;
+	public static final byte LESS_THAN			= 19;
+	public static final byte LESS_THAN_EQUAL	= 20;
+	public static final byte EQUAL_COMPARISON	= 21;
+	public static final byte UNARY_MINUS		= 22;
+	public static final byte LOGICAL_NEGATION	= 23;
+	public static final byte SYMBOL				= 24;
+	public static final byte INT_CONSTANT		= 25;
+	public static final byte STRING_CONSTANT	= 26;
+	public static final byte VOID_CONSTANT		= 27;
+
+	private static final String[] KIND_NAMES = {
+		"Program", "LCPLClass", "Method", "Attribute", "FormalParam", "Block", "LocalDefinition",
+		"Dispatch", "StaticDispatch", "IfStatement", "WhileStatement", "Cast", "NewObject", "SubString",
+		"Assignment", "Addition", "Subtraction", "Multiplication", "Division", "LessThan", "LessThanEqual",
+		"EqualComparison", "UnaryMinus", "LogicalNegation", "Symbol", "IntConstant", "StringConstant",
+		"VoidConstant"
+	};
+
+	/* missing node, string or type */
+	public static final int NONE = -1;
+
+	/* ids of the types that are not classes; the classes come after them */
+	public static final int TYPE_INT	= 0;
+	public static final int TYPE_NONE	= 1;
+	public static final int TYPE_VOID	= 2;
+	private static final int FIRST_CLASS_TYPE = 3;
+
+	private int nodeCount;
+	private byte[] kinds;
+	private int[] lines;
+	private int[] values;
+	private int[] typeNames;
+	private int[] types;
+	private int[] auxTypes;
+	private int[] refs;
+	private int[] childStarts;
+
+	private int childrenCount;
+	private int[] children;
+
+	private int stringCount;
+	private String[] strings;
+
+	/* the handle of the class of every class type */
+	private int[] classTypes;
+
+	/* true if the program was analyzed, so it has the special types set */
+	private boolean analyzed;
+
+	private LCPLCompactProgram(int capacity) {
+		kinds		= new byte[capacity];
+		lines		= new int[capacity];
+		values		= new int[capacity];
+		typeNames	= new int[capacity];
+		types		= new int[capacity];
+		auxTypes	= new int[capacity];
+		refs		= new int[capacity];
+		childStarts = new int[capacity + 1];
+		children	= new int[capacity];
+		strings		= new String[64];
+	}
+
+	/*
+	 * Method that builds the compact representation of a program, analyzed or not.
+	 */
+	public static LCPLCompactProgram fromProgram(Program p) {
+		return new Encoder(p).encode();
+	}
+
+	/*
+	 * Method that builds back the object tree, with all the references between the nodes.
+	 */
+	public Program toProgram() {
+		return new Decoder().decode();
+	}
+
+	/* the query API */
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getKind(int node) {
+		return kinds[node];
+	}
+
+	public static String getKindName(int kind) {
+		return KIND_NAMES[kind];
+	}
+
+	public int getLine(int node) {
+		return lines[node];
+	}
+
+	public int getChildCount(int node) {
+		return childStarts[node + 1] - childStarts[node];
+	}
+
+	/*
+	 * The handle of a child, or NONE if the child is missing.
+	 */
+	public int getChild(int node, int index) {
+		if(index < 0 || index >= getChildCount(node)) {
+			throw new IndexOutOfBoundsException("Child " + index + " of node " + node);
+		}
+		return children[childStarts[node] + index];
+	}
+
+	/*
+	 * The name of a class, feature, variable, symbol or dispatch, the value of a String constant
+	 * or the symbol of an assignment.
+	 */
+	public String getName(int node) {
+		return kinds[node] == INT_CONSTANT ? null : getString(values[node]);
+	}
+
+	public int getIntValue(int node) {
+		if(kinds[node] != INT_CONSTANT) {
+			throw new IllegalArgumentException("Node " + node + " is a " + getKindName(kinds[node]));
+		}
+		return values[node];
+	}
+
+	/*
+	 * The type as it is written in the program or the type name of an expression.
+	 */
+	public String getTypeName(int node) {
+		return getString(typeNames[node]);
+	}
+
+	public int getType(int node) {
+		return types[node];
+	}
+
+	public int getAuxType(int node) {
+		return auxTypes[node];
+	}
+
+	public int getRef(int node) {
+		return refs[node];
+	}
+
+	public String getString(int id) {
+		return id == NONE ? null : strings[id];
+	}
+
+	/*
+	 * The name of a type: Int, (none), void or the name of a class.
+	 */
+	public String getTypeNameOf(int type) {
+		switch(type) {
+		case NONE:
+			return null;
+		case TYPE_INT:
+			return LCPLConstants.INT;
+		case TYPE_NONE:
+			return LCPLConstants.NONE;
+		case TYPE_VOID:
+			return LCPLConstants.VOID;
+		default:
+			return getString(values[classTypes[type - FIRST_CLASS_TYPE]]);
+		}
+	}
+
+	/*
+	 * The handle of the class of a class type, or NONE for the other types.
+	 */
+	public int getClassOfType(int type) {
+		return type >= FIRST_CLASS_TYPE ? classTypes[type - FIRST_CLASS_TYPE] : NONE;
+	}
+
+	private int addNode(byte kind, int line) {
+		if(nodeCount == kinds.length) {
+			int capacity = kinds.length * 2;
+			kinds		= Arrays.copyOf(kinds, capacity);
+			lines		= Arrays.copyOf(lines, capacity);
+			values		= Arrays.copyOf(values, capacity);
+			typeNames	= Arrays.copyOf(typeNames, capacity);
+			types		= Arrays.copyOf(types, capacity);
+			auxTypes	= Arrays.copyOf(auxTypes, capacity);
+			refs		= Arrays.copyOf(refs, capacity);
+			childStarts = Arrays.copyOf(childStarts, capacity + 1);
+		}
+		int node = nodeCount++;
+		kinds[node]		= kind;
+		lines[node]		= line;
+		typeNames[node] = NONE;
+		types[node]		= NONE;
+		auxTypes[node]	= NONE;
+		refs[node]		= NONE;
+		childStarts[node] = childrenCount;
+		childStarts[node + 1] = childrenCount;
+		return node;
+	}
+
+	/*
+	 * Method that reserves the positions of the children of the last added node.
+	 */
+	private int reserveChildren(int node, int count) {
+		if(childrenCount + count > children.length) {
+			children = Arrays.copyOf(children, Math.max(children.length * 2, childrenCount + count));
+		}
+		int start = childrenCount;
+		childrenCount += count;
+		childStarts[node + 1] = childrenCount;
+		return start;
+	}
+
+	/*
+	 * The children array may grow while a child is encoded, so the position is written only
+	 * after the child has its handle.
+	 */
+	private void setChild(int position, int child) {
+		children[position] = child;
+	}
+
+	private void trimToSize() {
+		kinds		= Arrays.copyOf(kinds, nodeCount);
+		lines		= Arrays.copyOf(lines, nodeCount);
+		values		= Arrays.copyOf(values, nodeCount);
+		typeNames	= Arrays.copyOf(typeNames, nodeCount);
+		types		= Arrays.copyOf(types, nodeCount);
+		auxTypes	= Arrays.copyOf(auxTypes, nodeCount);
+		refs		= Arrays.copyOf(refs, nodeCount);
+		childStarts = Arrays.copyOf(childStarts, nodeCount + 1);
+		children	= Arrays.copyOf(children, childrenCount);
+		strings		= Arrays.copyOf(strings, stringCount);
+	}
+
+	/*
+	 * Class that converts a program into the compact representation.
+	 */
+	private static class Encoder {
+		private Program p;
+		private LCPLCompactProgram compact;
+
+		private Map<String, Integer> stringIds;
+		private Map<LCPLClass, Integer> classTypeIds;
+		/*
+		 * The handles of the nodes that can be referred: classes, methods and variables.
+		 */
+		private Map<Object, Integer> handles;
+		/*
+		 * The nodes with a reference and the referred objects, resolved at the end.
+		 */
+		private List<Integer> referringNodes;
+		private List<Object> referredObjects;
+
+		Encoder(Program p) {
+			this.p			= p;
+			compact			= new LCPLCompactProgram(1024);
+			stringIds		= new HashMap<String, Integer>();
+			classTypeIds	= new IdentityHashMap<LCPLClass, Integer>();
+			handles			= new IdentityHashMap<Object, Integer>();
+			referringNodes	= new ArrayList<Integer>();
+			referredObjects = new ArrayList<Object>();
+		}
+
+		LCPLCompactProgram encode() {
+			List<LCPLClass> classes = p.getClasses();
+			compact.classTypes = new int[classes.size()];
+			for(int i = 0; i < classes.size(); i++) {
+				classTypeIds.put(classes.get(i), FIRST_CLASS_TYPE + i);
+			}
+			compact.analyzed = p.getIntType() != null;
+
+			int root = compact.addNode(PROGRAM, p.getLineNumber());
+			int start = compact.reserveChildren(root, classes.size());
+			for(int i = 0; i < classes.size(); i++) {
+				int classNode = encodeClass(classes.get(i));
+				compact.setChild(start + i, classNode);
+				compact.classTypes[i] = classNode;
+			}
+
+			for(int i = 0; i < referringNodes.size(); i++) {
+				Integer target = handles.get(referredObjects.get(i));
+				if(target == null) {
+					throw new IllegalStateException("Node " + referringNodes.get(i) + " refers to a node outside the program");
+				}
+				compact.refs[referringNodes.get(i)] = target;
+			}
+
+			compact.trimToSize();
+			return compact;
+		}
+
+		private int encodeClass(LCPLClass lcplClass) {
+			int node = compact.addNode(CLASS, lcplClass.getLineNumber());
+			handles.put(lcplClass, node);
+			compact.values[node]	= string(lcplClass.getName());
+			compact.typeNames[node] = string(lcplClass.getParent());
+			compact.types[node]		= type(lcplClass.getParentData());
+
+			List<Feature> features = lcplClass.getFeatures();
+			int start = compact.reserveChildren(node, features.size());
+			for(int i = 0; i < features.size(); i++) {
+				Feature feature = features.get(i);
+				if(feature instanceof Method) {
+					compact.setChild(start + i, encodeMethod((Method)feature));
+				}
+				else {
+					compact.setChild(start + i, encodeAttribute((Attribute)feature));
+				}
+			}
+			return node;
+		}
+
+		private int encodeMethod(Method method) {
+			int node = compact.addNode(METHOD, method.getLineNumber());
+			handles.put(method, node);
+			compact.values[node]	= string(method.getName());
+			compact.typeNames[node] = string(method.getReturnType());
+			compact.types[node]		= type(method.getReturnTypeData());
+			reference(node, method.getParent());
+
+			List<FormalParam> parameters = method.getParameters();
+			int start = compact.reserveChildren(node, parameters.size() + 2);
+			compact.setChild(start, encodeFormalParam(method.getSelf()));
+			int i = 1;
+			for(FormalParam param : parameters) {
+				compact.setChild(start + i++, encodeFormalParam(param));
+			}
+			compact.setChild(start + i, encodeExpression(method.getBody()));
+			return node;
+		}
+
+		private int encodeAttribute(Attribute attribute) {
+			int node = compact.addNode(ATTRIBUTE, attribute.getLineNumber());
+			handles.put(attribute, node);
+			compact.values[node]	= string(attribute.getName());
+			compact.typeNames[node] = string(attribute.getType());
+			compact.types[node]		= type(attribute.getTypeData());
+
+			int start = compact.reserveChildren(node, 2);
+			compact.setChild(start, encodeFormalParam(attribute.getAttrInitSelf()));
+			compact.setChild(start + 1, encodeExpression(attribute.getInit()));
+			return node;
+		}
+
+		private int encodeFormalParam(FormalParam param) {
+			if(param == null) {
+				return NONE;
+			}
+			int node = compact.addNode(FORMAL_PARAM, param.getLineNumber());
+			handles.put(param, node);
+			compact.values[node]	= string(param.getName());
+			compact.typeNames[node] = string(param.getType());
+			compact.types[node]		= type(param.getVariableType());
+			return node;
+		}
+
+		private int encodeExpression(Expression expression) {
+			if(expression == null) {
+				return NONE;
+			}
+
+			int node = compact.addNode(kindOf(expression), expression.getLineNumber());
+			compact.typeNames[node] = string(expression.getType());
+			compact.types[node]		= type(expression.getTypeData());
+
+			if(expression instanceof Block) {
+				encodeChildren(node, ((Block)expression).getExpressions());
+			}
+			else if(expression instanceof LocalDefinition) {
+				LocalDefinition localDefinition = (LocalDefinition)expression;
+				handles.put(localDefinition, node);
+				compact.values[node]   = string(localDefinition.getName());
+				compact.auxTypes[node] = type(localDefinition.getVariableType());
+				encodeChildren(node, localDefinition.getInit(), localDefinition.getScope());
+			}
+			else if(expression instanceof BaseDispatch) {
+				BaseDispatch dispatch = (BaseDispatch)expression;
+				compact.values[node] = string(dispatch.getName());
+				if(dispatch instanceof StaticDispatch) {
+					compact.auxTypes[node] = type(((StaticDispatch)dispatch).getSelfType());
+				}
+				reference(node, dispatch.getMethod());
+
+				List<Expression> arguments = dispatch.getArguments();
+				int start = compact.reserveChildren(node, arguments.size() + 1);
+				compact.setChild(start, encodeExpression(dispatch.getObject()));
+				int i = 1;
+				for(Expression argument : arguments) {
+					compact.setChild(start + i++, encodeExpression(argument));
+				}
+			}
+			else if(expression instanceof IfStatement) {
+				IfStatement ifStatement = (IfStatement)expression;
+				encodeChildren(node, ifStatement.getCondition(), ifStatement.getIfExpr(), ifStatement.getThenExpr());
+			}
+			else if(expression instanceof WhileStatement) {
+				WhileStatement whileStatement = (WhileStatement)expression;
+				encodeChildren(node, whileStatement.getCondition(), whileStatement.getLoopBody());
+			}
+			else if(expression instanceof Cast) {
+				encodeChildren(node, ((Cast)expression).getE1());
+			}
+			else if(expression instanceof SubString) {
+				SubString subString = (SubString)expression;
+				encodeChildren(node, subString.getStringExpr(), subString.getStartPosition(), subString.getEndPosition());
+			}
+			else if(expression instanceof Assignment) {
+				Assignment assignment = (Assignment)expression;
+				compact.values[node] = string(assignment.getSymbol());
+				reference(node, assignment.getSymbolData());
+				encodeChildren(node, assignment.getE1());
+			}
+			else if(expression instanceof BinaryOp) {
+				encodeChildren(node, ((BinaryOp)expression).getE1(), ((BinaryOp)expression).getE2());
+			}
+			else if(expression instanceof UnaryOp) {
+				encodeChildren(node, ((UnaryOp)expression).getE1());
+			}
+			else if(expression instanceof Symbol) {
+				compact.values[node] = string(((Symbol)expression).getName());
+				reference(node, ((Symbol)expression).getVariable());
+			}
+			else if(expression instanceof IntConstant) {
+				compact.values[node] = ((IntConstant)expression).getValue();
+			}
+			else if(expression instanceof StringConstant) {
+				compact.values[node] = string(((StringConstant)expression).getValue());
+			}
+			return node;
+		}
+
+		private void encodeChildren(int node, Expression... expressions) {
+			encodeChildren(node, Arrays.asList(expressions));
+		}
+
+		private void encodeChildren(int node, List<Expression> expressions) {
+			int start = compact.reserveChildren(node, expressions.size());
+			int i = 0;
+			for(Expression expression : expressions) {
+				compact.setChild(start + i++, encodeExpression(expression));
+			}
+		}
+
+		private byte kindOf(Expression expression) {
+			if(expression instanceof Block)				return BLOCK;
+			if(expression instanceof LocalDefinition)	return LOCAL_DEFINITION;
+			if(expression instanceof StaticDispatch)	return STATIC_DISPATCH;
+			if(expression instanceof Dispatch)			return DISPATCH;
+			if(expression instanceof IfStatement)		return IF_STATEMENT;
+			if(expression instanceof WhileStatement)	return WHILE_STATEMENT;
+			if(expression instanceof Cast)				return CAST;
+			if(expression instanceof NewObject)			return NEW_OBJECT;
+			if(expression instanceof SubString)			return SUBSTRING;
+			if(expression instanceof Assignment)		return ASSIGNMENT;
+			if(expression instanceof Addition)			return ADDITION;
+			if(expression instanceof Subtraction)		return SUBTRACTION;
+			if(expression instanceof Multiplication)	return MULTIPLICATION;
+			if(expression instanceof Division)			return DIVISION;
+			if(expression instanceof LessThan)			return LESS_THAN;
+			if(expression instanceof LessThanEqual)		return LESS_THAN_EQUAL;
+			if(expression instanceof EqualComparison)	return EQUAL_COMPARISON;
+			if(expression instanceof UnaryMinus)		return UNARY_MINUS;
+			if(expression instanceof LogicalNegation)	return LOGICAL_NEGATION;
+			if(expression instanceof Symbol)			return SYMBOL;
+			if(expression instanceof IntConstant)		return INT_CONSTANT;
+			if(expression instanceof StringConstant)	return STRING_CONSTANT;
+			if(expression instanceof VoidConstant)		return VOID_CONSTANT;
+			throw new IllegalArgumentException("Unknown expression " + expression.getClass().getName());
+		}
+
+		private int string(String value) {
+			if(value == null) {
+				return NONE;
+			}
+			Integer id = stringIds.get(value);
+			if(id == null) {
+				id = compact.stringCount;
+				if(id == compact.strings.length) {
+					compact.strings = Arrays.copyOf(compact.strings, id * 2);
+				}
+				compact.strings[compact.stringCount++] = value;
+				stringIds.put(value, id);
+			}
+			return id;
+		}
+
+		private int type(Type type) {
+			if(type == null) {
+				return NONE;
+			}
+			if(type instanceof IntType) {
+				return TYPE_INT;
+			}
+			if(type instanceof NoType) {
+				return TYPE_NONE;
+			}
+			if(type instanceof NullType) {
+				return TYPE_VOID;
+			}
+			Integer id = classTypeIds.get(type);
+			if(id == null) {
+				throw new IllegalStateException("Class " + type.getName() + " is not in the program");
+			}
+			return id;
+		}
+
+		private void reference(int node, Object target) {
+			if(target != null) {
+				referringNodes.add(node);
+				referredObjects.add(target);
+			}
+		}
+	}
+
+	/*
+	 * Class that builds back the object tree. The nodes are created first and the types and
+	 * the references are set after, when all the nodes they may refer to exist.
+	 */
+	private class Decoder {
+		private Object[] objects;
+		private IntType intType;
+		private NoType noType;
+		private NullType nullType;
+
+		Decoder() {
+			objects	 = new Object[nodeCount];
+			intType	 = new IntType();
+			noType	 = new NoType();
+			nullType = new NullType();
+		}
+
+		Program decode() {
+			List<LCPLClass> classes = new ArrayList<LCPLClass>(getChildCount(0));
+			for(int i = 0; i < getChildCount(0); i++) {
+				classes.add((LCPLClass)build(getChild(0, i)));
+			}
+			Program program = new Program(lines[0], classes);
+			objects[0] = program;
+
+			for(int node = 1; node < nodeCount; node++) {
+				if(objects[node] != null) {
+					link(node);
+				}
+			}
+
+			if(analyzed) {
+				program.setIntType(intType);
+				program.setNoType(noType);
+				program.setNullType(nullType);
+				for(LCPLClass lcplClass : classes) {
+					if(lcplClass.getName().equals(LCPLConstants.OBJECT)) {
+						program.setObjectType(lcplClass);
+					}
+					else if(lcplClass.getName().equals(LCPLConstants.IO)) {
+						program.setIoType(lcplClass);
+					}
+					else if(lcplClass.getName().equals(LCPLConstants.STRING)) {
+						program.setStringType(lcplClass);
+					}
+				}
+			}
+			return program;
+		}
+
+		private Object build(int node) {
+			if(node == NONE) {
+				return null;
+			}
+
+			Object object;
+			int line = lines[node];
+			String value = kinds[node] == INT_CONSTANT ? null : getString(values[node]);
+			String typeName = getString(typeNames[node]);
+			switch(kinds[node]) {
+			case CLASS: {
+				List<Feature> features = new ArrayList<Feature>(getChildCount(node));
+				for(int i = 0; i < getChildCount(node); i++) {
+					features.add((Feature)build(getChild(node, i)));
+				}
+				object = new LCPLClass(line, value, typeName, features);
+				break;
+			}
+			case METHOD: {
+				int count = getChildCount(node);
+				List<FormalParam> parameters = new ArrayList<FormalParam>(count - 2);
+				for(int i = 1; i < count - 1; i++) {
+					parameters.add((FormalParam)build(getChild(node, i)));
+				}
+				Method method = new Method(line, value, parameters, typeName, (Expression)build(getChild(node, count - 1)));
+				method.setSelf((FormalParam)build(getChild(node, 0)));
+				object = method;
+				break;
+			}
+			case ATTRIBUTE: {
+				Attribute attribute = new Attribute(line, value, typeName, (Expression)build(getChild(node, 1)));
+				attribute.setAttrInitSelf((FormalParam)build(getChild(node, 0)));
+				object = attribute;
+				break;
+			}
+			case FORMAL_PARAM: {
+				FormalParam param = new FormalParam(value, typeName);
+				param.setLineNumber(line);
+				object = param;
+				break;
+			}
+			case BLOCK:
+				object = new Block(line, buildExpressions(node, 0));
+				break;
+			case LOCAL_DEFINITION:
+				object = new LocalDefinition(line, value, typeName, expression(node, 0), expression(node, 1));
+				break;
+			case DISPATCH:
+				object = new Dispatch(line, expression(node, 0), value, buildExpressions(node, 1));
+				break;
+			case STATIC_DISPATCH:
+				object = new StaticDispatch(line, expression(node, 0), typeName, value, buildExpressions(node, 1));
+				break;
+			case IF_STATEMENT:
+				object = new IfStatement(line, expression(node, 0), expression(node, 1), expression(node, 2));
+				break;
+			case WHILE_STATEMENT:
+				object = new WhileStatement(line, expression(node, 0), expression(node, 1));
+				break;
+			case CAST:
+				object = new Cast(line, typeName, expression(node, 0));
+				break;
+			case NEW_OBJECT:
+				object = new NewObject(line, typeName);
+				break;
+			case SUBSTRING:
+				object = new SubString(line, expression(node, 0), expression(node, 1), expression(node, 2));
+				break;
+			case ASSIGNMENT:
+				object = new Assignment(line, value, expression(node, 0));
+				break;
+			case ADDITION:
+				object = new Addition(line, expression(node, 0), expression(node, 1));
+				break;
+			case SUBTRACTION:
+				object = new Subtraction(line, expression(node, 0), expression(node, 1));
+				break;
+			case MULTIPLICATION:
+				object = new Multiplication(line, expression(node, 0), expression(node, 1));
+				break;
+			case DIVISION:
+				object = new Division(line, expression(node, 0), expression(node, 1));
+				break;
+			case LESS_THAN:
+				object = new LessThan(line, expression(node, 0), expression(node, 1));
+				break;
+			case LESS_THAN_EQUAL:
+				object = new LessThanEqual(line, expression(node, 0), expression(node, 1));
+				break;
+			case EQUAL_COMPARISON:
+				object = new EqualComparison(line, expression(node, 0), expression(node, 1));
+				break;
+			case UNARY_MINUS:
+				object = new UnaryMinus(line, expression(node, 0));
+				break;
+			case LOGICAL_NEGATION:
+				object = new LogicalNegation(line, expression(node, 0));
+				break;
+			case SYMBOL:
+				object = new Symbol(line, value);
+				break;
+			case INT_CONSTANT:
+				object = new IntConstant(line, values[node]);
+				break;
+			case STRING_CONSTANT:
+				object = new StringConstant(line, value);
+				break;
+			case VOID_CONSTANT:
+				object = new VoidConstant(line);
+				break;
+			default:
+				throw new IllegalStateException("Unknown kind " + kinds[node] + " of node " + node);
+			}
+
+			objects[node] = object;
+			return object;
+		}
+
+		private Expression expression(int node, int index) {
+			return (Expression)build(getChild(node, index));
+		}
+
+		private List<Expression> buildExpressions(int node, int from) {
+			List<Expression> expressions = new ArrayList<Expression>(getChildCount(node) - from);
+			for(int i = from; i < getChildCount(node); i++) {
+				expressions.add(expression(node, i));
+			}
+			return expressions;
+		}
+
+		/*
+		 * Method that sets the types and the references of a node.
+		 */
+		private void link(int node) {
+			Object object = objects[node];
+			Type type = typeOf(types[node]);
+			Object ref = refs[node] == NONE ? null : objects[refs[node]];
+
+			switch(kinds[node]) {
+			case CLASS:
+				((LCPLClass)object).setParentData((LCPLClass)type);
+				return;
+			case METHOD:
+				((Method)object).setReturnTypeData(type);
+				((Method)object).setParent((LCPLClass)ref);
+				return;
+			case ATTRIBUTE:
+				((Attribute)object).setTypeData(type);
+				return;
+			case FORMAL_PARAM:
+				((FormalParam)object).setVariableType(type);
+				return;
+			}
+
+			Expression expression = (Expression)object;
+			if(type != null) {
+				expression.setTypeData(type);
+			}
+			expression.setType(getString(typeNames[node]));
+
+			switch(kinds[node]) {
+			case LOCAL_DEFINITION:
+				((LocalDefinition)object).setVariableType(typeOf(auxTypes[node]));
+				break;
+			case STATIC_DISPATCH:
+				((StaticDispatch)object).setSelfType(typeOf(auxTypes[node]));
+				((BaseDispatch)object).setMethod((Method)ref);
+				break;
+			case DISPATCH:
+				((BaseDispatch)object).setMethod((Method)ref);
+				break;
+			case ASSIGNMENT:
+				((Assignment)object).setSymbolData((Variable)ref);
+				break;
+			case SYMBOL:
+				((Symbol)object).setVariable((Variable)ref);
+				break;
+			}
+		}
+
+		private Type typeOf(int type) {
+			switch(type) {
+			case NONE:
+				return null;
+			case TYPE_INT:
+				return intType;
+			case TYPE_NONE:
+				return noType;
+			case TYPE_VOID:
+				return nullType;
+			default:
+				return (LCPLClass)objects[classTypes[type - FIRST_CLASS_TYPE]];
+			}
+		}
+	}
+}
@@ -0,0 +1,233 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that folds, after the semantic analysis, the expressions that have only constant
+ * operands into new constants, with the 32 bits semantics of Int:
+ *   - arithmetic (+, -, *, /, unary -), comparisons (<, <=, ==) and ! on Int constants
+ *   - the conversion of an Int constant into a String
+ *   - the concatenation of two String constants
+ * A division by zero, or one that overflows, is never folded: it has to fail at runtime.
+ *
+ * The String constants with the same value are replaced by a single shared constant, which
+ * becomes a constant pool in the output. The shared constant keeps the line of its first use.
+ */
+public class LCPLConstantFolder {
+
+	private Program p;
+	/*
+	 * The shared String constants.
+	 * Map<value, constant>
+	 */
+	private Map<String, StringConstant> stringPool;
+
+	private int foldedExpressions;
+	private int pooledConstants;
+
+	public LCPLConstantFolder(Program p) {
+		this.p 	   = p;
+		stringPool = new LinkedHashMap<String, StringConstant>();
+	}
+
+	/*
+	 * Method that folds the constants in all the attributes initializations and methods bodies.
+	 */
+	public void foldProgram() {
+		for(LCPLClass lcplClass : p.getClasses()) {
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Attribute) {
+					Attribute attribute = (Attribute)feature;
+					attribute.setInit(fold(attribute.getInit()));
+				}
+				else if(feature instanceof Method) {
+					Method method = (Method)feature;
+					method.setBody(fold(method.getBody()));
+				}
+			}
+		}
+	}
+
+	public int getFoldedExpressions() {
+		return foldedExpressions;
+	}
+
+	/*
+	 * The number of String constants replaced by a shared one.
+	 */
+	public int getPooledConstants() {
+		return pooledConstants;
+	}
+
+	/*
+	 * The number of distinct String constants.
+	 */
+	public int getPoolSize() {
+		return stringPool.size();
+	}
+
+	/*
+	 * Method that folds the subexpressions of an expression and then the expression itself.
+	 * It returns the expression that replaces the given one.
+	 */
+	private Expression fold(Expression expression) {
+		if(expression == null) {
+			return null;
+		}
+
+		if(expression instanceof Block) {
+			List<Expression> expressions = ((Block)expression).getExpressions();
+			for(int i = 0; i < expressions.size(); i++) {
+				expressions.set(i, fold(expressions.get(i)));
+			}
+		}
+		else if(expression instanceof LocalDefinition) {
+			LocalDefinition localDefinition = (LocalDefinition)expression;
+			localDefinition.setInit(fold(localDefinition.getInit()));
+			localDefinition.setScope(fold(localDefinition.getScope()));
+		}
+		else if(expression instanceof BaseDispatch) {
+			BaseDispatch dispatch = (BaseDispatch)expression;
+			dispatch.setObject(fold(dispatch.getObject()));
+			List<Expression> arguments = dispatch.getArguments();
+			for(int i = 0; i < arguments.size(); i++) {
+				arguments.set(i, fold(arguments.get(i)));
+			}
+		}
+		else if(expression instanceof IfStatement) {
+			IfStatement ifStatement = (IfStatement)expression;
+			ifStatement.setCondition(fold(ifStatement.getCondition()));
+			ifStatement.setIfExpr(fold(ifStatement.getIfExpr()));
+			ifStatement.setThenExpr(fold(ifStatement.getThenExpr()));
+		}
+		else if(expression instanceof WhileStatement) {
+			WhileStatement whileStatement = (WhileStatement)expression;
+			whileStatement.setCondition(fold(whileStatement.getCondition()));
+			whileStatement.setLoopBody(fold(whileStatement.getLoopBody()));
+		}
+		else if(expression instanceof SubString) {
+			SubString subString = (SubString)expression;
+			subString.setStringExpr(fold(subString.getStringExpr()));
+			subString.setStartPosition(fold(subString.getStartPosition()));
+			subString.setEndPosition(fold(subString.getEndPosition()));
+		}
+		else if(expression instanceof Assignment) {
+			Assignment assignment = (Assignment)expression;
+			assignment.setE1(fold(assignment.getE1()));
+		}
+		else if(expression instanceof Cast) {
+			return foldCast((Cast)expression);
+		}
+		else if(expression instanceof BinaryOp) {
+			return foldBinaryOp((BinaryOp)expression);
+		}
+		else if(expression instanceof UnaryOp) {
+			return foldUnaryOp((UnaryOp)expression);
+		}
+		else if(expression instanceof StringConstant) {
+			return pool((StringConstant)expression);
+		}
+
+		return expression;
+	}
+
+	private Expression foldCast(Cast cast) {
+		Expression e = fold(cast.getE1());
+		cast.setE1(e);
+
+		if(e instanceof IntConstant && LCPLConstants.STRING.equals(cast.getType())) {
+			return newStringConstant(cast.getLineNumber(), Integer.toString(((IntConstant)e).getValue()));
+		}
+		return cast;
+	}
+
+	private Expression foldBinaryOp(BinaryOp binaryOp) {
+		Expression e1 = fold(binaryOp.getE1());
+		Expression e2 = fold(binaryOp.getE2());
+		binaryOp.setE1(e1);
+		binaryOp.setE2(e2);
+		int line = binaryOp.getLineNumber();
+
+		if(e1 instanceof StringConstant && e2 instanceof StringConstant && binaryOp instanceof Addition) {
+			return newStringConstant(line, ((StringConstant)e1).getValue() + ((StringConstant)e2).getValue());
+		}
+		if(!(e1 instanceof IntConstant) || !(e2 instanceof IntConstant)) {
+			return binaryOp;
+		}
+
+		int a = ((IntConstant)e1).getValue();
+		int b = ((IntConstant)e2).getValue();
+		if(binaryOp instanceof Addition) {
+			return newIntConstant(line, a + b);
+		}
+		else if(binaryOp instanceof Subtraction) {
+			return newIntConstant(line, a - b);
+		}
+		else if(binaryOp instanceof Multiplication) {
+			return newIntConstant(line, a * b);
+		}
+		else if(binaryOp instanceof Division) {
+			if(b == 0 || (a == Integer.MIN_VALUE && b == -1)) {
+				return binaryOp;
+			}
+			return newIntConstant(line, a / b);
+		}
+		else if(binaryOp instanceof LessThan) {
+			return newIntConstant(line, a < b ? 1 : 0);
+		}
+		else if(binaryOp instanceof LessThanEqual) {
+			return newIntConstant(line, a <= b ? 1 : 0);
+		}
+		else if(binaryOp instanceof EqualComparison) {
+			return newIntConstant(line, a == b ? 1 : 0);
+		}
+		return binaryOp;
+	}
+
+	private Expression foldUnaryOp(UnaryOp unaryOp) {
+		Expression e = fold(unaryOp.getE1());
+		unaryOp.setE1(e);
+
+		if(!(e instanceof IntConstant)) {
+			return unaryOp;
+		}
+
+		int a = ((IntConstant)e).getValue();
+		if(unaryOp instanceof UnaryMinus) {
+			return newIntConstant(unaryOp.getLineNumber(), -a);
+		}
+		else if(unaryOp instanceof LogicalNegation) {
+			return newIntConstant(unaryOp.getLineNumber(), a == 0 ? 1 : 0);
+		}
+		return unaryOp;
+	}
+
+	private IntConstant newIntConstant(int line, int value) {
+		IntConstant constant = new IntConstant(line, value);
+		constant.setTypeData(p.getIntType());
+		foldedExpressions++;
+		return constant;
+	}
+
+	private StringConstant newStringConstant(int line, String value) {
+		StringConstant constant = new StringConstant(line, value);
+		constant.setTypeData(p.getStringType());
+		foldedExpressions++;
+		return pool(constant);
+	}
+
+	/*
+	 * Method that returns the shared constant with the value of the given one.
+	 */
+	private StringConstant pool(StringConstant constant) {
+		StringConstant shared = stringPool.get(constant.getValue());
+		if(shared == null) {
+			stringPool.put(constant.getValue(), constant);
+			return constant;
+		}
+		if(shared != constant) {
+			pooledConstants++;
+		}
+		return shared;
+	}
+}
@@ -0,0 +1,167 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that removes from an analyzed program the classes and the methods that can not be
+ * reached from Main.main.
+ *
+ * A class is kept if it is instantiated, if it contains a reachable method, if it is used as a
+ * type by the kept code or if it is the parent of a kept class. The special classes are always
+ * kept. The unreachable methods of the kept classes are removed, and the initializations of the
+ * attributes of the kept classes that are never instantiated (neither them nor their subclasses)
+ * are dropped, because they are never executed and they may call removed methods.
+ */
+public class LCPLDeadCodeEliminator {
+
+	private Program p;
+	private LCPLClassHierarchy hierarchy;
+
+	private List<String> removedClasses;
+	private List<String> removedMethods;
+	private List<String> removedInitializations;
+
+	public LCPLDeadCodeEliminator(Program p, LCPLClassHierarchy hierarchy) {
+		this.p 			= p;
+		this.hierarchy	= hierarchy;
+
+		removedClasses			= new ArrayList<String>();
+		removedMethods			= new ArrayList<String>();
+		removedInitializations	= new ArrayList<String>();
+	}
+
+	/*
+	 * Method that finds the reachable code and removes everything else from the program.
+	 */
+	public void eliminate() throws LCPLException {
+		Map<String, LCPLClass> classes = new HashMap<String, LCPLClass>();
+		for(LCPLClass lcplClass : p.getClasses()) {
+			classes.put(lcplClass.getName(), lcplClass);
+		}
+
+		LCPLReachability reachability = new LCPLReachability(p, classes, hierarchy);
+		reachability.run();
+
+		Set<LCPLClass> keptClasses = findKeptClasses(reachability);
+
+		List<LCPLClass> remainingClasses = new ArrayList<LCPLClass>(keptClasses.size());
+		for(LCPLClass lcplClass : p.getClasses()) {
+			if(!keptClasses.contains(lcplClass)) {
+				removedClasses.add(lcplClass.getName());
+				continue;
+			}
+			remainingClasses.add(lcplClass);
+			if(!isSpecialClass(lcplClass)) {
+				pruneFeatures(lcplClass, reachability);
+			}
+		}
+		p.setClasses(remainingClasses);
+	}
+
+	public List<String> getRemovedClasses() {
+		return removedClasses;
+	}
+
+	/*
+	 * The removed methods, as "Class.method".
+	 */
+	public List<String> getRemovedMethods() {
+		return removedMethods;
+	}
+
+	/*
+	 * The attributes whose initialization was dropped, as "Class.attribute".
+	 */
+	public List<String> getRemovedInitializations() {
+		return removedInitializations;
+	}
+
+	/*
+	 * Method that computes the classes needed by the reachable code. The types used by the
+	 * attributes of a kept class are needed too, so the set grows until nothing changes.
+	 */
+	private Set<LCPLClass> findKeptClasses(LCPLReachability reachability) {
+		final Set<LCPLClass> kept = new LinkedHashSet<LCPLClass>();
+		final LinkedList<LCPLClass> pending = new LinkedList<LCPLClass>();
+
+		LCPLTreeScanner typesScanner = new LCPLTreeScanner() {
+			@Override
+			protected void visitExpression(Expression expression) {
+				keep(expression.getTypeData(), kept, pending);
+				if(expression instanceof LocalDefinition) {
+					keep(((LocalDefinition)expression).getVariableType(), kept, pending);
+				}
+				else if(expression instanceof StaticDispatch) {
+					keep(((StaticDispatch)expression).getSelfType(), kept, pending);
+				}
+			}
+		};
+
+		keep(p.getObjectType(), kept, pending);
+		keep(p.getIoType(), kept, pending);
+		keep(p.getStringType(), kept, pending);
+		for(LCPLClass lcplClass : reachability.getInstantiatedClasses()) {
+			keep(lcplClass, kept, pending);
+		}
+		for(Method method : reachability.getReachedMethods()) {
+			keep(method.getParent(), kept, pending);
+			keep(method.getReturnTypeData(), kept, pending);
+			for(FormalParam param : method.getParameters()) {
+				keep(param.getVariableType(), kept, pending);
+			}
+			typesScanner.scanExpression(method.getBody());
+		}
+		for(Attribute attribute : reachability.getReachedAttributes()) {
+			typesScanner.scanExpression(attribute.getInit());
+		}
+
+		while(!pending.isEmpty()) {
+			LCPLClass lcplClass = pending.removeFirst();
+			keep(lcplClass.getParentData(), kept, pending);
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Attribute) {
+					keep(((Attribute)feature).getTypeData(), kept, pending);
+				}
+			}
+		}
+
+		return kept;
+	}
+
+	private void keep(Type type, Set<LCPLClass> kept, LinkedList<LCPLClass> pending) {
+		if(type instanceof LCPLClass && kept.add((LCPLClass)type)) {
+			pending.add((LCPLClass)type);
+		}
+	}
+
+	/*
+	 * Method that removes the unreachable methods of a kept class and the initializations
+	 * of the attributes that are never initialized at runtime.
+	 */
+	private void pruneFeatures(LCPLClass lcplClass, LCPLReachability reachability) {
+		List<Feature> features = new ArrayList<Feature>(lcplClass.getFeatures().size());
+		for(Feature feature : lcplClass.getFeatures()) {
+			if(feature instanceof Method) {
+				Method method = (Method)feature;
+				if(!reachability.getReachedMethods().contains(method)) {
+					removedMethods.add(lcplClass.getName() + "." + method.getName());
+					continue;
+				}
+			}
+			else if(feature instanceof Attribute) {
+				Attribute attribute = (Attribute)feature;
+				if(attribute.getInit() != null && !reachability.getReachedAttributes().contains(attribute)) {
+					removedInitializations.add(lcplClass.getName() + "." + attribute.getName());
+					attribute.setInit(null);
+					attribute.setAttrInitSelf(null);
+				}
+			}
+			features.add(feature);
+		}
+		lcplClass.setFeatures(features);
+	}
+
+	private boolean isSpecialClass(LCPLClass lcplClass) {
+		return lcplClass == p.getObjectType() || lcplClass == p.getIoType() || lcplClass == p.getStringType();
+	}
+}
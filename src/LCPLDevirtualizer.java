@@ -0,0 +1,116 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that runs a class hierarchy analysis over an analyzed program and devirtualizes the
+ * dynamic dispatches that can invoke a single method. A dispatch on an object of static type C
+ * invokes the method found from C, or an override of it from a subclass of C. If no subclass
+ * of C redefines the method, the dispatch is monomorphic and the method is recorded in
+ * Dispatch.devirtualizedMethod.
+ *
+ * The whole program must be known: a class added later may override the method.
+ */
+public class LCPLDevirtualizer {
+
+	private Program p;
+	private LCPLClassHierarchy hierarchy;
+	/*
+	 * For every class, the method names already looked for in its subclasses and the answer.
+	 * Map<class, Map<methodName, overridden>>
+	 */
+	private Map<LCPLClass, Map<String, Boolean>> overrides;
+
+	private int dispatchSites;
+	private int devirtualizedSites;
+
+	public LCPLDevirtualizer(Program p) {
+		this.p	  = p;
+		overrides = new HashMap<LCPLClass, Map<String, Boolean>>();
+	}
+
+	/*
+	 * Method that marks the monomorphic dispatches. The hierarchy is built again from the
+	 * classes of the program, because an earlier pass may have removed some of them.
+	 */
+	public void devirtualize() throws LCPLException {
+		hierarchy = new LCPLClassHierarchy(p.getClasses());
+		hierarchy.build();
+
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			@Override
+			protected void visitExpression(Expression expression) {
+				if(expression instanceof Dispatch) {
+					visitDispatch((Dispatch)expression);
+				}
+			}
+		};
+		for(LCPLClass lcplClass : p.getClasses()) {
+			scanner.scanClass(lcplClass);
+		}
+	}
+
+	/*
+	 * The number of analyzed dynamic dispatches.
+	 */
+	public int getDispatchSites() {
+		return dispatchSites;
+	}
+
+	public int getDevirtualizedSites() {
+		return devirtualizedSites;
+	}
+
+	private void visitDispatch(Dispatch dispatch) {
+		Method method = dispatch.getMethod();
+		if(method == null) {
+			return;
+		}
+		dispatchSites++;
+
+		Type objectType = dispatch.getObject() == null ? null : dispatch.getObject().getTypeData();
+		LCPLClass receiver = objectType instanceof LCPLClass ? (LCPLClass)objectType : method.getParent();
+		if(!isOverriddenBelow(receiver, method.getName())) {
+			dispatch.setDevirtualizedMethod(method);
+			devirtualizedSites++;
+		}
+		else {
+			dispatch.setDevirtualizedMethod(null);
+		}
+	}
+
+	/*
+	 * Method that verifies if a subclass of the given class, direct or not, defines a method
+	 * with the given name. The answers are remembered for every class on the way down.
+	 */
+	private boolean isOverriddenBelow(LCPLClass lcplClass, String methodName) {
+		Map<String, Boolean> answers = overrides.get(lcplClass);
+		if(answers == null) {
+			answers = new HashMap<String, Boolean>();
+			overrides.put(lcplClass, answers);
+		}
+		Boolean answer = answers.get(methodName);
+		if(answer != null) {
+			return answer;
+		}
+
+		boolean overridden = false;
+		for(LCPLClass subclass : hierarchy.getSubclasses(lcplClass)) {
+			if(definesMethod(subclass, methodName) || isOverriddenBelow(subclass, methodName)) {
+				overridden = true;
+				break;
+			}
+		}
+		answers.put(methodName, overridden);
+		return overridden;
+	}
+
+	private boolean definesMethod(LCPLClass lcplClass, String methodName) {
+		for(Feature feature : lcplClass.getFeatures()) {
+			if(feature instanceof Method && ((Method)feature).getName().equals(methodName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,80 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * An error of the analysis in a form that tools can read without parsing its message: a
+ * stable code (LCPLDiagnosticCode), its severity, the line and the kind of the node where it
+ * was found and the names and values that make up the message. The values are Strings,
+ * numbers or lists of Strings.
+ */
+public class LCPLDiagnostic {
+
+	public enum Severity {
+		/* the program is not correct */
+		ERROR,
+		/* the analysis stopped before it could decide whether the program is correct */
+		FATAL
+	}
+
+	private LCPLDiagnosticCode code;
+	private int line;
+	private String nodeKind;
+	private Map<String, Object> arguments;
+	private String message;
+
+	public LCPLDiagnostic(LCPLDiagnosticCode code, int line, String nodeKind, Map<String, Object> arguments,
+			String message) {
+		this.code	   = code;
+		this.line	   = line;
+		this.nodeKind  = nodeKind;
+		this.arguments = Collections.unmodifiableMap(new LinkedHashMap<String, Object>(arguments));
+		this.message   = message;
+	}
+
+	/*
+	 * Method that makes the diagnostic of an error of the analysis. An exception that was not
+	 * built by LCPLExceptionsBuilder has the UNKNOWN code and no arguments.
+	 */
+	public static LCPLDiagnostic fromException(LCPLException ex) {
+		LCPLDiagnosticCode code = LCPLDiagnosticCode.UNKNOWN;
+		Map<String, Object> arguments = Collections.emptyMap();
+		if(ex instanceof LCPLDiagnosticException) {
+			code	  = ((LCPLDiagnosticException)ex).getCode();
+			arguments = ((LCPLDiagnosticException)ex).getArguments();
+		}
+		int line = ex.node == null ? 0 : ex.node.getLineNumber();
+		String nodeKind = ex.node == null ? null : ex.node.getClass().getSimpleName();
+		return new LCPLDiagnostic(code, line, nodeKind, arguments, ex.message);
+	}
+
+	public LCPLDiagnosticCode getCode() {
+		return code;
+	}
+
+	public Severity getSeverity() {
+		return code.getSeverity();
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	/*
+	 * The name of the class of the node, as the "kind" of the JSON output.
+	 */
+	public String getNodeKind() {
+		return nodeKind;
+	}
+
+	public Map<String, Object> getArguments() {
+		return arguments;
+	}
+
+	/*
+	 * The message printed by LCPLSemant, made from the arguments.
+	 */
+	public String getMessage() {
+		return message;
+	}
+}
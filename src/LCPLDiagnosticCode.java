@@ -0,0 +1,54 @@
+/*
+ * The stable codes of the diagnostics. A code keeps its id when its message changes, and the
+ * ids of the removed codes are not given again. The hundreds group the codes: 1xx the
+ * classes, 2xx the features, 3xx the expressions, 9xx the analyses stopped by their budget.
+ */
+public enum LCPLDiagnosticCode {
+
+	/* an LCPLException that was not built by LCPLExceptionsBuilder */
+	UNKNOWN("LCPL000", LCPLDiagnostic.Severity.ERROR),
+
+	CLASS_NOT_FOUND("LCPL101", LCPLDiagnostic.Severity.ERROR),
+	CLASS_ALREADY_EXISTS("LCPL102", LCPLDiagnostic.Severity.ERROR),
+	CLASS_INHERITS_ITSELF("LCPL103", LCPLDiagnostic.Severity.ERROR),
+	CLASS_INHERITS_STRING("LCPL104", LCPLDiagnostic.Severity.ERROR),
+
+	METHOD_ALREADY_EXISTS("LCPL201", LCPLDiagnostic.Severity.ERROR),
+	ATTRIBUTE_ALREADY_EXISTS("LCPL202", LCPLDiagnostic.Severity.ERROR),
+	ATTRIBUTE_REDEFINED("LCPL203", LCPLDiagnostic.Severity.ERROR),
+	OVERRIDE_PARAMETER_TYPE("LCPL204", LCPLDiagnostic.Severity.ERROR),
+	OVERRIDE_PARAMETER_COUNT("LCPL205", LCPLDiagnostic.Severity.ERROR),
+	OVERRIDE_RETURN_TYPE("LCPL206", LCPLDiagnostic.Severity.ERROR),
+
+	ATTRIBUTE_NOT_FOUND("LCPL301", LCPLDiagnostic.Severity.ERROR),
+	METHOD_NOT_FOUND("LCPL302", LCPLDiagnostic.Severity.ERROR),
+	CANNOT_CONVERT("LCPL303", LCPLDiagnostic.Severity.ERROR),
+	CANNOT_CONVERT_IN_STATIC_DISPATCH("LCPL304", LCPLDiagnostic.Severity.ERROR),
+	ILLEGAL_CONSTRUCTION("LCPL305", LCPLDiagnostic.Severity.ERROR),
+	INVALID_OPERAND_TYPES("LCPL306", LCPLDiagnostic.Severity.ERROR),
+	INVALID_ADDITION("LCPL307", LCPLDiagnostic.Severity.ERROR),
+	NOT_ENOUGH_ARGUMENTS("LCPL308", LCPLDiagnostic.Severity.ERROR),
+	TOO_MANY_ARGUMENTS("LCPL309", LCPLDiagnostic.Severity.ERROR),
+	CONDITION_NOT_INT("LCPL310", LCPLDiagnostic.Severity.ERROR),
+
+	ANALYSIS_CANCELLED("LCPL901", LCPLDiagnostic.Severity.FATAL),
+	ANALYSIS_TIMED_OUT("LCPL902", LCPLDiagnostic.Severity.FATAL),
+	TOO_MANY_EXPRESSIONS("LCPL903", LCPLDiagnostic.Severity.FATAL),
+	HIERARCHY_TOO_DEEP("LCPL904", LCPLDiagnostic.Severity.FATAL);
+
+	private String id;
+	private LCPLDiagnostic.Severity severity;
+
+	private LCPLDiagnosticCode(String id, LCPLDiagnostic.Severity severity) {
+		this.id		  = id;
+		this.severity = severity;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public LCPLDiagnostic.Severity getSeverity() {
+		return severity;
+	}
+}
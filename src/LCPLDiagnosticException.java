@@ -0,0 +1,29 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * An LCPLException with the code and the arguments of its message, taken from the
+ * LCPLExceptionsBuilder that built the message.
+ */
+public class LCPLDiagnosticException extends LCPLException {
+
+	private static final long serialVersionUID = 1L;
+
+	private LCPLDiagnosticCode code;
+	private Map<String, Object> arguments;
+
+	public LCPLDiagnosticException(LCPLExceptionsBuilder eb, String message, TreeNode node) {
+		super(message, node);
+		this.code	   = eb.getCode();
+		this.arguments = eb.getArguments();
+	}
+
+	public LCPLDiagnosticCode getCode() {
+		return code;
+	}
+
+	public Map<String, Object> getArguments() {
+		return arguments;
+	}
+}
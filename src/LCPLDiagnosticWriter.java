@@ -0,0 +1,76 @@
+import java.io.*;
+import java.util.*;
+
+/*
+ * Class that writes diagnostics as newline delimited JSON: one object per line, so the output
+ * of many analyses can be concatenated and read a line at a time. The schema of a line is in
+ * schema/lcpl-diagnostic.schema.json:
+ *
+ * {"code":"LCPL301","name":"ATTRIBUTE_NOT_FOUND","severity":"error","source":"in.yaml",
+ *  "line":12,"node":"Assignment","arguments":{"attribute":"x","class":"A"},"message":"..."}
+ *
+ * The writer does not flush or close the output.
+ */
+public class LCPLDiagnosticWriter {
+
+	private Writer output;
+	private String source;
+
+	/*
+	 * The source is written in every line, to tell the analyses apart, and may be null.
+	 */
+	public LCPLDiagnosticWriter(Writer output, String source) {
+		this.output = output;
+		this.source = source;
+	}
+
+	public void write(LCPLDiagnostic diagnostic) throws IOException {
+		output.write("{\"code\":");
+		LCPLJsonEmitter.string(output, diagnostic.getCode().getId());
+		output.write(",\"name\":");
+		LCPLJsonEmitter.string(output, diagnostic.getCode().name());
+		output.write(",\"severity\":");
+		LCPLJsonEmitter.string(output, diagnostic.getSeverity().name().toLowerCase());
+		output.write(",\"source\":");
+		LCPLJsonEmitter.string(output, source);
+		output.write(",\"line\":");
+		output.write(Integer.toString(diagnostic.getLine()));
+		output.write(",\"node\":");
+		LCPLJsonEmitter.string(output, diagnostic.getNodeKind());
+		output.write(",\"arguments\":{");
+		boolean first = true;
+		for(Map.Entry<String, Object> argument : diagnostic.getArguments().entrySet()) {
+			if(!first) {
+				output.write(',');
+			}
+			first = false;
+			LCPLJsonEmitter.string(output, argument.getKey());
+			output.write(':');
+			value(argument.getValue());
+		}
+		output.write("},\"message\":");
+		LCPLJsonEmitter.string(output, diagnostic.getMessage());
+		output.write('}');
+		output.write('\n');
+	}
+
+	private void value(Object value) throws IOException {
+		if(value instanceof Number) {
+			output.write(value.toString());
+		}
+		else if(value instanceof List) {
+			output.write('[');
+			List<?> values = (List<?>)value;
+			for(int i = 0; i < values.size(); i++) {
+				if(i > 0) {
+					output.write(',');
+				}
+				value(values.get(i));
+			}
+			output.write(']');
+		}
+		else {
+			LCPLJsonEmitter.string(output, value == null ? null : value.toString());
+		}
+	}
+}
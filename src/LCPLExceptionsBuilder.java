@@ -1,10 +1,28 @@
+import java.util.*;
 
 /*
  * Class which contains methods definitions for every possible types of LCPLException exceptions
+ *
+ * Every method also keeps the code and the arguments of the message it built, for the
+ * LCPLDiagnosticException thrown with it.
  */
 public class LCPLExceptionsBuilder {
 
+	private LCPLDiagnosticCode code = LCPLDiagnosticCode.UNKNOWN;
+	private Map<String, Object> arguments = new LinkedHashMap<String, Object>();
+
+	public LCPLDiagnosticCode getCode() {
+		return code;
+	}
+
+	public Map<String, Object> getArguments() {
+		return arguments;
+	}
+
 	public String attributeNotFoundInClass(String attribute, String className) {
+		diagnostic(LCPLDiagnosticCode.ATTRIBUTE_NOT_FOUND);
+		arguments.put("attribute", attribute);
+		arguments.put("class", className);
 		String message = "";
 		message += "Attribute ";
 		message += attribute;
@@ -15,6 +33,9 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String canNotConvertAValueInto(String type, String into) {
+		diagnostic(LCPLDiagnosticCode.CANNOT_CONVERT);
+		arguments.put("type", type);
+		arguments.put("into", into);
 		String message = "";
 		message += "Cannot convert a value of type ";
 		message += type;
@@ -25,6 +46,9 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String methodNotFoundMessage(String methodName, String classOfObject) {
+		diagnostic(LCPLDiagnosticCode.METHOD_NOT_FOUND);
+		arguments.put("method", methodName);
+		arguments.put("class", classOfObject);
 		String message = "";
 		message += "Method ";
 		message += methodName;
@@ -35,6 +59,8 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String classNotFoundMessage(String className) {
+		diagnostic(LCPLDiagnosticCode.CLASS_NOT_FOUND);
+		arguments.put("class", className);
 		String message = "";
 		message += "Class ";
 		message += className;
@@ -44,6 +70,9 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String canNotConvertInStaticDispatchMessage(String fromClass, String toClass) {
+		diagnostic(LCPLDiagnosticCode.CANNOT_CONVERT_IN_STATIC_DISPATCH);
+		arguments.put("from", fromClass);
+		arguments.put("to", toClass);
 		String message = "";
 		message += "Cannot convert from ";
 		message += fromClass;
@@ -55,6 +84,8 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String classAlreadyExistsMessage(String className) {
+		diagnostic(LCPLDiagnosticCode.CLASS_ALREADY_EXISTS);
+		arguments.put("class", className);
 		String message = "";
 		message += "A class with the same name already exists : ";
 		message += className;
@@ -63,6 +94,9 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String methodWithTheSameNameExists(String methodName, String className) {
+		diagnostic(LCPLDiagnosticCode.METHOD_ALREADY_EXISTS);
+		arguments.put("method", methodName);
+		arguments.put("class", className);
 		String message = "";
 		message += "A method with the same name already exists in class ";
 		message += className;
@@ -72,7 +106,33 @@ public class LCPLExceptionsBuilder {
 		return message;
 	}
 
+	public String attributeWithTheSameNameExists(String attribute, String className) {
+		diagnostic(LCPLDiagnosticCode.ATTRIBUTE_ALREADY_EXISTS);
+		arguments.put("attribute", attribute);
+		arguments.put("class", className);
+		String message = "";
+		message += "An attribute with the same name already exists in class ";
+		message += className;
+		message += " : ";
+		message += attribute;
+		
+		return message;
+	}
+	
+	public String attributeIsRedefined(String attribute) {
+		diagnostic(LCPLDiagnosticCode.ATTRIBUTE_REDEFINED);
+		arguments.put("attribute", attribute);
+		String message = "";
+		message += "Attribute ";
+		message += attribute;
+		message += " is redefined.";
+		
+		return message;
+	}
+
 	public String parameterHasDifferentTypeInOverloadedMethod(String parameter) {
+		diagnostic(LCPLDiagnosticCode.OVERRIDE_PARAMETER_TYPE);
+		arguments.put("parameter", parameter);
 		String message = "";
 		message += "Parameter ";
 		message += parameter;
@@ -82,6 +142,7 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String overloadedMethodHasDifferentNumberOfParameters() {
+		diagnostic(LCPLDiagnosticCode.OVERRIDE_PARAMETER_COUNT);
 		String message = "";
 		message += "Overloaded method has a different number of parameters";
 		
@@ -89,6 +150,7 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String returnTypeChangedInOverloadedMethod() {
+		diagnostic(LCPLDiagnosticCode.OVERRIDE_RETURN_TYPE);
 		String message = "";
 		message += "Return type changed in overloaded method.";
 		
@@ -96,6 +158,8 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String illegalConstruction(String type) {
+		diagnostic(LCPLDiagnosticCode.ILLEGAL_CONSTRUCTION);
+		arguments.put("type", type);
 		String message = "";
 		message += "Illegal construction : new ";
 		message += type;
@@ -104,6 +168,8 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String invalidTypeOfParameters(String operator) {
+		diagnostic(LCPLDiagnosticCode.INVALID_OPERAND_TYPES);
+		arguments.put("operator", operator);
 		String message = "";
 		message += "Invalid type of parameters for ";
 		message += operator;
@@ -113,6 +179,7 @@ public class LCPLExceptionsBuilder {
 	}
 	
 	public String cannotConvertAdditionExpression() {
+		diagnostic(LCPLDiagnosticCode.INVALID_ADDITION);
 		String message = "";
 		message += "Cannot convert '+' expression to Int or String";
 		
@@ -120,6 +187,8 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String notEnoughArgumentsInMethodCall(String methodName) {
+		diagnostic(LCPLDiagnosticCode.NOT_ENOUGH_ARGUMENTS);
+		arguments.put("method", methodName);
 		String message = "";
 		message += "Not enough arguments in method call ";
 		message += methodName;
@@ -128,6 +197,8 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String tooManyArgumentsInMethodCall(String methodName) {
+		diagnostic(LCPLDiagnosticCode.TOO_MANY_ARGUMENTS);
+		arguments.put("method", methodName);
 		String message = "";
 		message += "Too many arguments in method call ";
 		message += methodName;
@@ -135,16 +206,27 @@ public class LCPLExceptionsBuilder {
 		return message;
 	}
 
-	public String classRecursivelyInheritsItself(String className) {
+	public String classRecursivelyInheritsItself(String className, List<String> cycle) {
+		diagnostic(LCPLDiagnosticCode.CLASS_INHERITS_ITSELF);
+		arguments.put("class", className);
+		arguments.put("cycle", new ArrayList<String>(cycle));
 		String message = "";
 		message += "Class ";
 		message += className;
 		message += " recursively inherits itself.";
+		message += " Inheritance cycle : ";
+		for(int i = 0; i < cycle.size(); i++) {
+			if(i > 0) {
+				message += " -> ";
+			}
+			message += cycle.get(i);
+		}
 		
 		return message;
 	}
 
 	public String aClassCanNotInheritAString() {
+		diagnostic(LCPLDiagnosticCode.CLASS_INHERITS_STRING);
 		String message = "";
 		message += "A class cannot inherit a String";
 		
@@ -152,6 +234,8 @@ public class LCPLExceptionsBuilder {
 	}
 
 	public String conditionMustBeInt(String statement) {
+		diagnostic(LCPLDiagnosticCode.CONDITION_NOT_INT);
+		arguments.put("statement", statement);
 		String message = "";
 		message += statement;
 		message += " condition must be Int";
@@ -159,4 +243,53 @@ public class LCPLExceptionsBuilder {
 		return message;
 	}
 	
+	public String analysisCancelled() {
+		diagnostic(LCPLDiagnosticCode.ANALYSIS_CANCELLED);
+		String message = "";
+		message += "Analysis aborted: cancelled";
+		
+		return message;
+	}
+	
+	public String analysisTimedOut(long timeoutMillis) {
+		diagnostic(LCPLDiagnosticCode.ANALYSIS_TIMED_OUT);
+		arguments.put("timeoutMillis", timeoutMillis);
+		String message = "";
+		message += "Analysis aborted: timeout of ";
+		message += timeoutMillis;
+		message += " ms exceeded";
+		
+		return message;
+	}
+	
+	public String tooManyExpressions(long maxExpressions) {
+		diagnostic(LCPLDiagnosticCode.TOO_MANY_EXPRESSIONS);
+		arguments.put("maxExpressions", maxExpressions);
+		String message = "";
+		message += "Analysis aborted: more than ";
+		message += maxExpressions;
+		message += " expressions";
+		
+		return message;
+	}
+	
+	public String hierarchyTooDeep(String className, int maxDepth) {
+		diagnostic(LCPLDiagnosticCode.HIERARCHY_TOO_DEEP);
+		arguments.put("class", className);
+		arguments.put("maxDepth", maxDepth);
+		String message = "";
+		message += "Analysis aborted: class ";
+		message += className;
+		message += " is more than ";
+		message += maxDepth;
+		message += " classes deep in the hierarchy";
+		
+		return message;
+	}
+	
+	/* the arguments of the previous message are dropped */
+	private void diagnostic(LCPLDiagnosticCode code) {
+		this.code = code;
+		arguments = new LinkedHashMap<String, Object>();
+	}
 }
@@ -11,12 +11,21 @@ public class LCPLExpressionWalker {
 	private Feature currentFeature; //method or attribute(for self)
 	private LCPLClass currentClass;
 	
+	Map<String, LCPLClass> classes;
 	Map<String, Map<String, Variable>> attributeSymbols;
 	Map<String, Variable> paramsSymbols;
 	Map<String, Variable> localSymbols;
 	List<Map<String, Variable>> ifAndWhileSymbols;
 	
+	private LCPLProfiler profiler;
+	private LCPLBudget budget;
+	private LCPLMethodCache methodCache;
+	private LCPLCommonAncestors commonAncestors;
+	/* number of expressions walked through by this object */
+	private int visitedExpressions;
+	
 	public LCPLExpressionWalker(Program p, Feature currentFuture, LCPLClass currentClass, 
+								Map<String, LCPLClass> classes,
 								Map<String, Map<String, Variable>> attributeSymbols, 
 								Map<String, Variable> paramsSymbols, 
 								Map<String, Variable> localSymbols) {
@@ -24,6 +33,7 @@ public class LCPLExpressionWalker {
 		this.p 					= p;
 		this.currentFeature 	= currentFuture;
 		this.currentClass		= currentClass;
+		this.classes			= classes;
 		
 		this.attributeSymbols 	= attributeSymbols;
 		this.paramsSymbols 		= paramsSymbols;
@@ -31,11 +41,74 @@ public class LCPLExpressionWalker {
 		this.ifAndWhileSymbols  = new LinkedList<Map<String, Variable>>();
 	}
 	
+	/*
+	 * Enables the profiling mode: every visited expression will be recorded in the profiler.
+	 */
+	public void setProfiler(LCPLProfiler profiler) {
+		this.profiler = profiler;
+	}
+	
+	/*
+	 * Charges the walked expressions to the budget, which stops the walking when it is exceeded.
+	 */
+	public void setBudget(LCPLBudget budget) {
+		this.budget = budget;
+	}
+	
+	/*
+	 * Resolves the dispatched methods through the cache, shared by the walkers of the analysis.
+	 */
+	public void setMethodCache(LCPLMethodCache methodCache) {
+		this.methodCache = methodCache;
+	}
+	
+	/*
+	 * Types an if whose branches have classes that do not inherit each other with their lowest
+	 * common ancestor, instead of (none).
+	 */
+	public void setCommonAncestors(LCPLCommonAncestors commonAncestors) {
+		this.commonAncestors = commonAncestors;
+	}
+	
+	/*
+	 * Method that charges to the budget the expressions walked since its last check.
+	 */
+	public void chargeBudget(TreeNode node) throws LCPLException {
+		if(budget != null) {
+			budget.charge(visitedExpressions & LCPLBudget.CHECK_MASK, node);
+		}
+	}
+	
+	public int getVisitedExpressions() {
+		return visitedExpressions;
+	}
+	
 	/*
 	 * Method that walks through expression recursively.
 	 */
 	public Expression walkThroughExpression(Expression expression) throws LCPLException {
+		visitedExpressions++;
+		if(budget != null && (visitedExpressions & LCPLBudget.CHECK_MASK) == 0) {
+			budget.charge(LCPLBudget.CHECK_INTERVAL, expression);
+		}
+		if(profiler == null || expression == null) {
+			dispatchExpression(expression);
+			return expression;
+		}
 		
+		profiler.enterExpression();
+		try {
+			dispatchExpression(expression);
+		} finally {
+			profiler.exitExpression(expression);
+		}
+		return expression;
+	}
+	
+	/*
+	 * Method that calls the right walking method for the kind of the expression.
+	 */
+	private void dispatchExpression(Expression expression) throws LCPLException {
 		if(expression instanceof Block) {
 			walkThroughBlock(expression);
 		}
@@ -91,8 +164,6 @@ public class LCPLExpressionWalker {
 		else if(expression instanceof VoidConstant) {
 			walkThroughVoidConstant(expression);
 		}
-			
-		return expression; 
 	}
 	
 	private void walkThroughBlock(Expression expression) throws LCPLException {
@@ -128,7 +199,7 @@ public class LCPLExpressionWalker {
 		if(typeData == null) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.classNotFoundMessage(localDefinition.getType());
-			throw new LCPLException(message, localDefinition);
+			throw new LCPLDiagnosticException(eb, message, localDefinition);
 		}
 		
 		localDefinition.setVariableType(typeData);
@@ -209,12 +280,12 @@ public class LCPLExpressionWalker {
 				if(typeData == null) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.classNotFoundMessage(type);
-					throw new LCPLException(message, baseDispatch);
+					throw new LCPLDiagnosticException(eb, message, baseDispatch);
 				}
 				else if(!type.equals(object.getType()) && !isCastToAParent((LCPLClass)typeData, (LCPLClass)object.getTypeData())) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.canNotConvertInStaticDispatchMessage(object.getType(), type);
-					throw new LCPLException(message, baseDispatch);
+					throw new LCPLDiagnosticException(eb, message, baseDispatch);
 				}
 				((StaticDispatch)baseDispatch).setSelfType(typeData);
 				classOfObject = typeData;
@@ -230,24 +301,25 @@ public class LCPLExpressionWalker {
 		if(method == null) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.methodNotFoundMessage(baseDispatch.getName(), classOfObject.getName());
-			throw new LCPLException(message, baseDispatch);
+			throw new LCPLDiagnosticException(eb, message, baseDispatch);
 		}
 		
 		/* if not enough arguments for a method call */
 		if(baseDispatch.getArguments().size() < method.getParameters().size()) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.notEnoughArgumentsInMethodCall(baseDispatch.getName());
-			throw new LCPLException(message, baseDispatch);
+			throw new LCPLDiagnosticException(eb, message, baseDispatch);
 		}
 		
 		/* if too many arguments for a method call */
 		if(baseDispatch.getArguments().size() > method.getParameters().size()) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.tooManyArgumentsInMethodCall(baseDispatch.getName());
-			throw new LCPLException(message, baseDispatch);
+			throw new LCPLDiagnosticException(eb, message, baseDispatch);
 		}
 		
 		baseDispatch.setMethod(method);
+		baseDispatch.setVtableSlot(method.getVtableSlot());
 		
 		
 		/* set the type of the dispatch */
@@ -272,8 +344,7 @@ public class LCPLExpressionWalker {
 					Cast cast = new Cast(argument.getLineNumber(), LCPLConstants.STRING, argument);
 					cast.setTypeData(p.getStringType());
 					
-					args.remove(i);
-					args.add(i, cast);
+					args.set(i, cast);
 				}
 				else if(argument.getType().equals(LCPLConstants.VOID)) {
 					
@@ -286,13 +357,12 @@ public class LCPLExpressionWalker {
 					Cast cast = new Cast(argument.getLineNumber(), ((LCPLClass)methodParam.getVariableType()).getName(), argument);
 					cast.setTypeData((LCPLClass)methodParam.getVariableType());
 					
-					args.remove(i);
-					args.add(i, cast);
+					args.set(i, cast);
 				}
 				else {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.canNotConvertAValueInto(argument.getType(), methodParam.getType());
-					throw new LCPLException(message, baseDispatch);
+					throw new LCPLDiagnosticException(eb, message, baseDispatch);
 				}
 			}
 		}
@@ -308,7 +378,7 @@ public class LCPLExpressionWalker {
 		if(!condition.getType().equals(LCPLConstants.INT)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.conditionMustBeInt(LCPLConstants.IF);
-			throw new LCPLException(message, ifStatement);
+			throw new LCPLDiagnosticException(eb, message, ifStatement);
 		}
 		
 		/* every if and while will have its own list of symbols */ 
@@ -355,6 +425,12 @@ public class LCPLExpressionWalker {
 			else if(isCastToAParent((LCPLClass)thenExpr.getTypeData(), (LCPLClass)ifExpr.getTypeData())) {
 				typeData = thenExpr.getTypeData();
 			}
+			else if(commonAncestors != null) {
+				typeData = commonAncestors.lowestCommonAncestor((LCPLClass)ifExpr.getTypeData(), (LCPLClass)thenExpr.getTypeData());
+				if(typeData == null) {
+					typeData = p.getNoType();
+				}
+			}
 			else {
 				typeData = p.getNoType();
 			}
@@ -378,7 +454,7 @@ public class LCPLExpressionWalker {
 		if(!condition.getType().equals(LCPLConstants.INT)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.conditionMustBeInt(LCPLConstants.WHILE);
-			throw new LCPLException(message, whileStatement);
+			throw new LCPLDiagnosticException(eb, message, whileStatement);
 		}
 		
 		/* every if and while will have its own list of symbols */ 
@@ -424,12 +500,12 @@ public class LCPLExpressionWalker {
 		if(typeData == null) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.classNotFoundMessage(type);
-			throw new LCPLException(message, newObject);
+			throw new LCPLDiagnosticException(eb, message, newObject);
 		}
 		else if(typeData.getName().equals(LCPLConstants.INT)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.illegalConstruction(type);
-			throw new LCPLException(message, newObject);
+			throw new LCPLDiagnosticException(eb, message, newObject);
 		}
 		else {
 			newObject.setTypeData(typeData);
@@ -473,12 +549,9 @@ public class LCPLExpressionWalker {
 		
 		
 		if(variable == null) {
-			String message = "";
-			message += "Attribute ";
-			message += symbol;
-			message += " not found in class ";
-			message += currentClass.getName();
-			throw new LCPLException(message, assignament);
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.attributeNotFoundInClass(symbol, currentClass.getName());
+			throw new LCPLDiagnosticException(eb, message, assignament);
 		}
 		else {
 			assignament.setSymbolData(variable);
@@ -506,7 +579,7 @@ public class LCPLExpressionWalker {
 			else {
 				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 				String message = eb.canNotConvertAValueInto(typeData.getName(), e.getType());
-				throw new LCPLException(message, e);
+				throw new LCPLDiagnosticException(eb, message, e);
 			}
 		}
 		else {
@@ -549,24 +622,24 @@ public class LCPLExpressionWalker {
 				if(e2.getType().equals(LCPLConstants.STRING)) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.canNotConvertAValueInto(e1.getType(), LCPLConstants.STRING);
-					throw new LCPLException(message, e1);
+					throw new LCPLDiagnosticException(eb, message, e1);
 				}
 				else {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.cannotConvertAdditionExpression();
-					throw new LCPLException(message, e1);
+					throw new LCPLDiagnosticException(eb, message, e1);
 				}
 			}
 			else if(!e2.getTypeData().getName().equals(LCPLConstants.INT) && !e2.getTypeData().getName().equals(LCPLConstants.STRING)){
 				if(e1.getType().equals(LCPLConstants.STRING)) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.canNotConvertAValueInto(e2.getType(), LCPLConstants.STRING);
-					throw new LCPLException(message, e2);
+					throw new LCPLDiagnosticException(eb, message, e2);
 				}
 				else {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.cannotConvertAdditionExpression();
-					throw new LCPLException(message, e2);
+					throw new LCPLDiagnosticException(eb, message, e2);
 				}
 			}
 		}
@@ -589,12 +662,12 @@ public class LCPLExpressionWalker {
 		if(!e1.getType().equals(LCPLConstants.INT)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.canNotConvertAValueInto(e1.getType(), LCPLConstants.INT);
-			throw new LCPLException(message, binaryOp);
+			throw new LCPLDiagnosticException(eb, message, binaryOp);
 		}
 		else if( !e2.getType().equals(LCPLConstants.INT)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.canNotConvertAValueInto(e2.getType(), LCPLConstants.INT);
-			throw new LCPLException(message, binaryOp);
+			throw new LCPLDiagnosticException(eb, message, binaryOp);
 		}
 		else {
 			binaryOp.setType(LCPLConstants.INT);
@@ -640,7 +713,7 @@ public class LCPLExpressionWalker {
 			else if(e1.getType().equals(LCPLConstants.INT) || e2.getType().equals(LCPLConstants.INT)) {
 				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 				String message = eb.invalidTypeOfParameters(LCPLConstants.EQUAL);
-				throw new LCPLException(message, equalComparison);
+				throw new LCPLDiagnosticException(eb, message, equalComparison);
 			}
 			else if(!e1.getType().equals(LCPLConstants.VOID) && isCastToAParent(p.getObjectType(), (LCPLClass)e1.getTypeData())) {
 				Cast cast = new Cast(e1.getLineNumber(), p.getObjectType().getName(), e1);
@@ -674,7 +747,7 @@ public class LCPLExpressionWalker {
 			else {
 				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 				String message = eb.attributeNotFoundInClass(symbol.getName(), currentClass.getName());
-				throw new LCPLException(message, symbol);
+				throw new LCPLDiagnosticException(eb, message, symbol);
 			}
 		}
 		else {
@@ -705,6 +778,9 @@ public class LCPLExpressionWalker {
 	}
 		
 	private Method getMethodFromClass(Type currentClass, String methodName) {
+		if(methodCache != null && currentClass instanceof LCPLClass) {
+			return methodCache.getMethod((LCPLClass)currentClass, methodName);
+		}
 		LCPLClass wantedClass = (LCPLClass)currentClass;
 		if(currentClass == null)
 			return null;
@@ -770,13 +846,7 @@ public class LCPLExpressionWalker {
 			return p.getIntType();
 		}
 		
-		for(LCPLClass lcplClass : p.getClasses()) {
-			if(lcplClass.getName().equals(type)) {
-				return lcplClass;
-			}
-		}
-		
-		return null;
+		return classes.get(type);
 	}
 	
 	private Type getTypeOfVariable(Variable variable) {
@@ -0,0 +1,64 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that replaces, after the program is loaded, every list of children of the tree (the
+ * classes, the features, the parameters, the expressions of a block and the arguments of a
+ * dispatch) with a list backed by an array of exactly its size. The new lists have constant
+ * time indexing, whatever list the loader built, and they can not grow or shrink: an element
+ * can only be replaced, which is what the analysis does when it inserts a cast.
+ */
+public class LCPLFreezer {
+
+	private int frozenLists;
+	private int frozenElements;
+
+	public void freeze(Program p) {
+		p.setClasses(freezeList(p.getClasses()));
+
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			@Override
+			protected void visitExpression(Expression expression) {
+				/* the scanner reads the children after the visit, so it walks the new lists */
+				if(expression instanceof Block) {
+					Block block = (Block)expression;
+					block.setExpressions(freezeList(block.getExpressions()));
+				}
+				else if(expression instanceof BaseDispatch) {
+					BaseDispatch dispatch = (BaseDispatch)expression;
+					dispatch.setArguments(freezeList(dispatch.getArguments()));
+				}
+			}
+		};
+
+		for(LCPLClass lcplClass : p.getClasses()) {
+			lcplClass.setFeatures(freezeList(lcplClass.getFeatures()));
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					Method method = (Method)feature;
+					method.setParameters(freezeList(method.getParameters()));
+				}
+			}
+			scanner.scanClass(lcplClass);
+		}
+	}
+
+	public int getFrozenLists() {
+		return frozenLists;
+	}
+
+	public int getFrozenElements() {
+		return frozenElements;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<T> freezeList(List<T> list) {
+		if(list == null) {
+			return null;
+		}
+		frozenLists++;
+		frozenElements += list.size();
+		return Arrays.asList((T[])list.toArray());
+	}
+}
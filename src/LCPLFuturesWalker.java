@@ -7,15 +7,25 @@ public class LCPLFuturesWalker {
 	private Program p;
 	private LCPLClass lcplClass;
 	
+	private Map<String, LCPLClass> classes;
 	private Map<String, Map<String, Variable>> attributeSymbols;
 	private Map<String, Variable> paramsSymbols;
 	private Map<String, Variable> localSymbols;
 	
 	private Map<String, Method> methods;
 	
-	public LCPLFuturesWalker(Program p, LCPLClass lcplClass, Map<String, Map<String, Variable>> attributeSymbols) {
+	private LCPLProfiler profiler;
+	private LCPLBudget budget;
+	private LCPLMethodCache methodCache;
+	private LCPLCommonAncestors commonAncestors;
+	/* number of expressions walked through in the attributes and the methods bodies */
+	private int visitedExpressions;
+	
+	public LCPLFuturesWalker(Program p, LCPLClass lcplClass, Map<String, LCPLClass> classes,
+								Map<String, Map<String, Variable>> attributeSymbols) {
 		this.p 				  = p;
 		this.lcplClass 		  = lcplClass;
+		this.classes		  = classes;
 		
 		this.attributeSymbols = attributeSymbols;
 		paramsSymbols		  = new LinkedHashMap<String, Variable>();
@@ -24,6 +34,38 @@ public class LCPLFuturesWalker {
 		methods = new LinkedHashMap<String, Method>();
 	}
 	
+	/*
+	 * Enables the profiling mode for the expressions walked through by this object.
+	 */
+	public void setProfiler(LCPLProfiler profiler) {
+		this.profiler = profiler;
+	}
+	
+	/*
+	 * Enables the limits of the analysis for the expressions walked through by this object.
+	 */
+	public void setBudget(LCPLBudget budget) {
+		this.budget = budget;
+	}
+	
+	/*
+	 * Resolves the dispatched methods of the bodies through the cache.
+	 */
+	public void setMethodCache(LCPLMethodCache methodCache) {
+		this.methodCache = methodCache;
+	}
+	
+	/*
+	 * Types the ifs of the bodies with the lowest common ancestor of their branches.
+	 */
+	public void setCommonAncestors(LCPLCommonAncestors commonAncestors) {
+		this.commonAncestors = commonAncestors;
+	}
+	
+	public int getVisitedExpressions() {
+		return visitedExpressions;
+	}
+	
 	/*
 	 * Method that make a superficial walking through the futures. It sets only the returning types and the parameters in order to use
 	 * them in the second walking.
@@ -42,6 +84,70 @@ public class LCPLFuturesWalker {
 		walkThroughMethodsBody();
 	}
 	
+	/*
+	 * Method that verifies the features of the class that are not in the given set against
+	 * the inherited ones, the attributes first, as walkthroughFutures does. The lazy mode
+	 * verifies so the features that it does not walk through. The signatures of all the
+	 * classes must be already set and the inheritance must have no cycles.
+	 */
+	public void verifyInheritedFeatures(Set<Feature> verifiedFeatures) throws LCPLException {
+		List<Feature> features = lcplClass.getFeatures();
+		for(Feature feature : features) {
+			if(feature instanceof Attribute && !verifiedFeatures.contains(feature)) {
+				verifyNotRedefined((Attribute)feature);
+			}
+		}
+		for(Feature feature : features) {
+			if(feature instanceof Method && !verifiedFeatures.contains(feature)) {
+				verifyOverloadedMethod((Method)feature);
+			}
+		}
+	}
+	
+	/*
+	 * Method that verifies that an overloaded method keeps the signature of the parent one.
+	 */
+	private void verifyOverloadedMethod(Method method) throws LCPLException {
+		List<FormalParam> parameters = method.getParameters();
+		
+		/* verify if is an overload method and if is in the correct form */
+		Method overloadedMethod;
+		overloadedMethod = getOverloadedMethod(method.getName(), method.getParent().getParentData());
+		if(overloadedMethod != null) {
+			List<FormalParam> overloadedParameters = overloadedMethod.getParameters();
+			if(parameters.size() != overloadedParameters.size()) {
+				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+				String message = eb.overloadedMethodHasDifferentNumberOfParameters();
+				throw new LCPLDiagnosticException(eb, message, method);
+			}
+			else if(!method.getReturnType().equals(overloadedMethod.getReturnType())){
+				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+				String message = eb.returnTypeChangedInOverloadedMethod();
+				throw new LCPLDiagnosticException(eb, message, method);
+			}
+			else {
+				for(int i = 0; i < parameters.size(); i ++) {
+					if(!parameters.get(i).getType().equals(overloadedParameters.get(i).getType())) {
+						LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+						String message = eb.parameterHasDifferentTypeInOverloadedMethod(parameters.get(i).getName());
+						throw new LCPLDiagnosticException(eb, message, method);
+					}
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Method that verifies that an attribute is not defined again in a parent class.
+	 */
+	private void verifyNotRedefined(Attribute attribute) throws LCPLException {
+		if(isRedefined(attribute.getName(), lcplClass.getParentData())) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.attributeIsRedefined(attribute.getName());
+			throw new LCPLDiagnosticException(eb, message, lcplClass);
+		}
+	}
+	
 	private void makeASuperficialWalkThroughMethods() throws LCPLException {
 		List<Feature> features = lcplClass.getFeatures();
 		for(Feature feature : features) {
@@ -51,7 +157,7 @@ public class LCPLFuturesWalker {
 				if(methods.containsKey(method.getName())) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.methodWithTheSameNameExists(method.getName(), lcplClass.getName());
-					throw new LCPLException(message, method);
+					throw new LCPLDiagnosticException(eb, message, method);
 				}
 				else {
 					methods.put(method.getName(), method);
@@ -72,7 +178,7 @@ public class LCPLFuturesWalker {
 					if(type == null) {
 						LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 						String message = eb.classNotFoundMessage(param.getType());
-						throw new LCPLException(message, param);
+						throw new LCPLDiagnosticException(eb, message, param);
 					}
 					else {
 						param.setVariableType(type);
@@ -100,70 +206,74 @@ public class LCPLFuturesWalker {
 		List<Feature> features = lcplClass.getFeatures();
 		for(Feature feature : features) {
 			if(feature instanceof Method) {
-				Method method = ((Method)feature);
-				
-				List<FormalParam> parameters;
-				parameters = method.getParameters();
-				paramsSymbols = new LinkedHashMap<String, Variable>();
-				for(FormalParam param : parameters) {
-					paramsSymbols.put(param.getName(), param);
-				}
-				
-				/* verify if is an overload method and if is in the correct form */
-				Method overloadedMethod;
-				overloadedMethod = getOverloadedMethod(method.getName(), method.getParent().getParentData());
-				if(overloadedMethod != null) {
-					List<FormalParam> overloadedParameters = overloadedMethod.getParameters();
-					if(parameters.size() != overloadedParameters.size()) {
-						LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-						String message = eb.overloadedMethodHasDifferentNumberOfParameters();
-						throw new LCPLException(message, method);
-					}
-					else if(!method.getReturnType().equals(overloadedMethod.getReturnType())){
-						LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-						String message = eb.returnTypeChangedInOverloadedMethod();
-						throw new LCPLException(message, method);
-					}
-					else {
-						for(int i = 0; i < parameters.size(); i ++) {
-							if(!parameters.get(i).getType().equals(overloadedParameters.get(i).getType())) {
-								LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-								String message = eb.parameterHasDifferentTypeInOverloadedMethod(parameters.get(i).getName());
-								throw new LCPLException(message, method);
-							}
-						}
-					}
-				}
-				
-				/* walk through body method */
-				Expression body = method.getBody();
-				
-				localSymbols = new LinkedHashMap<String, Variable>();
-				LCPLExpressionWalker ew = new LCPLExpressionWalker(p, method, lcplClass,
-												attributeSymbols, paramsSymbols, localSymbols);
-				ew.walkThroughExpression(body);
-				
-				if(!body.getTypeData().getName().equals(method.getReturnType()) &&
-						!body.getTypeData().getName().equals(LCPLConstants.VOID) && 
-						!method.getReturnType().equals(LCPLConstants.VOID)) {
-					if(body.getType().equals(LCPLConstants.INT) && method.getReturnType().equals(LCPLConstants.STRING)) {
-						Cast cast = new Cast(method.getLineNumber(), LCPLConstants.STRING, body);
-						cast.setTypeData(p.getStringType());
-						method.setBody(cast);
-					}
-					/* Try make a cast to a parent class */
-					else if(!method.getReturnType().equals(LCPLConstants.INT) && !body.getType().equals(LCPLConstants.INT)
-							&& isCastToAParent((LCPLClass)method.getReturnTypeData(), (LCPLClass)body.getTypeData())) {
-						Cast cast = new Cast(body.getLineNumber(), method.getReturnType(), body);
-						cast.setTypeData(method.getReturnTypeData());
-						method.setBody(cast);
-					}
-					else {
-						LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-						String message = eb.canNotConvertAValueInto(body.getType(), method.getReturnType());
-						throw new LCPLException(message, body);
-					}
-				}
+				walkThroughMethodBody((Method)feature);
+			}
+		}
+	}
+	
+	/*
+	 * Method that verifies the signature of a method against the overloaded one and walks
+	 * through its body. The signatures of all the classes must be already set.
+	 */
+	public void walkThroughMethodBody(Method method) throws LCPLException {
+		List<FormalParam> parameters;
+		parameters = method.getParameters();
+		paramsSymbols = new LinkedHashMap<String, Variable>();
+		for(FormalParam param : parameters) {
+			paramsSymbols.put(param.getName(), param);
+		}
+		
+		verifyOverloadedMethod(method);
+		
+		/* walk through body method */
+		Expression body = method.getBody();
+		
+		localSymbols = new LinkedHashMap<String, Variable>();
+		LCPLExpressionWalker ew = new LCPLExpressionWalker(p, method, lcplClass, classes,
+										attributeSymbols, paramsSymbols, localSymbols);
+		ew.setProfiler(profiler);
+		ew.setBudget(budget);
+		ew.setMethodCache(methodCache);
+		ew.setCommonAncestors(commonAncestors);
+		LCPLMethodCheckEvent event = new LCPLMethodCheckEvent();
+		event.begin();
+		if(profiler == null) {
+			ew.walkThroughExpression(body);
+		}
+		else {
+			long start = System.nanoTime();
+			ew.walkThroughExpression(body);
+			profiler.recordMethod(method, System.nanoTime() - start);
+		}
+		ew.chargeBudget(method);
+		visitedExpressions += ew.getVisitedExpressions();
+		if(event.shouldCommit()) {
+			event.className  = lcplClass.getName();
+			event.methodName = method.getName();
+			event.line		 = method.getLineNumber();
+			event.nodeCount  = ew.getVisitedExpressions();
+			event.commit();
+		}
+		
+		if(!body.getTypeData().getName().equals(method.getReturnType()) &&
+				!body.getTypeData().getName().equals(LCPLConstants.VOID) && 
+				!method.getReturnType().equals(LCPLConstants.VOID)) {
+			if(body.getType().equals(LCPLConstants.INT) && method.getReturnType().equals(LCPLConstants.STRING)) {
+				Cast cast = new Cast(method.getLineNumber(), LCPLConstants.STRING, body);
+				cast.setTypeData(p.getStringType());
+				method.setBody(cast);
+			}
+			/* Try make a cast to a parent class */
+			else if(!method.getReturnType().equals(LCPLConstants.INT) && !body.getType().equals(LCPLConstants.INT)
+					&& isCastToAParent((LCPLClass)method.getReturnTypeData(), (LCPLClass)body.getTypeData())) {
+				Cast cast = new Cast(body.getLineNumber(), method.getReturnType(), body);
+				cast.setTypeData(method.getReturnTypeData());
+				method.setBody(cast);
+			}
+			else {
+				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+				String message = eb.canNotConvertAValueInto(body.getType(), method.getReturnType());
+				throw new LCPLDiagnosticException(eb, message, body);
 			}
 		}
 	}
@@ -179,7 +289,7 @@ public class LCPLFuturesWalker {
 				if(typeData == null) {
 					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 					String message = eb.classNotFoundMessage(attribute.getType());
-					throw new LCPLException(message, attribute);
+					throw new LCPLDiagnosticException(eb, message, attribute);
 				}
 				else {
 					attribute.setTypeData(typeData);
@@ -188,12 +298,9 @@ public class LCPLFuturesWalker {
 				/* add attribute or throw exception if allready exists */
 				Map<String, Variable> thisClassAttributes = attributeSymbols.get(lcplClass.getName());
 				if(thisClassAttributes.containsKey(attribute.getName())) {
-					String message = "";
-					message += "An attribute with the same name already exists in class ";
-					message += lcplClass.getName();
-					message += " : ";
-					message += attribute.getName();
-					throw new LCPLException(message, attribute);
+					LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+					String message = eb.attributeWithTheSameNameExists(attribute.getName(), lcplClass.getName());
+					throw new LCPLDiagnosticException(eb, message, attribute);
 				}
 				thisClassAttributes.put(attribute.getName(), attribute);
 			}
@@ -204,49 +311,55 @@ public class LCPLFuturesWalker {
 		List<Feature> features = lcplClass.getFeatures();
 		for(Feature feature : features) {
 			if(feature instanceof Attribute) {
-				Attribute attribute = (Attribute)feature;
-					
-				if(isRedefined(attribute.getName(), lcplClass.getParentData())) {
-					String message = "";
-					message += "Attribute ";
-					message += attribute.getName();
-					message += " is redefined.";
-					throw new LCPLException(message, lcplClass);
-				}
-				
-				Expression init = attribute.getInit();
+				walkThroughAttribute((Attribute)feature);
+			}
+		}
+	}
+	
+	/*
+	 * Method that verifies that an attribute is not redefined and walks through its
+	 * initialization. The signatures of all the classes must be already set.
+	 */
+	public void walkThroughAttribute(Attribute attribute) throws LCPLException {
+		verifyNotRedefined(attribute);
+		
+		Expression init = attribute.getInit();
 
-				if(init != null) {
-					FormalParam attrInitSelf = new FormalParam(LCPLConstants.SELF, attribute.getType());
-					attrInitSelf.setVariableType(lcplClass);
-					attribute.setAttrInitSelf(attrInitSelf);
-					
-					LCPLExpressionWalker ew = new LCPLExpressionWalker(p, attribute, lcplClass, 
-							attributeSymbols, paramsSymbols, localSymbols);
-					Expression result = ew.walkThroughExpression(init);
-					
-					Type typeData = attribute.getTypeData();
+		if(init != null) {
+			FormalParam attrInitSelf = new FormalParam(LCPLConstants.SELF, attribute.getType());
+			attrInitSelf.setVariableType(lcplClass);
+			attribute.setAttrInitSelf(attrInitSelf);
+			
+			LCPLExpressionWalker ew = new LCPLExpressionWalker(p, attribute, lcplClass, classes,
+					attributeSymbols, paramsSymbols, localSymbols);
+			ew.setProfiler(profiler);
+			ew.setBudget(budget);
+			ew.setMethodCache(methodCache);
+			ew.setCommonAncestors(commonAncestors);
+			Expression result = ew.walkThroughExpression(init);
+			ew.chargeBudget(attribute);
+			visitedExpressions += ew.getVisitedExpressions();
+			
+			Type typeData = attribute.getTypeData();
 
-					if(!result.getType().equals(attribute.getType())) {
-						
-						/* try to make cast from Int to String */
-						if(result.getType().equals(LCPLConstants.INT) && attribute.getType().equals(LCPLConstants.STRING)) {
-							Cast cast = new Cast(attribute.getLineNumber(), LCPLConstants.STRING, result);
-							cast.setTypeData(p.getStringType());
-							attribute.setInit(cast);
-						}
-						/* Try make a cast to a parent class */
-						else if(isCastToAParent((LCPLClass)typeData, (LCPLClass)init.getTypeData())) {
-							Cast cast = new Cast(init.getLineNumber(), typeData.getName(), init);
-							cast.setTypeData(typeData);
-							
-							attribute.setInit(cast);
-						}
-					}
-					else {
-						attribute.setInit(result);
-					}
+			if(!result.getType().equals(attribute.getType())) {
+				
+				/* try to make cast from Int to String */
+				if(result.getType().equals(LCPLConstants.INT) && attribute.getType().equals(LCPLConstants.STRING)) {
+					Cast cast = new Cast(attribute.getLineNumber(), LCPLConstants.STRING, result);
+					cast.setTypeData(p.getStringType());
+					attribute.setInit(cast);
 				}
+				/* Try make a cast to a parent class */
+				else if(isCastToAParent((LCPLClass)typeData, (LCPLClass)init.getTypeData())) {
+					Cast cast = new Cast(init.getLineNumber(), typeData.getName(), init);
+					cast.setTypeData(typeData);
+					
+					attribute.setInit(cast);
+				}
+			}
+			else {
+				attribute.setInit(result);
 			}
 		}
 	}
@@ -259,13 +372,7 @@ public class LCPLFuturesWalker {
 			return p.getIntType();
 		}
 		
-		for(LCPLClass lcplClass : p.getClasses()) {
-			if(lcplClass.getName().equals(type)) {
-				return lcplClass;
-			}
-		}
-		
-		return null;
+		return classes.get(type);
 	}
 	
 	/*
@@ -0,0 +1,331 @@
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that estimates where the memory of an analyzed program goes, for every class of node.
+ * The sizes are computed from the fields of the classes, for a 64-bit JVM with compressed
+ * references (12 bytes of header, 4 bytes per reference, objects aligned to 8 bytes) and
+ * compact Strings. The capacity of an ArrayList is not visible, so its array is counted as if
+ * it were full: the estimates of the lists are lower bounds.
+ *
+ *	shallow		the node objects themselves
+ *	owned		the Strings, lists and boxed Integers that only one node refers to
+ *	retained	shallow + owned: what the nodes free without their child nodes, which are
+ *			counted under their own class, so the column adds up to the total
+ *
+ * The objects referred by more than one node (the class names the analysis copies into the
+ * types of the expressions, for example) are counted once, in their own row. The Strings with
+ * the same value kept in different objects are reported apart, by field, with what sharing
+ * one object per value would save, and so are the casts the analysis inserted (every Cast that
+ * was not in the program given to the constructor).
+ */
+public class LCPLHeapReport {
+
+	private static final int HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	private static final int INTEGER_SIZE = 16;
+	private static final String IMPLICIT_CAST = "Cast (implicit)";
+	private static final String SHARED = "(shared objects)";
+	private static final int DUPLICATED_FIELDS = 10;
+
+	/* the casts of the program before the analysis */
+	private Set<Cast> explicitCasts = Collections.newSetFromMap(new IdentityHashMap<Cast, Boolean>());
+	private Map<Class<?>, List<Field>> fieldsCache = new HashMap<Class<?>, List<Field>>();
+
+	private Map<String, NodeStats> nodeStats;
+	/* how many references every String, list and Integer has, and the field of the first one */
+	private Map<Object, Integer> references;
+	private Map<Object, String> referringFields;
+	private Map<Object, String> owners;
+	private long implicitCasts;
+
+	public LCPLHeapReport(Program input) {
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			protected void visitExpression(Expression expression) {
+				if(expression instanceof Cast) {
+					explicitCasts.add((Cast)expression);
+				}
+			}
+		};
+		for(LCPLClass lcplClass : input.getClasses()) {
+			scanner.scanClass(lcplClass);
+		}
+	}
+
+	/*
+	 * Method that measures the analyzed program and prints the classes ranked by retained size.
+	 */
+	public void printReport(Program p, PrintStream out) {
+		nodeStats		= new HashMap<String, NodeStats>();
+		references		= new IdentityHashMap<Object, Integer>();
+		referringFields = new IdentityHashMap<Object, String>();
+		owners			= new IdentityHashMap<Object, String>();
+		implicitCasts	= 0;
+
+		List<Object> nodes = collectNodes(p);
+		for(Object node : nodes) {
+			String kind = kindOf(node);
+			NodeStats stats = stats(kind);
+			stats.count++;
+			stats.shallow += shallowSize(node.getClass());
+			for(Field field : fields(node.getClass())) {
+				Object value = get(field, node);
+				if(value instanceof String || value instanceof List || value instanceof Integer) {
+					Integer count = references.get(value);
+					references.put(value, count == null ? 1 : count + 1);
+					if(count == null) {
+						referringFields.put(value, field.getDeclaringClass().getSimpleName() + "." + field.getName());
+						owners.put(value, kind);
+					}
+				}
+			}
+		}
+
+		long total = 0;
+		for(Map.Entry<Object, Integer> entry : references.entrySet()) {
+			String kind = entry.getValue() == 1 ? owners.get(entry.getKey()) : SHARED;
+			stats(kind).owned += sizeOf(entry.getKey());
+		}
+		List<NodeStats> ranked = new ArrayList<NodeStats>(nodeStats.values());
+		for(NodeStats stats : ranked) {
+			total += stats.shallow + stats.owned;
+		}
+		Collections.sort(ranked);
+
+		out.println("Heap estimate (64-bit JVM, compressed references): " + nodes.size() + " nodes, "
+				+ toKilobytes(total) + " KB");
+		out.println(String.format("%-22s %10s %12s %12s %12s %8s", "class", "count", "shallow (KB)", "owned (KB)",
+				"retained (KB)", "%"));
+		for(NodeStats stats : ranked) {
+			long retained = stats.shallow + stats.owned;
+			out.println(String.format("%-22s %10d %12s %12s %12s %7.2f%%", stats.kind, stats.count,
+					toKilobytes(stats.shallow), toKilobytes(stats.owned), toKilobytes(retained),
+					total == 0 ? 0 : 100.0 * retained / total));
+		}
+
+		NodeStats casts = nodeStats.get(IMPLICIT_CAST);
+		if(casts != null) {
+			long retained = casts.shallow + casts.owned;
+			out.println();
+			out.println("Implicit casts: " + implicitCasts + ", " + toKilobytes(retained) + " KB ("
+					+ String.format("%.2f", 100.0 * retained / total) + "% of the total)");
+		}
+		printDuplicatedStrings(out, total);
+	}
+
+	/*
+	 * Method that groups the String objects by value and prints, for every field, how much the
+	 * copies of values that are already in another object cost.
+	 */
+	private void printDuplicatedStrings(PrintStream out, long total) {
+		Map<String, Object> firstCopies = new HashMap<String, Object>();
+		Map<String, long[]> fieldCosts = new HashMap<String, long[]>();
+		long duplicatedBytes = 0;
+		long duplicatedCopies = 0;
+		Set<String> duplicatedValues = new HashSet<String>();
+		for(Object object : references.keySet()) {
+			if(!(object instanceof String)) {
+				continue;
+			}
+			String value = (String)object;
+			if(!firstCopies.containsKey(value)) {
+				firstCopies.put(value, value);
+				continue;
+			}
+			long size = sizeOf(value);
+			duplicatedBytes += size;
+			duplicatedCopies++;
+			duplicatedValues.add(value);
+			String field = referringFields.get(value);
+			long[] cost = fieldCosts.get(field);
+			if(cost == null) {
+				cost = new long[2];
+				fieldCosts.put(field, cost);
+			}
+			cost[0]++;
+			cost[1] += size;
+		}
+
+		out.println();
+		out.println("Duplicated Strings: " + duplicatedCopies + " copies of " + duplicatedValues.size() + " values, "
+				+ toKilobytes(duplicatedBytes) + " KB (" + String.format("%.2f", total == 0 ? 0 : 100.0 * duplicatedBytes / total)
+				+ "% of the total) saved by one object per value");
+		List<Map.Entry<String, long[]>> fields = new ArrayList<Map.Entry<String, long[]>>(fieldCosts.entrySet());
+		Collections.sort(fields, new Comparator<Map.Entry<String, long[]>>() {
+			public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b) {
+				return Long.compare(b.getValue()[1], a.getValue()[1]);
+			}
+		});
+		out.println(String.format("%-30s %10s %12s", "field", "copies", "cost (KB)"));
+		for(int i = 0; i < fields.size() && i < DUPLICATED_FIELDS; i++) {
+			out.println(String.format("%-30s %10d %12s", fields.get(i).getKey(), fields.get(i).getValue()[0],
+					toKilobytes(fields.get(i).getValue()[1])));
+		}
+	}
+
+	/*
+	 * Method that returns all the nodes of the program, every one once.
+	 */
+	private List<Object> collectNodes(Program p) {
+		final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		final List<Object> nodes = new ArrayList<Object>();
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			protected void visitExpression(Expression expression) {
+				if(seen.add(expression)) {
+					nodes.add(expression);
+				}
+			}
+		};
+		Object[] roots = { p, p.getIntType(), p.getNoType(), p.getNullType() };
+		for(Object root : roots) {
+			if(root != null && seen.add(root)) {
+				nodes.add(root);
+			}
+		}
+		for(LCPLClass lcplClass : p.getClasses()) {
+			if(!seen.add(lcplClass)) {
+				continue;
+			}
+			nodes.add(lcplClass);
+			for(Feature feature : lcplClass.getFeatures()) {
+				nodes.add(feature);
+				List<FormalParam> params = new ArrayList<FormalParam>();
+				if(feature instanceof Method) {
+					params.addAll(((Method)feature).getParameters());
+					params.add(((Method)feature).getSelf());
+				}
+				else {
+					params.add(((Attribute)feature).getAttrInitSelf());
+				}
+				for(FormalParam param : params) {
+					if(param != null && seen.add(param)) {
+						nodes.add(param);
+					}
+				}
+			}
+			scanner.scanClass(lcplClass);
+		}
+		return nodes;
+	}
+
+	private String kindOf(Object node) {
+		if(node instanceof Cast && !explicitCasts.contains(node)) {
+			implicitCasts++;
+			return IMPLICIT_CAST;
+		}
+		return node.getClass().getSimpleName();
+	}
+
+	private NodeStats stats(String kind) {
+		NodeStats stats = nodeStats.get(kind);
+		if(stats == null) {
+			stats = new NodeStats(kind);
+			nodeStats.put(kind, stats);
+		}
+		return stats;
+	}
+
+	/*
+	 * Method that returns the instance fields of a node class and of its superclasses.
+	 */
+	private List<Field> fields(Class<?> nodeClass) {
+		List<Field> fields = fieldsCache.get(nodeClass);
+		if(fields == null) {
+			fields = new ArrayList<Field>();
+			for(Class<?> c = nodeClass; c != null && c != Object.class; c = c.getSuperclass()) {
+				for(Field field : c.getDeclaredFields()) {
+					if(!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			fieldsCache.put(nodeClass, fields);
+		}
+		return fields;
+	}
+
+	private long shallowSize(Class<?> nodeClass) {
+		long size = HEADER;
+		for(Field field : fields(nodeClass)) {
+			Class<?> type = field.getType();
+			if(type == long.class || type == double.class) {
+				size += 8;
+			}
+			else if(type == int.class || type == float.class) {
+				size += 4;
+			}
+			else if(type == short.class || type == char.class) {
+				size += 2;
+			}
+			else if(type == byte.class || type == boolean.class) {
+				size += 1;
+			}
+			else {
+				size += REFERENCE;
+			}
+		}
+		return align(size);
+	}
+
+	private long sizeOf(Object object) {
+		if(object instanceof String) {
+			String s = (String)object;
+			boolean latin1 = true;
+			for(int i = 0; i < s.length() && latin1; i++) {
+				latin1 = s.charAt(i) <= 0xFF;
+			}
+			/* the String object and its byte array */
+			return 24 + align(ARRAY_HEADER + (latin1 ? s.length() : 2L * s.length()));
+		}
+		if(object instanceof Integer) {
+			return INTEGER_SIZE;
+		}
+		List<?> list = (List<?>)object;
+		if(list instanceof LinkedList) {
+			return 32 + 24L * list.size();
+		}
+		if(list.getClass().getName().equals("java.util.Arrays$ArrayList")) {
+			return 16 + align(ARRAY_HEADER + (long)REFERENCE * list.size());
+		}
+		return 24 + align(ARRAY_HEADER + (long)REFERENCE * list.size());
+	}
+
+	private static Object get(Field field, Object node) {
+		try {
+			return field.get(node);
+		} catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	private static String toKilobytes(long bytes) {
+		return String.format("%.1f", bytes / 1024.0);
+	}
+
+	private static class NodeStats implements Comparable<NodeStats> {
+		String kind;
+		long count;
+		long shallow;
+		long owned;
+
+		NodeStats(String kind) {
+			this.kind = kind;
+		}
+
+		/* the largest retained size comes first */
+		@Override
+		public int compareTo(NodeStats other) {
+			return Long.compare(other.shallow + other.owned, shallow + owned);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+import java.io.Serializable;
+import java.util.*;
+
+/*
+ * Class which represents a basic block of the IR: a label and a list of instructions that ends
+ * with a JUMP, a BRANCH or a RETURN.
+ */
+public class LCPLIRBlock implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int label;
+	private List<LCPLIRInstruction> instructions;
+
+	public LCPLIRBlock(int label) {
+		this.label	 = label;
+		instructions = new ArrayList<LCPLIRInstruction>();
+	}
+
+	public int getLabel() {
+		return label;
+	}
+
+	public List<LCPLIRInstruction> getInstructions() {
+		return instructions;
+	}
+
+	public void add(LCPLIRInstruction instruction) {
+		instructions.add(instruction);
+	}
+
+	/*
+	 * True if the block already ends with a jump, a branch or a return.
+	 */
+	public boolean isTerminated() {
+		if(instructions.isEmpty()) {
+			return false;
+		}
+		LCPLIRInstruction.Opcode last = instructions.get(instructions.size() - 1).getOpcode();
+		return last == LCPLIRInstruction.Opcode.JUMP || last == LCPLIRInstruction.Opcode.BRANCH
+				|| last == LCPLIRInstruction.Opcode.RETURN;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("L").append(label).append(":\n");
+		for(LCPLIRInstruction instruction : instructions) {
+			sb.append("\t").append(instruction).append("\n");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,92 @@
+import java.io.Serializable;
+import java.util.*;
+
+/*
+ * Class which represents the IR of a method body or of an attribute initialization. The
+ * temporary t0 is self, t1..tn are the parameters of a method and the type of every temporary
+ * is in tempTypes. The execution starts with the first block.
+ */
+public class LCPLIRFunction implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String className;
+	private String name;
+	/*
+	 * True for the initialization of the attribute with the given name.
+	 */
+	private boolean initializer;
+	private int parametersCount;
+	private String returnType;
+	private List<String> tempTypes;
+	private List<LCPLIRBlock> blocks;
+
+	public LCPLIRFunction(String className, String name, boolean initializer, String returnType) {
+		this.className	 = className;
+		this.name		 = name;
+		this.initializer = initializer;
+		this.returnType	 = returnType;
+		tempTypes		 = new ArrayList<String>();
+		blocks			 = new ArrayList<LCPLIRBlock>();
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isInitializer() {
+		return initializer;
+	}
+
+	public int getParametersCount() {
+		return parametersCount;
+	}
+
+	public void setParametersCount(int parametersCount) {
+		this.parametersCount = parametersCount;
+	}
+
+	public String getReturnType() {
+		return returnType;
+	}
+
+	public List<String> getTempTypes() {
+		return tempTypes;
+	}
+
+	public List<LCPLIRBlock> getBlocks() {
+		return blocks;
+	}
+
+	/*
+	 * Method that adds a temporary of the given type and returns its number.
+	 */
+	public int newTemp(String type) {
+		tempTypes.add(type);
+		return tempTypes.size() - 1;
+	}
+
+	public LCPLIRBlock newBlock() {
+		LCPLIRBlock block = new LCPLIRBlock(blocks.size());
+		blocks.add(block);
+		return block;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(initializer ? "init " : "method ").append(className).append(".").append(name).append("(");
+		for(int i = 0; i <= parametersCount; i++) {
+			sb.append(i == 0 ? "" : ", ").append("t").append(i).append(" : ").append(tempTypes.get(i));
+		}
+		sb.append(") : ").append(returnType).append("\n");
+		for(LCPLIRBlock block : blocks) {
+			sb.append(block);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,182 @@
+import java.io.Serializable;
+
+import ro.pub.cs.lcpl.Method;
+
+/*
+ * Class which represents an instruction of the three-address IR. An instruction writes at most
+ * one temporary (dest) and reads the temporaries from operands. The temporaries are numbered
+ * in every function: t0 is self and the parameters follow it.
+ */
+public class LCPLIRInstruction implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Opcode {
+		CONST_INT,		// dest = intValue
+		CONST_STRING,	// dest = stringValue
+		CONST_VOID,		// dest = void
+		DEFAULT,		// dest = the default value of its type: 0, "" or void
+		MOVE,			// dest = a
+		GET_ATTR,		// dest = a.memberName, attribute of the class className
+		SET_ATTR,		// a.memberName = b, attribute of the class className
+		NEW,			// dest = new className
+		ADD, SUB, MUL, DIV, LT, LE,	// dest = a op b, on Int
+		CONCAT,			// dest = a + b, on String
+		EQ,				// dest = a == b; className is the type of the operands: Int, String or a class
+		NEG, NOT,		// dest = op a
+		INT_TO_STRING,	// dest = a converted to String
+		UPCAST,			// dest = a, seen as the parent class className
+		CHECKED_CAST,	// dest = a, verified at runtime to be a className
+		SUBSTRING,		// dest = a[b, c]
+		DISPATCH,		// dest = a.memberName(operands after a), resolved at runtime from the static type className
+		STATIC_DISPATCH,// dest = a.className::memberName(operands after a)
+						// both carry the method found by the analysis, defined in methodClassName
+		JUMP,			// goto targets[0]
+		BRANCH,			// if a != 0 goto targets[0] else goto targets[1]
+		RETURN			// return a, or nothing if there are no operands
+	}
+
+	/* no temporary */
+	public static final int NONE = -1;
+
+	private Opcode opcode;
+	private int line;
+	private int dest;
+	private String destType;
+	private int[] operands;
+	private int[] targets;
+	private int intValue;
+	private String stringValue;
+	private String className;
+	private String memberName;
+	private String methodClassName;
+	/*
+	 * The resolved method of a dispatch. It is not serialized; after reading, the method is
+	 * known by methodClassName and memberName.
+	 */
+	private transient Method method;
+
+	public LCPLIRInstruction(Opcode opcode, int line, int dest, String destType, int... operands) {
+		this.opcode   = opcode;
+		this.line	  = line;
+		this.dest	  = dest;
+		this.destType = destType;
+		this.operands = operands;
+		this.targets  = new int[0];
+	}
+
+	public Opcode getOpcode() {
+		return opcode;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getDest() {
+		return dest;
+	}
+
+	public String getDestType() {
+		return destType;
+	}
+
+	public int[] getOperands() {
+		return operands;
+	}
+
+	public int[] getTargets() {
+		return targets;
+	}
+
+	public void setTargets(int... targets) {
+		this.targets = targets;
+	}
+
+	public int getIntValue() {
+		return intValue;
+	}
+
+	public void setIntValue(int intValue) {
+		this.intValue = intValue;
+	}
+
+	public String getStringValue() {
+		return stringValue;
+	}
+
+	public void setStringValue(String stringValue) {
+		this.stringValue = stringValue;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public void setClassName(String className) {
+		this.className = className;
+	}
+
+	public String getMemberName() {
+		return memberName;
+	}
+
+	public void setMemberName(String memberName) {
+		this.memberName = memberName;
+	}
+
+	public String getMethodClassName() {
+		return methodClassName;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public void setMethod(Method method) {
+		this.method = method;
+		this.methodClassName = method.getParent().getName();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		if(dest != NONE) {
+			sb.append("t").append(dest).append(" : ").append(destType).append(" = ");
+		}
+		sb.append(opcode.name().toLowerCase());
+
+		switch(opcode) {
+		case CONST_INT:
+			sb.append(" ").append(intValue);
+			break;
+		case CONST_STRING:
+			sb.append(" \"").append(stringValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append("\"");
+			break;
+		case GET_ATTR:
+		case SET_ATTR:
+			sb.append(" ").append(className).append(".").append(memberName);
+			break;
+		case DISPATCH:
+		case STATIC_DISPATCH:
+			sb.append(" ").append(methodClassName).append(".").append(memberName).append(" on ").append(className);
+			break;
+		case NEW:
+		case EQ:
+		case UPCAST:
+		case CHECKED_CAST:
+			sb.append(" ").append(className);
+			break;
+		default:
+			break;
+		}
+
+		for(int i = 0; i < operands.length; i++) {
+			sb.append(i == 0 ? " " : ", ").append("t").append(operands[i]);
+		}
+		for(int i = 0; i < targets.length; i++) {
+			sb.append(i == 0 ? " -> " : ", ").append("L").append(targets[i]);
+		}
+		return sb.toString();
+	}
+}
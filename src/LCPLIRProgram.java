@@ -0,0 +1,46 @@
+import java.io.*;
+import java.util.*;
+
+/*
+ * Class which represents the IR of a whole program: a function for every method with a body
+ * and for every attribute initialization, in the order of the classes. It is written with the
+ * Java serialization, so it is read back in a single pass over the stream.
+ */
+public class LCPLIRProgram implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<LCPLIRFunction> functions;
+
+	public LCPLIRProgram() {
+		functions = new ArrayList<LCPLIRFunction>();
+	}
+
+	public List<LCPLIRFunction> getFunctions() {
+		return functions;
+	}
+
+	public void write(OutputStream out) throws IOException {
+		ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(out));
+		oos.writeObject(this);
+		oos.flush();
+	}
+
+	public static LCPLIRProgram read(InputStream in) throws IOException {
+		ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(in));
+		try {
+			return (LCPLIRProgram)ois.readObject();
+		} catch (ClassNotFoundException ex) {
+			throw new IOException("Not an IR file: " + ex.getMessage());
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for(LCPLIRFunction function : functions) {
+			sb.append(function).append("\n");
+		}
+		return sb.toString();
+	}
+}
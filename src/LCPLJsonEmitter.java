@@ -0,0 +1,410 @@
+import java.io.*;
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that writes the analyzed program as JSON, straight from the nodes to the output. The
+ * schema is in schema/lcpl-ast.schema.json.
+ *
+ * Every node is an object with an "id", its "kind" (the name of its class) and its "line",
+ * followed by its properties, with the same names as in the YAML output. The references to
+ * other nodes (parentData, typeData, variable, method, selfType...) are the ids of those
+ * nodes. The ids are given before the writing, in pre-order: the Int, none and void types,
+ * then every class with its features; a method is followed by its parameters, its self and
+ * its body, an attribute by its self and its initialization. A node that is in more than one
+ * place (the String constants shared by -fold) is written at every place with the same id.
+ * The properties of the optional passes are written only when they are set.
+ */
+public class LCPLJsonEmitter implements LCPLProgramEmitter {
+
+	public static final String FORMAT = "lcpl-ast";
+	public static final int VERSION = 1;
+
+	private Map<Object, Integer> ids;
+	private int nextId;
+	private Writer output;
+
+	public void emit(Program p, Writer output) throws IOException {
+		this.output = output;
+		number(p);
+
+		output.write("{\"format\":");
+		string(FORMAT);
+		field("version");
+		output.write(Integer.toString(VERSION));
+		field("line");
+		output.write(Integer.toString(p.getLineNumber()));
+		field("intType");
+		type(p.getIntType());
+		field("noType");
+		type(p.getNoType());
+		field("nullType");
+		type(p.getNullType());
+		field("objectType");
+		reference(p.getObjectType());
+		field("stringType");
+		reference(p.getStringType());
+		field("ioType");
+		reference(p.getIoType());
+		field("classes");
+		output.write('[');
+		boolean first = true;
+		for(LCPLClass lcplClass : p.getClasses()) {
+			if(!first) {
+				output.write(',');
+			}
+			first = false;
+			lcplClass(lcplClass);
+		}
+		output.write("]}");
+		output.write(System.lineSeparator());
+		output.flush();
+		ids = null;
+	}
+
+	/*
+	 * Method that gives the ids of all the nodes, so the references to nodes written later
+	 * are known.
+	 */
+	private void number(Program p) {
+		ids = new IdentityHashMap<Object, Integer>();
+		nextId = 0;
+		LCPLTreeScanner numbering = new LCPLTreeScanner() {
+			protected void visitExpression(Expression expression) {
+				put(expression);
+			}
+		};
+		put(p.getIntType());
+		put(p.getNoType());
+		put(p.getNullType());
+		for(LCPLClass lcplClass : p.getClasses()) {
+			put(lcplClass);
+			for(Feature feature : lcplClass.getFeatures()) {
+				put(feature);
+				if(feature instanceof Method) {
+					Method method = (Method)feature;
+					for(FormalParam param : method.getParameters()) {
+						put(param);
+					}
+					put(method.getSelf());
+					numbering.scanExpression(method.getBody());
+				}
+				else if(feature instanceof Attribute) {
+					put(((Attribute)feature).getAttrInitSelf());
+					numbering.scanExpression(((Attribute)feature).getInit());
+				}
+			}
+		}
+	}
+
+	private void put(Object node) {
+		if(node != null && !ids.containsKey(node)) {
+			ids.put(node, nextId++);
+		}
+	}
+
+	private void type(Type type) throws IOException {
+		if(type == null) {
+			output.write("null");
+			return;
+		}
+		output.write("{\"id\":");
+		output.write(Integer.toString(ids.get(type)));
+		field("kind");
+		string(type.getClass().getSimpleName());
+		field("name");
+		string(type.getName());
+		output.write('}');
+	}
+
+	private void lcplClass(LCPLClass lcplClass) throws IOException {
+		begin(lcplClass);
+		field("name");
+		string(lcplClass.getName());
+		field("parent");
+		string(lcplClass.getParent());
+		field("parentData");
+		reference(lcplClass.getParentData());
+		if(lcplClass.getAttributesCount() != null) {
+			field("attributesCount");
+			output.write(lcplClass.getAttributesCount().toString());
+		}
+		if(lcplClass.getVtable() != null) {
+			field("vtable");
+			output.write('[');
+			for(int i = 0; i < lcplClass.getVtable().size(); i++) {
+				if(i > 0) {
+					output.write(',');
+				}
+				reference(lcplClass.getVtable().get(i));
+			}
+			output.write(']');
+		}
+		field("features");
+		output.write('[');
+		boolean first = true;
+		for(Feature feature : lcplClass.getFeatures()) {
+			if(!first) {
+				output.write(',');
+			}
+			first = false;
+			if(feature instanceof Method) {
+				method((Method)feature);
+			}
+			else {
+				attribute((Attribute)feature);
+			}
+		}
+		output.write("]}");
+	}
+
+	private void method(Method method) throws IOException {
+		begin(method);
+		field("name");
+		string(method.getName());
+		field("parent");
+		reference(method.getParent());
+		field("returnType");
+		string(method.getReturnType());
+		field("returnTypeData");
+		reference(method.getReturnTypeData());
+		if(method.getVtableSlot() != null) {
+			field("vtableSlot");
+			output.write(method.getVtableSlot().toString());
+		}
+		field("parameters");
+		output.write('[');
+		for(int i = 0; i < method.getParameters().size(); i++) {
+			if(i > 0) {
+				output.write(',');
+			}
+			formalParam(method.getParameters().get(i));
+		}
+		output.write(']');
+		field("self");
+		formalParam(method.getSelf());
+		field("body");
+		expression(method.getBody());
+		output.write('}');
+	}
+
+	private void attribute(Attribute attribute) throws IOException {
+		begin(attribute);
+		field("name");
+		string(attribute.getName());
+		field("type");
+		string(attribute.getType());
+		field("typeData");
+		reference(attribute.getTypeData());
+		if(attribute.getOffset() != null) {
+			field("offset");
+			output.write(attribute.getOffset().toString());
+		}
+		field("attrInitSelf");
+		formalParam(attribute.getAttrInitSelf());
+		field("init");
+		expression(attribute.getInit());
+		output.write('}');
+	}
+
+	private void formalParam(FormalParam param) throws IOException {
+		if(param == null) {
+			output.write("null");
+			return;
+		}
+		begin(param);
+		field("name");
+		string(param.getName());
+		field("type");
+		string(param.getType());
+		field("variableType");
+		reference(param.getVariableType());
+		output.write('}');
+	}
+
+	private void expression(Expression expression) throws IOException {
+		if(expression == null) {
+			output.write("null");
+			return;
+		}
+		begin(expression);
+		field("type");
+		string(expression.getType());
+		field("typeData");
+		reference(expression.getTypeData());
+
+		if(expression instanceof Block) {
+			field("expressions");
+			expressions(((Block)expression).getExpressions());
+		}
+		else if(expression instanceof LocalDefinition) {
+			LocalDefinition localDefinition = (LocalDefinition)expression;
+			field("name");
+			string(localDefinition.getName());
+			field("variableType");
+			reference(localDefinition.getVariableType());
+			field("init");
+			expression(localDefinition.getInit());
+			field("scope");
+			expression(localDefinition.getScope());
+		}
+		else if(expression instanceof BaseDispatch) {
+			BaseDispatch dispatch = (BaseDispatch)expression;
+			field("name");
+			string(dispatch.getName());
+			field("method");
+			reference(dispatch.getMethod());
+			if(dispatch.getVtableSlot() != null) {
+				field("vtableSlot");
+				output.write(dispatch.getVtableSlot().toString());
+			}
+			if(dispatch instanceof StaticDispatch) {
+				field("selfType");
+				reference(((StaticDispatch)dispatch).getSelfType());
+			}
+			else if(((Dispatch)dispatch).getDevirtualizedMethod() != null) {
+				field("devirtualizedMethod");
+				reference(((Dispatch)dispatch).getDevirtualizedMethod());
+			}
+			field("object");
+			expression(dispatch.getObject());
+			field("arguments");
+			expressions(dispatch.getArguments());
+		}
+		else if(expression instanceof IfStatement) {
+			IfStatement ifStatement = (IfStatement)expression;
+			field("condition");
+			expression(ifStatement.getCondition());
+			field("ifExpr");
+			expression(ifStatement.getIfExpr());
+			field("thenExpr");
+			expression(ifStatement.getThenExpr());
+		}
+		else if(expression instanceof WhileStatement) {
+			field("condition");
+			expression(((WhileStatement)expression).getCondition());
+			field("loopBody");
+			expression(((WhileStatement)expression).getLoopBody());
+		}
+		else if(expression instanceof Cast) {
+			field("e1");
+			expression(((Cast)expression).getE1());
+		}
+		else if(expression instanceof SubString) {
+			SubString subString = (SubString)expression;
+			field("stringExpr");
+			expression(subString.getStringExpr());
+			field("startPosition");
+			expression(subString.getStartPosition());
+			field("endPosition");
+			expression(subString.getEndPosition());
+		}
+		else if(expression instanceof Assignment) {
+			field("symbol");
+			string(((Assignment)expression).getSymbol());
+			field("symbolData");
+			reference(((Assignment)expression).getSymbolData());
+			field("e1");
+			expression(((Assignment)expression).getE1());
+		}
+		else if(expression instanceof BinaryOp) {
+			field("e1");
+			expression(((BinaryOp)expression).getE1());
+			field("e2");
+			expression(((BinaryOp)expression).getE2());
+		}
+		else if(expression instanceof UnaryOp) {
+			field("e1");
+			expression(((UnaryOp)expression).getE1());
+		}
+		else if(expression instanceof Symbol) {
+			field("name");
+			string(((Symbol)expression).getName());
+			field("variable");
+			reference(((Symbol)expression).getVariable());
+		}
+		else if(expression instanceof IntConstant) {
+			field("value");
+			output.write(Integer.toString(((IntConstant)expression).getValue()));
+		}
+		else if(expression instanceof StringConstant) {
+			field("value");
+			string(((StringConstant)expression).getValue());
+		}
+		output.write('}');
+	}
+
+	private void expressions(List<Expression> expressions) throws IOException {
+		if(expressions == null) {
+			output.write("null");
+			return;
+		}
+		output.write('[');
+		boolean first = true;
+		for(Expression expression : expressions) {
+			if(!first) {
+				output.write(',');
+			}
+			first = false;
+			expression(expression);
+		}
+		output.write(']');
+	}
+
+	private void begin(TreeNode node) throws IOException {
+		output.write("{\"id\":");
+		output.write(Integer.toString(ids.get(node)));
+		field("kind");
+		string(node.getClass().getSimpleName());
+		field("line");
+		output.write(Integer.toString(node.getLineNumber()));
+	}
+
+	private void field(String name) throws IOException {
+		output.write(",\"");
+		output.write(name);
+		output.write("\":");
+	}
+
+	private void reference(Object node) throws IOException {
+		Integer id = node == null ? null : ids.get(node);
+		output.write(id == null ? "null" : id.toString());
+	}
+
+	private void string(String s) throws IOException {
+		string(output, s);
+	}
+
+	/*
+	 * Method that writes a JSON string. The characters that are not ASCII are escaped, so the
+	 * output does not depend on the encoding of the writer.
+	 */
+	static void string(Writer output, String s) throws IOException {
+		if(s == null) {
+			output.write("null");
+			return;
+		}
+		output.write('"');
+		int start = 0;
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(c >= 0x20 && c < 0x7f && c != '"' && c != '\\') {
+				continue;
+			}
+			output.write(s, start, i - start);
+			start = i + 1;
+			switch(c) {
+			case '"':	output.write("\\\"");	break;
+			case '\\':	output.write("\\\\");	break;
+			case '\n':	output.write("\\n");	break;
+			case '\r':	output.write("\\r");	break;
+			case '\t':	output.write("\\t");	break;
+			default:
+				output.write(String.format("\\u%04x", (int)c));
+			}
+		}
+		output.write(s, start, s.length() - start);
+		output.write('"');
+	}
+}
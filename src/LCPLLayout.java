@@ -0,0 +1,112 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that computes the layout of the objects of every class, after the signatures are set:
+ *   - the virtual method table: a class starts with the table of its parent, an override
+ *     takes the slot of the overridden method and a new method gets the next slot
+ *   - the offsets of the attributes: the attributes of the parent come first, then the
+ *     attributes of the class in the order they are defined
+ * The classes must be sorted with the parents first, so the same program always gets the
+ * same slots and offsets. A parent that is not in the list (a shared built-in class) must
+ * already have its layout.
+ */
+public class LCPLLayout {
+
+	private List<LCPLClass> orderedClasses;
+	/*
+	 * The slot of every method name in the table of every class.
+	 * Map<class, Map<methodName, slot>>
+	 */
+	private Map<LCPLClass, Map<String, Integer>> slots;
+
+	public LCPLLayout(List<LCPLClass> orderedClasses) {
+		this.orderedClasses = orderedClasses;
+		slots				= new HashMap<LCPLClass, Map<String, Integer>>();
+	}
+
+	/*
+	 * Method that sets the vtable and the number of attributes of every class, the slot of
+	 * every method and the offset of every attribute.
+	 */
+	public void assign() {
+		for(LCPLClass lcplClass : orderedClasses) {
+			LCPLClass parent = lcplClass.getParentData();
+
+			List<Method> vtable;
+			Map<String, Integer> classSlots;
+			int attributesCount;
+			if(parent == null) {
+				vtable			= new ArrayList<Method>();
+				classSlots		= new HashMap<String, Integer>();
+				attributesCount = 0;
+			}
+			else {
+				vtable			= new ArrayList<Method>(parent.getVtable());
+				classSlots		= new HashMap<String, Integer>(slotsOf(parent));
+				attributesCount = parent.getAttributesCount();
+			}
+
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					Method method = (Method)feature;
+					Integer slot = classSlots.get(method.getName());
+					if(slot == null) {
+						slot = vtable.size();
+						classSlots.put(method.getName(), slot);
+						vtable.add(method);
+					}
+					else {
+						vtable.set(slot, method);
+					}
+					method.setVtableSlot(slot);
+				}
+				else if(feature instanceof Attribute) {
+					((Attribute)feature).setOffset(attributesCount++);
+				}
+			}
+
+			lcplClass.setVtable(vtable);
+			lcplClass.setAttributesCount(attributesCount);
+			slots.put(lcplClass, classSlots);
+		}
+	}
+
+	/*
+	 * The slot of every method name in the table of a class, computed from its vtable if the
+	 * class is not in the list.
+	 */
+	private Map<String, Integer> slotsOf(LCPLClass lcplClass) {
+		Map<String, Integer> classSlots = slots.get(lcplClass);
+		if(classSlots == null) {
+			classSlots = new HashMap<String, Integer>();
+			for(int i = 0; i < lcplClass.getVtable().size(); i++) {
+				classSlots.put(lcplClass.getVtable().get(i).getName(), i);
+			}
+			slots.put(lcplClass, classSlots);
+		}
+		return classSlots;
+	}
+
+	/*
+	 * Method that copies into every dispatch the slot of its method, for a program whose
+	 * bodies were analyzed before the layout was computed again.
+	 */
+	public void updateDispatches(Program p) {
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			@Override
+			protected void visitExpression(Expression expression) {
+				if(expression instanceof BaseDispatch) {
+					BaseDispatch dispatch = (BaseDispatch)expression;
+					if(dispatch.getMethod() != null) {
+						dispatch.setVtableSlot(dispatch.getMethod().getVtableSlot());
+					}
+				}
+			}
+		};
+		for(LCPLClass lcplClass : p.getClasses()) {
+			scanner.scanClass(lcplClass);
+		}
+	}
+}
@@ -0,0 +1,380 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that lowers an analyzed program to the three-address IR. The decisions of the analysis
+ * become explicit instructions: the implicit casts are INT_TO_STRING or UPCAST, the explicit
+ * ones that go down the hierarchy are CHECKED_CAST, every dispatch carries the resolved method
+ * and the static type it was resolved on, and an if with a value writes it in a temporary of
+ * the type of the if. A dispatch devirtualized by LCPLDevirtualizer becomes a STATIC_DISPATCH
+ * on the class of its method.
+ *
+ * The bodies that were not analyzed (skipped by the lazy mode) are not lowered.
+ */
+public class LCPLLowering {
+
+	private Program p;
+	/*
+	 * The class of every attribute, which the attribute itself does not know.
+	 */
+	private Map<Attribute, LCPLClass> attributeClasses;
+
+	/* the function that is being lowered */
+	private LCPLIRFunction function;
+	private LCPLIRBlock block;
+	private Map<Variable, Integer> temps;
+
+	public LCPLLowering(Program p) {
+		this.p			 = p;
+		attributeClasses = new IdentityHashMap<Attribute, LCPLClass>();
+	}
+
+	public LCPLIRProgram lower() {
+		for(LCPLClass lcplClass : p.getClasses()) {
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Attribute) {
+					attributeClasses.put((Attribute)feature, lcplClass);
+				}
+			}
+		}
+
+		LCPLIRProgram program = new LCPLIRProgram();
+		for(LCPLClass lcplClass : p.getClasses()) {
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					Method method = (Method)feature;
+					if(isAnalyzed(method.getBody())) {
+						program.getFunctions().add(lowerMethod(lcplClass, method));
+					}
+				}
+				else {
+					Attribute attribute = (Attribute)feature;
+					if(isAnalyzed(attribute.getInit())) {
+						program.getFunctions().add(lowerInitialization(lcplClass, attribute));
+					}
+				}
+			}
+		}
+		return program;
+	}
+
+	private boolean isAnalyzed(Expression expression) {
+		return expression != null && expression.getTypeData() != null;
+	}
+
+	private LCPLIRFunction lowerMethod(LCPLClass lcplClass, Method method) {
+		String returnType = method.getReturnTypeData().getName();
+		begin(new LCPLIRFunction(lcplClass.getName(), method.getName(), false, returnType), lcplClass, method.getSelf());
+		for(FormalParam param : method.getParameters()) {
+			temps.put(param, function.newTemp(param.getVariableType().getName()));
+		}
+		function.setParametersCount(method.getParameters().size());
+
+		int value = lower(method.getBody());
+		if(value == LCPLIRInstruction.NONE || method.getReturnTypeData() instanceof NoType) {
+			emit(LCPLIRInstruction.Opcode.RETURN, method.getLineNumber(), LCPLIRInstruction.NONE);
+		}
+		else {
+			emit(LCPLIRInstruction.Opcode.RETURN, method.getLineNumber(), LCPLIRInstruction.NONE, value);
+		}
+		return function;
+	}
+
+	private LCPLIRFunction lowerInitialization(LCPLClass lcplClass, Attribute attribute) {
+		begin(new LCPLIRFunction(lcplClass.getName(), attribute.getName(), true, LCPLConstants.NONE), lcplClass,
+				attribute.getAttrInitSelf());
+
+		int value = lower(attribute.getInit());
+		LCPLIRInstruction set = emit(LCPLIRInstruction.Opcode.SET_ATTR, attribute.getLineNumber(),
+				LCPLIRInstruction.NONE, 0, value);
+		set.setClassName(lcplClass.getName());
+		set.setMemberName(attribute.getName());
+		emit(LCPLIRInstruction.Opcode.RETURN, attribute.getLineNumber(), LCPLIRInstruction.NONE);
+		return function;
+	}
+
+	private void begin(LCPLIRFunction function, LCPLClass lcplClass, FormalParam self) {
+		this.function = function;
+		temps = new IdentityHashMap<Variable, Integer>();
+		temps.put(self, function.newTemp(lcplClass.getName()));
+		block = function.newBlock();
+	}
+
+	/*
+	 * Method that lowers an expression into the current block and returns the temporary that
+	 * holds its value, or NONE if the expression has no value.
+	 */
+	private int lower(Expression expression) {
+		if(expression == null) {
+			return LCPLIRInstruction.NONE;
+		}
+
+		int line = expression.getLineNumber();
+		if(expression instanceof Block) {
+			int value = LCPLIRInstruction.NONE;
+			for(Expression e : ((Block)expression).getExpressions()) {
+				value = lower(e);
+			}
+			return value;
+		}
+		else if(expression instanceof LocalDefinition) {
+			LocalDefinition localDefinition = (LocalDefinition)expression;
+			int variable = function.newTemp(localDefinition.getVariableType().getName());
+			if(localDefinition.getInit() != null) {
+				int init = lower(localDefinition.getInit());
+				emit(LCPLIRInstruction.Opcode.MOVE, line, variable, init);
+			}
+			else {
+				emit(LCPLIRInstruction.Opcode.DEFAULT, line, variable);
+			}
+			temps.put(localDefinition, variable);
+			return lower(localDefinition.getScope());
+		}
+		else if(expression instanceof BaseDispatch) {
+			return lowerDispatch((BaseDispatch)expression);
+		}
+		else if(expression instanceof IfStatement) {
+			return lowerIfStatement((IfStatement)expression);
+		}
+		else if(expression instanceof WhileStatement) {
+			WhileStatement whileStatement = (WhileStatement)expression;
+			LCPLIRBlock conditionBlock = function.newBlock();
+			LCPLIRBlock bodyBlock = function.newBlock();
+			LCPLIRBlock exitBlock = function.newBlock();
+
+			jump(line, conditionBlock);
+			block = conditionBlock;
+			int condition = lower(whileStatement.getCondition());
+			emit(LCPLIRInstruction.Opcode.BRANCH, line, LCPLIRInstruction.NONE, condition)
+					.setTargets(bodyBlock.getLabel(), exitBlock.getLabel());
+
+			block = bodyBlock;
+			lower(whileStatement.getLoopBody());
+			jump(line, conditionBlock);
+
+			block = exitBlock;
+			return LCPLIRInstruction.NONE;
+		}
+		else if(expression instanceof Cast) {
+			return lowerCast((Cast)expression);
+		}
+		else if(expression instanceof NewObject) {
+			LCPLIRInstruction instruction = emit(LCPLIRInstruction.Opcode.NEW, line, newTemp(expression));
+			instruction.setClassName(expression.getTypeData().getName());
+			return instruction.getDest();
+		}
+		else if(expression instanceof SubString) {
+			SubString subString = (SubString)expression;
+			int string = lower(subString.getStringExpr());
+			int start = lower(subString.getStartPosition());
+			int end = lower(subString.getEndPosition());
+			return emit(LCPLIRInstruction.Opcode.SUBSTRING, line, newTemp(expression), string, start, end).getDest();
+		}
+		else if(expression instanceof Assignment) {
+			Assignment assignment = (Assignment)expression;
+			int value = lower(assignment.getE1());
+			Variable variable = assignment.getSymbolData();
+			if(variable instanceof Attribute) {
+				LCPLIRInstruction set = emit(LCPLIRInstruction.Opcode.SET_ATTR, line, LCPLIRInstruction.NONE, 0, value);
+				set.setClassName(attributeClasses.get(variable).getName());
+				set.setMemberName(((Attribute)variable).getName());
+			}
+			else {
+				emit(LCPLIRInstruction.Opcode.MOVE, line, temps.get(variable), value);
+			}
+			return value;
+		}
+		else if(expression instanceof BinaryOp) {
+			return lowerBinaryOp((BinaryOp)expression);
+		}
+		else if(expression instanceof UnaryOp) {
+			int e1 = lower(((UnaryOp)expression).getE1());
+			LCPLIRInstruction.Opcode opcode = expression instanceof UnaryMinus ? LCPLIRInstruction.Opcode.NEG
+					: LCPLIRInstruction.Opcode.NOT;
+			return emit(opcode, line, newTemp(expression), e1).getDest();
+		}
+		else if(expression instanceof Symbol) {
+			Variable variable = ((Symbol)expression).getVariable();
+			if(variable instanceof Attribute) {
+				LCPLIRInstruction get = emit(LCPLIRInstruction.Opcode.GET_ATTR, line, newTemp(expression), 0);
+				get.setClassName(attributeClasses.get(variable).getName());
+				get.setMemberName(((Attribute)variable).getName());
+				return get.getDest();
+			}
+			int temp = temps.get(variable);
+			if(temp == 0) {
+				return temp;
+			}
+			/* a copy, so a later assignment of the variable does not change the value read here */
+			return emit(LCPLIRInstruction.Opcode.MOVE, line, newTemp(expression), temp).getDest();
+		}
+		else if(expression instanceof IntConstant) {
+			LCPLIRInstruction constant = emit(LCPLIRInstruction.Opcode.CONST_INT, line, newTemp(expression));
+			constant.setIntValue(((IntConstant)expression).getValue());
+			return constant.getDest();
+		}
+		else if(expression instanceof StringConstant) {
+			LCPLIRInstruction constant = emit(LCPLIRInstruction.Opcode.CONST_STRING, line, newTemp(expression));
+			constant.setStringValue(((StringConstant)expression).getValue());
+			return constant.getDest();
+		}
+		else if(expression instanceof VoidConstant) {
+			return emit(LCPLIRInstruction.Opcode.CONST_VOID, line, newTemp(expression)).getDest();
+		}
+		throw new IllegalArgumentException("Unknown expression " + expression.getClass().getName());
+	}
+
+	private int lowerDispatch(BaseDispatch dispatch) {
+		Method method = dispatch.getMethod();
+		List<Expression> arguments = dispatch.getArguments();
+		int[] operands = new int[arguments.size() + 1];
+		operands[0] = lower(dispatch.getObject());
+		for(int i = 0; i < arguments.size(); i++) {
+			operands[i + 1] = lower(arguments.get(i));
+		}
+
+		LCPLIRInstruction instruction;
+		if(dispatch instanceof StaticDispatch) {
+			instruction = emit(LCPLIRInstruction.Opcode.STATIC_DISPATCH, dispatch.getLineNumber(), newTemp(dispatch), operands);
+			instruction.setClassName(((StaticDispatch)dispatch).getSelfType().getName());
+		}
+		else if(((Dispatch)dispatch).getDevirtualizedMethod() != null) {
+			/* a monomorphic dispatch is a direct call, like a static dispatch on the class of the method */
+			method = ((Dispatch)dispatch).getDevirtualizedMethod();
+			instruction = emit(LCPLIRInstruction.Opcode.STATIC_DISPATCH, dispatch.getLineNumber(), newTemp(dispatch), operands);
+			instruction.setClassName(method.getParent().getName());
+		}
+		else {
+			instruction = emit(LCPLIRInstruction.Opcode.DISPATCH, dispatch.getLineNumber(), newTemp(dispatch), operands);
+			instruction.setClassName(dispatch.getObject().getTypeData().getName());
+		}
+		instruction.setMemberName(method.getName());
+		instruction.setMethod(method);
+		return instruction.getDest();
+	}
+
+	private int lowerIfStatement(IfStatement ifStatement) {
+		int line = ifStatement.getLineNumber();
+		int result = newTemp(ifStatement);
+
+		int condition = lower(ifStatement.getCondition());
+		LCPLIRBlock ifBlock = function.newBlock();
+		LCPLIRBlock thenBlock = ifStatement.getThenExpr() == null ? null : function.newBlock();
+		LCPLIRBlock joinBlock = function.newBlock();
+		emit(LCPLIRInstruction.Opcode.BRANCH, line, LCPLIRInstruction.NONE, condition)
+				.setTargets(ifBlock.getLabel(), (thenBlock == null ? joinBlock : thenBlock).getLabel());
+
+		block = ifBlock;
+		lowerBranch(ifStatement.getIfExpr(), result, joinBlock);
+		if(thenBlock != null) {
+			block = thenBlock;
+			lowerBranch(ifStatement.getThenExpr(), result, joinBlock);
+		}
+
+		block = joinBlock;
+		return result;
+	}
+
+	private void lowerBranch(Expression expression, int result, LCPLIRBlock joinBlock) {
+		int value = lower(expression);
+		if(result != LCPLIRInstruction.NONE) {
+			emit(LCPLIRInstruction.Opcode.MOVE, expression.getLineNumber(), result, value);
+		}
+		jump(expression.getLineNumber(), joinBlock);
+	}
+
+	private int lowerCast(Cast cast) {
+		int value = lower(cast.getE1());
+		Type from = cast.getE1().getTypeData();
+		Type to = cast.getTypeData();
+
+		LCPLIRInstruction.Opcode opcode;
+		if(from instanceof IntType) {
+			opcode = LCPLIRInstruction.Opcode.INT_TO_STRING;
+		}
+		else if(from instanceof NullType || isAncestor(to, from)) {
+			opcode = LCPLIRInstruction.Opcode.UPCAST;
+		}
+		else {
+			opcode = LCPLIRInstruction.Opcode.CHECKED_CAST;
+		}
+
+		LCPLIRInstruction instruction = emit(opcode, cast.getLineNumber(), newTemp(cast), value);
+		instruction.setClassName(to.getName());
+		return instruction.getDest();
+	}
+
+	private int lowerBinaryOp(BinaryOp binaryOp) {
+		int e1 = lower(binaryOp.getE1());
+		int e2 = lower(binaryOp.getE2());
+
+		LCPLIRInstruction.Opcode opcode;
+		if(binaryOp instanceof Addition) {
+			opcode = binaryOp.getTypeData() instanceof IntType ? LCPLIRInstruction.Opcode.ADD : LCPLIRInstruction.Opcode.CONCAT;
+		}
+		else if(binaryOp instanceof Subtraction) {
+			opcode = LCPLIRInstruction.Opcode.SUB;
+		}
+		else if(binaryOp instanceof Multiplication) {
+			opcode = LCPLIRInstruction.Opcode.MUL;
+		}
+		else if(binaryOp instanceof Division) {
+			opcode = LCPLIRInstruction.Opcode.DIV;
+		}
+		else if(binaryOp instanceof LessThan) {
+			opcode = LCPLIRInstruction.Opcode.LT;
+		}
+		else if(binaryOp instanceof LessThanEqual) {
+			opcode = LCPLIRInstruction.Opcode.LE;
+		}
+		else {
+			opcode = LCPLIRInstruction.Opcode.EQ;
+		}
+
+		LCPLIRInstruction instruction = emit(opcode, binaryOp.getLineNumber(), newTemp(binaryOp), e1, e2);
+		if(opcode == LCPLIRInstruction.Opcode.EQ) {
+			Type operands = binaryOp.getE1().getTypeData() instanceof NullType ? binaryOp.getE2().getTypeData()
+					: binaryOp.getE1().getTypeData();
+			instruction.setClassName(operands.getName());
+		}
+		return instruction.getDest();
+	}
+
+	/*
+	 * Method that returns a new temporary for the value of an expression, or NONE if the
+	 * expression has no value.
+	 */
+	private int newTemp(Expression expression) {
+		Type type = expression.getTypeData();
+		if(type == null || type instanceof NoType) {
+			return LCPLIRInstruction.NONE;
+		}
+		return function.newTemp(type.getName());
+	}
+
+	private LCPLIRInstruction emit(LCPLIRInstruction.Opcode opcode, int line, int dest, int... operands) {
+		String destType = dest == LCPLIRInstruction.NONE ? null : function.getTempTypes().get(dest);
+		LCPLIRInstruction instruction = new LCPLIRInstruction(opcode, line, dest, destType, operands);
+		block.add(instruction);
+		return instruction;
+	}
+
+	private void jump(int line, LCPLIRBlock target) {
+		if(!block.isTerminated()) {
+			emit(LCPLIRInstruction.Opcode.JUMP, line, LCPLIRInstruction.NONE).setTargets(target.getLabel());
+		}
+	}
+
+	private boolean isAncestor(Type parent, Type child) {
+		if(!(child instanceof LCPLClass)) {
+			return false;
+		}
+		for(LCPLClass current = (LCPLClass)child; current != null; current = current.getParentData()) {
+			if(current == parent) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
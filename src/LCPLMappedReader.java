@@ -0,0 +1,132 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+
+/*
+ * Class that reads a file through a memory mapping of it and decodes it. A mapping can
+ * not be larger than 2 GB, so a bigger file is mapped in chunks, one after the other. The
+ * bytes are copied from the mapping in bulk into a small heap window and decoded from there:
+ * the decoder is several times faster on arrays than on a direct buffer, and the bytes of a
+ * character split between two chunks stay in the window. Like the SnakeYAML reader
+ * (UnicodeReader), the file is UTF-8 unless it begins with a UTF-16 byte order mark, the byte
+ * order mark is skipped, and the bytes that are not valid in the encoding are an error.
+ */
+public class LCPLMappedReader extends Reader {
+
+	private static final long DEFAULT_CHUNK_SIZE = 1L << 30;
+	private static final int WINDOW_SIZE = 1 << 16;
+	private static final byte[] UTF8_BOM = { (byte)0xEF, (byte)0xBB, (byte)0xBF };
+	private static final byte[] UTF16BE_BOM = { (byte)0xFE, (byte)0xFF };
+	private static final byte[] UTF16LE_BOM = { (byte)0xFF, (byte)0xFE };
+
+	private FileChannel channel;
+	private long size;
+	private long chunkSize;
+	/* the offset in the file of the current chunk */
+	private long chunkStart;
+	private MappedByteBuffer chunk;
+	/* the bytes copied from the chunk and not decoded yet */
+	private ByteBuffer window;
+	private CharsetDecoder decoder;
+	/* true after the decoder was flushed at the end of the file */
+	private boolean done;
+
+	public LCPLMappedReader(File file) throws IOException {
+		this(file, DEFAULT_CHUNK_SIZE);
+	}
+
+	public LCPLMappedReader(File file, long chunkSize) throws IOException {
+		this.chunkSize = chunkSize;
+		channel = new RandomAccessFile(file, "r").getChannel();
+		size	= channel.size();
+		window = ByteBuffer.allocate(WINDOW_SIZE);
+		window.flip();
+
+		map(0);
+		String charset = "UTF-8";
+		if(startsWith(UTF8_BOM)) {
+			chunk.position(UTF8_BOM.length);
+		}
+		else if(startsWith(UTF16BE_BOM)) {
+			charset = "UTF-16BE";
+			chunk.position(UTF16BE_BOM.length);
+		}
+		else if(startsWith(UTF16LE_BOM)) {
+			charset = "UTF-16LE";
+			chunk.position(UTF16LE_BOM.length);
+		}
+		decoder = Charset.forName(charset).newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+	}
+
+	@Override
+	public int read(char[] buffer, int offset, int length) throws IOException {
+		if(chunk == null) {
+			throw new IOException("Reader closed");
+		}
+		if(done) {
+			return -1;
+		}
+		if(length == 0) {
+			return 0;
+		}
+
+		CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+		while(true) {
+			boolean endOfInput = !chunk.hasRemaining() && chunkStart + chunk.limit() == size;
+			CoderResult result = decoder.decode(window, out, endOfInput);
+			if(result.isError()) {
+				result.throwException();
+			}
+			if(out.position() > offset) {
+				return out.position() - offset;
+			}
+			if(endOfInput) {
+				decoder.flush(out);
+				done = true;
+				return out.position() > offset ? out.position() - offset : -1;
+			}
+			fill();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		chunk = null;
+		channel.close();
+	}
+
+	/*
+	 * Method that moves the next bytes of the file into the window, after the ones that were
+	 * not decoded yet.
+	 */
+	private void fill() throws IOException {
+		window.compact();
+		if(!chunk.hasRemaining()) {
+			map(chunkStart + chunk.limit());
+		}
+		int count = Math.min(window.remaining(), chunk.remaining());
+		chunk.get(window.array(), window.arrayOffset() + window.position(), count);
+		window.position(window.position() + count);
+		window.flip();
+	}
+
+	private boolean startsWith(byte[] bom) {
+		if(chunk.remaining() < bom.length) {
+			return false;
+		}
+		for(int i = 0; i < bom.length; i++) {
+			if(chunk.get(i) != bom[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void map(long start) throws IOException {
+		chunkStart = start;
+		chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, size - start));
+	}
+}
@@ -0,0 +1,148 @@
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Cache of the method found for a method name on a class: the first method with that name in
+ * the class or in its ancestors, or none. The absent methods are cached too, and a lookup that
+ * walks up the hierarchy caches its answer for every class on the way, so the features of a
+ * class are walked once per method name. The walkers of the bodies of different classes may
+ * use the same cache at the same time.
+ *
+ * An answer depends on the features of the class and of all its ancestors, so after the
+ * methods of a class change (a method added, removed or renamed) invalidate(class) drops the
+ * answers of the class and of its subclasses, and invalidate() drops all of them. The
+ * invalidation is done while no walker uses the cache.
+ */
+public class LCPLMethodCache {
+
+	/* the cached answer for a method that is not found */
+	private static final Object NOT_FOUND = new Object();
+
+	/* Map<class, Map<methodName, Method or NOT_FOUND>> */
+	private ConcurrentMap<LCPLClass, ConcurrentMap<String, Object>> methods;
+
+	private LongAdder hits;
+	private LongAdder misses;
+	private LongAdder invalidations;
+
+	public LCPLMethodCache() {
+		methods		  = new ConcurrentHashMap<LCPLClass, ConcurrentMap<String, Object>>();
+		hits		  = new LongAdder();
+		misses		  = new LongAdder();
+		invalidations = new LongAdder();
+	}
+
+	/*
+	 * Method that returns the method with the given name of a class or of its ancestors, or
+	 * null if there is none.
+	 */
+	public Method getMethod(LCPLClass lcplClass, String methodName) {
+		Object answer = classMethods(lcplClass).get(methodName);
+		if(answer != null) {
+			hits.increment();
+		}
+		else {
+			/* two threads may find the same method, they put the same answer */
+			misses.increment();
+			answer = findMethod(lcplClass, methodName);
+		}
+		return answer == NOT_FOUND ? null : (Method)answer;
+	}
+
+	/*
+	 * Method that drops the answers of a class and of its subclasses.
+	 */
+	public void invalidate(LCPLClass lcplClass) {
+		invalidations.increment();
+		Iterator<LCPLClass> cached = methods.keySet().iterator();
+		while(cached.hasNext()) {
+			for(LCPLClass ancestor = cached.next(); ancestor != null; ancestor = ancestor.getParentData()) {
+				if(ancestor == lcplClass) {
+					cached.remove();
+					break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Method that drops all the answers.
+	 */
+	public void invalidate() {
+		invalidations.increment();
+		methods.clear();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/*
+	 * Method that prints the lookups, the hit rate and the cached answers.
+	 */
+	public void printReport(PrintStream out) {
+		long hitCount = hits.sum();
+		long lookups  = hitCount + misses.sum();
+		int entries = 0;
+		int notFound = 0;
+		for(ConcurrentMap<String, Object> classMethods : methods.values()) {
+			for(Object answer : classMethods.values()) {
+				entries++;
+				notFound += answer == NOT_FOUND ? 1 : 0;
+			}
+		}
+		out.println("Method resolution cache: " + lookups + " lookups, " + hitCount + " hits ("
+				+ String.format("%.2f", lookups == 0 ? 0 : 100.0 * hitCount / lookups) + "%), "
+				+ entries + " entries (" + notFound + " not found) for " + methods.size() + " classes, "
+				+ invalidations.sum() + " invalidations");
+	}
+
+	/*
+	 * Method that looks for a method up the hierarchy, up to the first ancestor that has the
+	 * answer cached, and caches the answer for every class on the way.
+	 */
+	private Object findMethod(LCPLClass lcplClass, String methodName) {
+		List<ConcurrentMap<String, Object>> visited = new ArrayList<ConcurrentMap<String, Object>>();
+		Object answer = null;
+		for(LCPLClass c = lcplClass; c != null && answer == null; c = c.getParentData()) {
+			ConcurrentMap<String, Object> classMethods = classMethods(c);
+			answer = classMethods.get(methodName);
+			if(answer == null) {
+				visited.add(classMethods);
+				for(Feature feature : c.getFeatures()) {
+					if(feature instanceof Method && ((Method)feature).getName().equals(methodName)) {
+						answer = feature;
+						break;
+					}
+				}
+			}
+		}
+		if(answer == null) {
+			answer = NOT_FOUND;
+		}
+		for(ConcurrentMap<String, Object> classMethods : visited) {
+			classMethods.put(methodName, answer);
+		}
+		return answer;
+	}
+
+	private ConcurrentMap<String, Object> classMethods(LCPLClass lcplClass) {
+		ConcurrentMap<String, Object> classMethods = methods.get(lcplClass);
+		if(classMethods == null) {
+			classMethods = new ConcurrentHashMap<String, Object>();
+			ConcurrentMap<String, Object> existing = methods.putIfAbsent(lcplClass, classMethods);
+			if(existing != null) {
+				classMethods = existing;
+			}
+		}
+		return classMethods;
+	}
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Java Flight Recorder event emitted around the checking of a method body.
+ * It is committed only if a recording that enables it is active.
+ */
+@Name("lcpl.MethodCheck")
+@Label("LCPL Method Check")
+@Category({"LCPL", "Semantic Analysis"})
+@Description("Checking of the body of a method")
+@StackTrace(false)
+public class LCPLMethodCheckEvent extends Event {
+
+	@Label("Class")
+	String className;
+
+	@Label("Method")
+	String methodName;
+
+	@Label("Line")
+	int line;
+
+	@Label("Node Count")
+	@Description("Number of expressions walked through")
+	int nodeCount;
+}
@@ -0,0 +1,151 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that loads a big program on several threads. A scan over the lines finds the items of
+ * the top level "classes" sequence, which start with "-" in the first column. The items are
+ * split into batches of consecutive classes and every batch is parsed, as a program with only
+ * those classes, on a worker. The rest of the document is parsed separately and the classes
+ * are put back in their original order.
+ *
+ * The single parser is used instead when the split is not safe or not worth it: a document
+ * with anchors or aliases (they may cross the classes), a classes sequence that is not in
+ * block style, too few classes, or a batch that fails to parse (the single parser gives the
+ * right position of the error).
+ */
+public class LCPLParallelLoader implements LCPLProgramLoader {
+
+	private static final String CLASSES_KEY = "classes:";
+	/* batches per thread, so the threads stay busy when the classes have different sizes */
+	private static final int BATCHES_PER_THREAD = 4;
+	private static final Pattern ANCHOR_OR_ALIAS = Pattern.compile("(^|[\\s\\[{,])[&*][^\\s,\\]}]");
+
+	private int threads;
+	private boolean parallel;
+
+	public LCPLParallelLoader(int threads) {
+		this.threads = threads;
+	}
+
+	/*
+	 * True if the last program was loaded on several threads.
+	 */
+	public boolean wasParallel() {
+		return parallel;
+	}
+
+	public Program load(Reader input) throws IOException {
+		String source = readAll(input);
+		parallel = false;
+
+		List<Integer> items = findClasses(source);
+		if(threads < 2 || items == null || items.size() - 2 < threads || ANCHOR_OR_ALIAS.matcher(source).find()) {
+			return loadSingle(source);
+		}
+
+		int classesStart = items.get(0);
+		int classesEnd = items.get(items.size() - 1);
+		String rest = source.substring(0, classesStart) + CLASSES_KEY + " []\n" + source.substring(classesEnd);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<LCPLClass>>> batches = new ArrayList<Future<List<LCPLClass>>>();
+			long batchSize = (classesEnd - classesStart) / (threads * BATCHES_PER_THREAD) + 1;
+			int first = 1;
+			while(first < items.size() - 1) {
+				int last = first + 1;
+				while(last < items.size() - 1 && items.get(last) - items.get(first) < batchSize) {
+					last++;
+				}
+				final String batch = CLASSES_KEY + "\n" + source.substring(items.get(first), items.get(last));
+				batches.add(executor.submit(new Callable<List<LCPLClass>>() {
+					public List<LCPLClass> call() {
+						return parse(batch).getClasses();
+					}
+				}));
+				first = last;
+			}
+
+			Program p = parse(rest);
+			List<LCPLClass> classes = new ArrayList<LCPLClass>(items.size() - 2);
+			for(Future<List<LCPLClass>> batch : batches) {
+				classes.addAll(batch.get());
+			}
+			p.setClasses(classes);
+			parallel = true;
+			return p;
+		} catch (ExecutionException ex) {
+			return loadSingle(source);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading the program");
+		} catch (RuntimeException ex) {
+			return loadSingle(source);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * Method that returns the offsets where the "classes:" line begins, where every class begins
+	 * and where the sequence ends, or null if the document does not have a block sequence of
+	 * classes at the top level.
+	 */
+	private List<Integer> findClasses(String source) {
+		List<Integer> offsets = new ArrayList<Integer>();
+		boolean inClasses = false;
+		int start = 0;
+		while(start < source.length()) {
+			int end = source.indexOf('\n', start);
+			end = end < 0 ? source.length() : end + 1;
+			char first = source.charAt(start);
+
+			if(!inClasses) {
+				if(source.startsWith(CLASSES_KEY, start) && source.substring(start + CLASSES_KEY.length(), end).trim().isEmpty()) {
+					inClasses = true;
+					offsets.add(start);
+				}
+			}
+			else if(first == '-' && (start + 1 == source.length() || Character.isWhitespace(source.charAt(start + 1)))) {
+				offsets.add(start);
+			}
+			else if(first != ' ' && first != '\t' && first != '\n' && first != '\r' && first != '#') {
+				break;
+			}
+			start = end;
+		}
+		if(!inClasses || offsets.size() < 2) {
+			return null;
+		}
+
+		/* the sequence ends where the next top level key begins */
+		offsets.add(Math.min(start, source.length()));
+		return offsets;
+	}
+
+	private Program loadSingle(String source) throws IOException {
+		return new LCPLYamlLoader().load(new StringReader(source));
+	}
+
+	private Program parse(String source) {
+		Yaml yaml = new Yaml(new Constructor(Program.class));
+		return (Program) yaml.load(source);
+	}
+
+	private String readAll(Reader input) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[1 << 16];
+		int count;
+		while((count = input.read(buffer)) > 0) {
+			sb.append(buffer, 0, count);
+		}
+		return sb.toString();
+	}
+}
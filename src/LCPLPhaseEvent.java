@@ -0,0 +1,40 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Java Flight Recorder event emitted around every phase of the semantic analysis.
+ * It is committed only if a recording that enables it is active.
+ */
+@Name("lcpl.AnalysisPhase")
+@Label("LCPL Analysis Phase")
+@Category({"LCPL", "Semantic Analysis"})
+@Description("A phase of the semantic analysis of a program")
+@StackTrace(false)
+public class LCPLPhaseEvent extends Event {
+
+	@Label("Phase")
+	String phase;
+
+	/*
+	 * Method that creates the event of a phase and starts timing it.
+	 */
+	public static LCPLPhaseEvent start(String phase) {
+		LCPLPhaseEvent event = new LCPLPhaseEvent();
+		event.phase = phase;
+		event.begin();
+		return event;
+	}
+
+	/*
+	 * Method that ends the phase and records the event, if it is enabled.
+	 */
+	public void finish() {
+		if(shouldCommit()) {
+			commit();
+		}
+	}
+}
@@ -0,0 +1,212 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * The built-in types of LCPL: Int, the types of the expressions without a value and of void,
+ * and the classes Object, IO and String with their methods.
+ *
+ * The analysis builds its own prelude for every program, unless it is told to use a shared
+ * one (LCPLSemanticAnalyzer.setSharedPrelude). There are two shared preludes, built once: one
+ * without and one with the layout (the vtables and the slots of the built-in methods do not
+ * depend on the program). Their lists can not be changed and nothing writes to them after
+ * they are built, so any number of analyses can use them at the same time.
+ */
+public class LCPLPrelude {
+
+	private static final LCPLPrelude SHARED = new LCPLPrelude(true, false);
+	private static final LCPLPrelude SHARED_WITH_LAYOUT = new LCPLPrelude(true, true);
+
+	private IntType intType;
+	private NoType noType;
+	private NullType nullType;
+	private LCPLClass objectType;
+	private LCPLClass stringType;
+	private LCPLClass ioType;
+
+	/*
+	 * Creates a prelude for a single program, which the analysis may change.
+	 */
+	public LCPLPrelude() {
+		this(false, false);
+	}
+
+	private LCPLPrelude(boolean shared, boolean layout) {
+		intType	 = new IntType();
+		noType	 = new NoType();
+		nullType = new NullType();
+
+		objectType = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.OBJECT, null, new ArrayList<Feature>());
+
+		stringType = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.STRING, objectType.getName(), new ArrayList<Feature>());
+		stringType.setParentData(objectType);
+
+		ioType = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.IO, objectType.getName(), new ArrayList<Feature>());
+		ioType.setParentData(objectType);
+
+		setStringClassFeatures();
+		setIOClassFeatures();
+		setObjectClassFeatures();
+
+		if(layout) {
+			new LCPLLayout(Arrays.asList(objectType, ioType, stringType)).assign();
+		}
+		if(shared) {
+			for(LCPLClass lcplClass : getClasses()) {
+				lcplClass.setFeatures(Collections.unmodifiableList(lcplClass.getFeatures()));
+				for(Feature feature : lcplClass.getFeatures()) {
+					Method method = (Method)feature;
+					method.setParameters(Collections.unmodifiableList(method.getParameters()));
+				}
+				if(layout) {
+					lcplClass.setVtable(Collections.unmodifiableList(lcplClass.getVtable()));
+				}
+			}
+		}
+	}
+
+	/*
+	 * The shared prelude, with the layout of the built-in classes or without it.
+	 */
+	public static LCPLPrelude getShared(boolean layout) {
+		return layout ? SHARED_WITH_LAYOUT : SHARED;
+	}
+
+	/*
+	 * Method that sets the built-in types of a program.
+	 */
+	public void install(Program p) {
+		p.setIntType(intType);
+		p.setNoType(noType);
+		p.setNullType(nullType);
+		p.setObjectType(objectType);
+		p.setStringType(stringType);
+		p.setIoType(ioType);
+	}
+
+	/*
+	 * The built-in classes, in the order the analysis adds them to the program.
+	 */
+	public List<LCPLClass> getClasses() {
+		return Arrays.asList(objectType, ioType, stringType);
+	}
+
+	public boolean contains(LCPLClass lcplClass) {
+		return lcplClass == objectType || lcplClass == ioType || lcplClass == stringType;
+	}
+
+	public LCPLClass getObjectType() {
+		return objectType;
+	}
+
+	public LCPLClass getStringType() {
+		return stringType;
+	}
+
+	public LCPLClass getIoType() {
+		return ioType;
+	}
+
+	/*
+	 * Method that sets up the Object class futures.
+	 */
+	private void setObjectClassFeatures() {
+		FormalParam self;
+
+		/* abort */
+		Feature abort = new Method(LCPLConstants.ZERO, LCPLConstants.ABORT, new ArrayList<FormalParam>(), LCPLConstants.VOID, null);
+		((Method)abort).setParent(objectType);
+		((Method)abort).setReturnTypeData(noType);
+
+		self = new FormalParam(LCPLConstants.SELF, objectType.getName());
+		self.setVariableType(objectType);
+		((Method)abort).setSelf(self);
+
+		objectType.getFeatures().add(abort);
+
+		/* typeName */
+		Feature typeName = new Method(LCPLConstants.ZERO, LCPLConstants.TYPENAME, new ArrayList<FormalParam>(), LCPLConstants.STRING, null);
+		((Method)typeName).setParent(objectType);
+		((Method)typeName).setReturnTypeData(stringType);
+
+		self = new FormalParam(LCPLConstants.SELF, objectType.getName());
+		self.setVariableType(objectType);
+		((Method)typeName).setSelf(self);
+
+		objectType.getFeatures().add(typeName);
+
+		/* copy */
+		Feature copy = new Method(LCPLConstants.ZERO, LCPLConstants.COPY, new ArrayList<FormalParam>(), LCPLConstants.OBJECT, null);
+		((Method)copy).setParent(objectType);
+		((Method)copy).setReturnTypeData(objectType);
+
+		self = new FormalParam(LCPLConstants.SELF, objectType.getName());
+		self.setVariableType(objectType);
+		((Method)copy).setSelf(self);
+
+		objectType.getFeatures().add(copy);
+	}
+
+	/*
+	 * Method that sets up the String class futures.
+	 */
+	private void setStringClassFeatures() {
+		FormalParam self;
+
+		/* length */
+		Feature length = new Method(LCPLConstants.ZERO, LCPLConstants.LENGTH, new ArrayList<FormalParam>(), intType.getName(), null);
+		((Method)length).setParent(stringType);
+		((Method)length).setReturnTypeData(intType);
+
+		self = new FormalParam(LCPLConstants.SELF, stringType.getName());
+		self.setVariableType(stringType);
+		((Method)length).setSelf(self);
+
+		stringType.getFeatures().add(length);
+
+		/* toInt */
+		Feature toInt = new Method(LCPLConstants.ZERO, LCPLConstants.TOINT, new ArrayList<FormalParam>(), intType.getName(), null);
+		((Method)toInt).setParent(stringType);
+		((Method)toInt).setReturnTypeData(intType);
+
+		self = new FormalParam(LCPLConstants.SELF, stringType.getName());
+		self.setVariableType(stringType);
+		((Method)toInt).setSelf(self);
+
+		stringType.getFeatures().add(toInt);
+	}
+
+	/*
+	 *  Methods that set up the IO class futures
+	 */
+	private void setIOClassFeatures() {
+		FormalParam self;
+
+		/* out */
+		FormalParam outParam = new FormalParam(LCPLConstants.MSG, stringType.getName());
+		outParam.setVariableType(stringType);
+		List<FormalParam> outParams = new ArrayList<FormalParam>();
+		outParams.add(outParam);
+
+		Feature out = new Method(LCPLConstants.ZERO, LCPLConstants.OUT, outParams, ioType.getName(), null);
+		((Method)out).setParent(ioType);
+		((Method)out).setReturnTypeData(ioType);
+
+		self = new FormalParam(LCPLConstants.SELF, ioType.getName());
+		self.setVariableType(ioType);
+		((Method)out).setSelf(self);
+
+		ioType.getFeatures().add(out);
+
+		/* in */
+		Feature in = new Method(LCPLConstants.ZERO, LCPLConstants.IN, new ArrayList<FormalParam>(), stringType.getName(), null);
+		((Method)in).setParent(ioType);
+		((Method)in).setReturnTypeData(stringType);
+
+		self = new FormalParam(LCPLConstants.SELF, ioType.getName());
+		self.setVariableType(ioType);
+		((Method)in).setSelf(self);
+
+		ioType.getFeatures().add(in);
+	}
+}
@@ -0,0 +1,157 @@
+import java.io.PrintStream;
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that collects statistics about the semantic analysis when the profiling mode is enabled:
+ * how many times every kind of expression is visited, the time spent in it (without the time
+ * spent in its subexpressions) and the methods whose bodies took the longest to check.
+ */
+public class LCPLProfiler {
+
+	private static final int WORST_METHODS = 10;
+	private static final int INITIAL_DEPTH = 64;
+
+	/*
+	 * Saves the statistics for every kind of expression.
+	 * Map<expressionClass, statistics>
+	 */
+	private Map<Class<?>, ExpressionStats> expressionStats;
+	/*
+	 * The methods that took the longest to check, the fastest one being the head of the queue.
+	 */
+	private PriorityQueue<MethodStats> worstMethods;
+
+	/* start time and time spent in subexpressions for every expression that is being visited */
+	private long[] startTimes;
+	private long[] childrenTimes;
+	private int depth;
+
+	public LCPLProfiler() {
+		expressionStats = new HashMap<Class<?>, ExpressionStats>();
+		worstMethods	= new PriorityQueue<MethodStats>();
+		startTimes		= new long[INITIAL_DEPTH];
+		childrenTimes	= new long[INITIAL_DEPTH];
+		depth			= 0;
+	}
+
+	/*
+	 * Method called before an expression is walked through.
+	 */
+	public void enterExpression() {
+		if(depth == startTimes.length) {
+			startTimes 	  = Arrays.copyOf(startTimes, depth * 2);
+			childrenTimes = Arrays.copyOf(childrenTimes, depth * 2);
+		}
+		childrenTimes[depth] = 0;
+		startTimes[depth] 	 = System.nanoTime();
+		depth++;
+	}
+
+	/*
+	 * Method called after an expression was walked through. It charges the expression only with
+	 * the time that was not spent in its subexpressions.
+	 */
+	public void exitExpression(Expression expression) {
+		depth--;
+		long total = System.nanoTime() - startTimes[depth];
+		if(depth > 0) {
+			childrenTimes[depth - 1] += total;
+		}
+
+		ExpressionStats stats = expressionStats.get(expression.getClass());
+		if(stats == null) {
+			stats = new ExpressionStats(expression.getClass().getSimpleName());
+			expressionStats.put(expression.getClass(), stats);
+		}
+		stats.visits++;
+		stats.selfTime += total - childrenTimes[depth];
+	}
+
+	/*
+	 * Method that saves the time spent checking the body of a method, if it is one of the worst.
+	 */
+	public void recordMethod(Method method, long time) {
+		String name = method.getParent().getName() + "." + method.getName();
+		MethodStats stats = new MethodStats(name, method.getLineNumber(), time);
+
+		if(worstMethods.size() < WORST_METHODS) {
+			worstMethods.add(stats);
+		}
+		else if(worstMethods.peek().time < time) {
+			worstMethods.poll();
+			worstMethods.add(stats);
+		}
+	}
+
+	/*
+	 * Method that prints the expressions kinds ranked by self time and the worst methods.
+	 */
+	public void printReport(PrintStream out) {
+		List<ExpressionStats> expressions = new ArrayList<ExpressionStats>(expressionStats.values());
+		Collections.sort(expressions);
+
+		long totalTime = 0;
+		long totalVisits = 0;
+		for(ExpressionStats stats : expressions) {
+			totalTime += stats.selfTime;
+			totalVisits += stats.visits;
+		}
+
+		out.println("Expression profile (" + totalVisits + " visits, " + toMillis(totalTime) + " ms)");
+		out.println(String.format("%-20s %12s %14s %8s", "kind", "visits", "self (ms)", "self %"));
+		for(ExpressionStats stats : expressions) {
+			double percent = totalTime == 0 ? 0 : 100.0 * stats.selfTime / totalTime;
+			out.println(String.format("%-20s %12d %14s %7.2f%%", stats.kind, stats.visits,
+					toMillis(stats.selfTime), percent));
+		}
+
+		List<MethodStats> methods = new ArrayList<MethodStats>(worstMethods);
+		Collections.sort(methods, Collections.reverseOrder());
+
+		out.println();
+		out.println("Slowest method bodies");
+		out.println(String.format("%-40s %8s %14s", "method", "line", "time (ms)"));
+		for(MethodStats stats : methods) {
+			out.println(String.format("%-40s %8d %14s", stats.name, stats.line, toMillis(stats.time)));
+		}
+	}
+
+	private String toMillis(long nanos) {
+		return String.format("%.3f", nanos / 1e6);
+	}
+
+	private static class ExpressionStats implements Comparable<ExpressionStats> {
+		String kind;
+		long visits;
+		long selfTime;
+
+		ExpressionStats(String kind) {
+			this.kind = kind;
+		}
+
+		/* the most expensive kind comes first */
+		@Override
+		public int compareTo(ExpressionStats other) {
+			return Long.compare(other.selfTime, selfTime);
+		}
+	}
+
+	private static class MethodStats implements Comparable<MethodStats> {
+		String name;
+		int line;
+		long time;
+
+		MethodStats(String name, int line, long time) {
+			this.name = name;
+			this.line = line;
+			this.time = time;
+		}
+
+		@Override
+		public int compareTo(MethodStats other) {
+			return Long.compare(time, other.time);
+		}
+	}
+}
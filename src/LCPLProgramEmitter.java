@@ -0,0 +1,11 @@
+import java.io.*;
+
+import ro.pub.cs.lcpl.Program;
+
+/*
+ * Interface of the ways to write the analyzed program.
+ */
+public interface LCPLProgramEmitter {
+
+	void emit(Program p, Writer output) throws IOException;
+}
@@ -0,0 +1,11 @@
+import java.io.*;
+
+import ro.pub.cs.lcpl.Program;
+
+/*
+ * Interface of the ways to build the program from the YAML written by the syntax analysis.
+ */
+public interface LCPLProgramLoader {
+
+	Program load(Reader input) throws IOException;
+}
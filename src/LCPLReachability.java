@@ -0,0 +1,229 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that finds the methods and the attributes initializations that can be executed by a
+ * program, starting from Main.main and the attributes of the Main object.
+ *
+ * A feature is reached when it is found, and it is visited (verified, if needed, and scanned)
+ * when it is taken from the worklist. Dispatches reach the resolved method and, for dynamic
+ * dispatch, all the methods with the same name from the subclasses of the static type of the
+ * object. A "new" instantiates a class, which reaches the attributes of the class and of its
+ * parents.
+ */
+public class LCPLReachability {
+
+	private Program p;
+	private Map<String, LCPLClass> classes;
+	private LCPLClassHierarchy hierarchy;
+
+	private Set<Method> reachedMethods;
+	private Set<Attribute> reachedAttributes;
+	private Set<LCPLClass> instantiatedClasses;
+	/*
+	 * The method names already looked for in the subclasses of every class.
+	 * Map<class, methodNames>
+	 */
+	private Map<LCPLClass, Set<String>> expandedDispatches;
+	/*
+	 * The attributes and the methods reached but not visited yet.
+	 */
+	private LinkedList<Feature> worklist;
+	/*
+	 * The class of every attribute, which the attribute itself does not know.
+	 */
+	private Map<Attribute, LCPLClass> attributeClasses;
+
+	public LCPLReachability(Program p, Map<String, LCPLClass> classes, LCPLClassHierarchy hierarchy) {
+		this.p 				= p;
+		this.classes 		= classes;
+		this.hierarchy		= hierarchy;
+
+		reachedMethods		= new LinkedHashSet<Method>();
+		reachedAttributes	= new LinkedHashSet<Attribute>();
+		instantiatedClasses = new LinkedHashSet<LCPLClass>();
+		expandedDispatches	= new HashMap<LCPLClass, Set<String>>();
+		worklist			= new LinkedList<Feature>();
+		attributeClasses	= new HashMap<Attribute, LCPLClass>();
+	}
+
+	/*
+	 * Method called for a reached method that has a body, before the body is scanned.
+	 * The methods are resolved in the body only after it was verified.
+	 */
+	protected void visitMethod(Method method) throws LCPLException {
+	}
+
+	/*
+	 * Method called for an attribute of an instantiated class, before its initialization is scanned.
+	 */
+	protected void visitAttribute(Attribute attribute, LCPLClass lcplClass) throws LCPLException {
+	}
+
+	/*
+	 * Method that finds everything reachable from Main.main.
+	 */
+	public void run() throws LCPLException {
+		LCPLClass mainClass = classes.get(LCPLConstants.CLASSMAIN);
+		if(mainClass == null) {
+			return;
+		}
+
+		instantiate(mainClass);
+		Method mainMethod = findMethod(mainClass, LCPLConstants.METHODMAIN);
+		if(mainMethod != null) {
+			reach(mainMethod);
+		}
+
+		ReferencesScanner scanner = new ReferencesScanner();
+		while(!worklist.isEmpty()) {
+			Feature feature = worklist.removeFirst();
+			if(feature instanceof Method) {
+				Method method = (Method)feature;
+				visitMethod(method);
+				scanner.scanExpression(method.getBody());
+			}
+			else {
+				Attribute attribute = (Attribute)feature;
+				visitAttribute(attribute, attributeClasses.get(attribute));
+				scanner.scanExpression(attribute.getInit());
+			}
+		}
+	}
+
+	public Set<Method> getReachedMethods() {
+		return reachedMethods;
+	}
+
+	public Set<Attribute> getReachedAttributes() {
+		return reachedAttributes;
+	}
+
+	public Set<LCPLClass> getInstantiatedClasses() {
+		return instantiatedClasses;
+	}
+
+	/*
+	 * Method that returns, as "Class.feature (line n)", the methods with a body and the
+	 * attributes with an initialization that were not reached.
+	 */
+	public List<String> getUnreachedFeatures() {
+		List<String> unreached = new ArrayList<String>();
+		for(LCPLClass lcplClass : p.getClasses()) {
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					Method method = (Method)feature;
+					if(method.getBody() != null && !reachedMethods.contains(method)) {
+						unreached.add(describe(lcplClass, method.getName(), method.getLineNumber()));
+					}
+				}
+				else if(feature instanceof Attribute) {
+					Attribute attribute = (Attribute)feature;
+					if(attribute.getInit() != null && !reachedAttributes.contains(attribute)) {
+						unreached.add(describe(lcplClass, attribute.getName(), attribute.getLineNumber()));
+					}
+				}
+			}
+		}
+		return unreached;
+	}
+
+	private String describe(LCPLClass lcplClass, String featureName, int line) {
+		return lcplClass.getName() + "." + featureName + " (line " + line + ")";
+	}
+
+	private void reach(Method method) {
+		if(reachedMethods.add(method) && method.getBody() != null) {
+			worklist.add(method);
+		}
+	}
+
+	/*
+	 * Method that reaches the attributes of a class and of its parents, when the class is
+	 * instantiated for the first time.
+	 */
+	private void instantiate(LCPLClass lcplClass) {
+		if(!instantiatedClasses.add(lcplClass)) {
+			return;
+		}
+
+		for(LCPLClass current = lcplClass; current != null; current = current.getParentData()) {
+			for(Feature feature : current.getFeatures()) {
+				if(feature instanceof Attribute && reachedAttributes.add((Attribute)feature)) {
+					attributeClasses.put((Attribute)feature, current);
+					worklist.add(feature);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Method that reaches the methods with the given name from a class and all its subclasses.
+	 * Every class is expanded only once for a name.
+	 */
+	private void reachOverrides(LCPLClass lcplClass, String methodName) {
+		LinkedList<LCPLClass> pending = new LinkedList<LCPLClass>();
+		pending.add(lcplClass);
+
+		while(!pending.isEmpty()) {
+			LCPLClass current = pending.removeFirst();
+
+			Set<String> expanded = expandedDispatches.get(current);
+			if(expanded == null) {
+				expanded = new HashSet<String>();
+				expandedDispatches.put(current, expanded);
+			}
+			if(!expanded.add(methodName)) {
+				continue;
+			}
+
+			for(Feature feature : current.getFeatures()) {
+				if(feature instanceof Method && ((Method)feature).getName().equals(methodName)) {
+					reach((Method)feature);
+				}
+			}
+			pending.addAll(hierarchy.getSubclasses(current));
+		}
+	}
+
+	private Method findMethod(LCPLClass lcplClass, String methodName) {
+		for(LCPLClass current = lcplClass; current != null; current = current.getParentData()) {
+			for(Feature feature : current.getFeatures()) {
+				if(feature instanceof Method && ((Method)feature).getName().equals(methodName)) {
+					return (Method)feature;
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Class that follows the references from a verified expression to methods and classes.
+	 */
+	private class ReferencesScanner extends LCPLTreeScanner {
+
+		@Override
+		protected void visitExpression(Expression expression) {
+			if(expression instanceof NewObject) {
+				if(expression.getTypeData() instanceof LCPLClass) {
+					instantiate((LCPLClass)expression.getTypeData());
+				}
+			}
+			else if(expression instanceof BaseDispatch) {
+				BaseDispatch dispatch = (BaseDispatch)expression;
+				Method method = dispatch.getMethod();
+				if(method == null) {
+					return;
+				}
+
+				reach(method);
+				if(!(dispatch instanceof StaticDispatch)) {
+					Type objectType = dispatch.getObject() == null ? null : dispatch.getObject().getTypeData();
+					LCPLClass receiver = objectType instanceof LCPLClass ? (LCPLClass)objectType : method.getParent();
+					reachOverrides(receiver, method.getName());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+import java.util.*;
+
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+/*
+ * Class that writes the analyzed program. The properties added by the optional passes are
+ * written only when they are set, so the output without those passes does not change.
+ */
+public class LCPLRepresenter extends Representer {
+
+	private static final Set<String> OPTIONAL_PROPERTIES = new HashSet<String>(Arrays.asList(
+		"devirtualizedMethod",
+		"vtableSlot", "offset", "vtable", "attributesCount"
+	));
+
+	@Override
+	protected NodeTuple representJavaBeanProperty(Object javaBean, Property property, Object propertyValue,
+			Tag customTag) {
+		if(propertyValue == null && OPTIONAL_PROPERTIES.contains(property.getName())) {
+			return null;
+		}
+		return super.representJavaBeanProperty(javaBean, property, propertyValue, customTag);
+	}
+}
@@ -1,38 +1,223 @@
 import java.io.*;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
 
 import ro.pub.cs.lcpl.*;
 
-import org.yaml.snakeyaml.*;
-import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 
 /*
  * Class which represents the entry point in the semantic analysis
  */
 public class LCPLSemant {
 
+	private static final String USAGE = "Usage: LCPLSemant [-profile] [-lazy] [-prune] [-fold] [-layout] [-precise-joins] [-devirtualize] [-load-threads <n>] [-nio] [-annotations | -json] [-heap-report] [-diagnostics <file.ndjson>] [-timeout <ms>] [-max-expressions <n>] [-max-hierarchy-depth <n>] [-ir <fileout.ir>] <filein.yaml> <fileout.yaml>\n";
+
 	public static void main(String[] args) {
-		if (args.length != 2)
+		boolean profile = false;
+		boolean lazy = false;
+		boolean prune = false;
+		boolean fold = false;
+		boolean devirtualize = false;
+		boolean layout = false;
+		boolean preciseJoins = false;
+		String irFile = null;
+		int loadThreads = 1;
+		boolean nio = false;
+		boolean annotations = false;
+		boolean json = false;
+		boolean heapReport = false;
+		String diagnosticsFile = null;
+		LCPLBudget budget = null;
+		
+		/* options come before the input and output files */
+		int argIndex = 0;
+		while (argIndex < args.length && args[argIndex].startsWith("-")) {
+			if (args[argIndex].equals("-profile")) {
+				profile = true;
+			}
+			else if (args[argIndex].equals("-lazy")) {
+				lazy = true;
+			}
+			else if (args[argIndex].equals("-prune")) {
+				prune = true;
+			}
+			else if (args[argIndex].equals("-fold")) {
+				fold = true;
+			}
+			else if (args[argIndex].equals("-layout")) {
+				layout = true;
+			}
+			else if (args[argIndex].equals("-precise-joins")) {
+				preciseJoins = true;
+			}
+			else if (args[argIndex].equals("-devirtualize")) {
+				devirtualize = true;
+			}
+			else if (args[argIndex].equals("-load-threads") && argIndex + 1 < args.length) {
+				loadThreads = Integer.parseInt(args[++argIndex]);
+			}
+			else if (args[argIndex].equals("-nio")) {
+				nio = true;
+			}
+			else if (args[argIndex].equals("-annotations")) {
+				annotations = true;
+			}
+			else if (args[argIndex].equals("-json")) {
+				json = true;
+			}
+			else if (args[argIndex].equals("-heap-report")) {
+				heapReport = true;
+			}
+			else if (args[argIndex].equals("-diagnostics") && argIndex + 1 < args.length) {
+				diagnosticsFile = args[++argIndex];
+			}
+			else if (args[argIndex].equals("-timeout") && argIndex + 1 < args.length) {
+				budget = budget == null ? new LCPLBudget() : budget;
+				budget.setTimeout(Long.parseLong(args[++argIndex]), TimeUnit.MILLISECONDS);
+			}
+			else if (args[argIndex].equals("-max-expressions") && argIndex + 1 < args.length) {
+				budget = budget == null ? new LCPLBudget() : budget;
+				budget.setMaxExpressions(Long.parseLong(args[++argIndex]));
+			}
+			else if (args[argIndex].equals("-max-hierarchy-depth") && argIndex + 1 < args.length) {
+				budget = budget == null ? new LCPLBudget() : budget;
+				budget.setMaxHierarchyDepth(Integer.parseInt(args[++argIndex]));
+			}
+			else if (args[argIndex].equals("-ir") && argIndex + 1 < args.length) {
+				irFile = args[++argIndex];
+			}
+			else {
+				System.err.println("Unknown option: " + args[argIndex]);
+				System.err.println(USAGE);
+				System.exit(1);
+			}
+			argIndex++;
+		}
+		if (annotations && json) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		if (annotations && fold) {
+			System.err.println("-annotations can not be used with -fold: the folded expressions are not in the input");
+			System.exit(1);
+		}
+		if (args.length - argIndex != 2)
 		{
-			System.err.println("Usage: LCPLSemant <filein.yaml> <fileout.yaml>\n");
+			System.err.println(USAGE);
 			System.exit(1);
 		}
+		String fileIn = args[argIndex];
+		String fileOut = args[argIndex + 1];
+		
 		try {
-			Yaml yaml = new Yaml(new Constructor(Program.class));
-			FileInputStream fis = new FileInputStream(args[0]);
-			Program p = (Program) yaml.load(fis);
-			fis.close();
+			LCPLProgramLoader loader;
+			if (loadThreads > 1) {
+				loader = new LCPLParallelLoader(loadThreads);
+			}
+			else {
+				loader = new LCPLYamlLoader();
+			}
+			Reader input;
+			if (nio) {
+				input = new LCPLMappedReader(new File(fileIn));
+			}
+			else {
+				input = new UnicodeReader(new FileInputStream(fileIn));
+			}
+			Program p = loader.load(input);
+			input.close();
+			new LCPLFreezer().freeze(p);
+			LCPLProgramEmitter emitter;
+			if (annotations) {
+				/* the nodes are numbered before the analysis adds its own */
+				emitter = new LCPLAnnotationEmitter(p);
+			}
+			else if (json) {
+				emitter = new LCPLJsonEmitter();
+			}
+			else {
+				emitter = new LCPLYamlEmitter();
+			}
+			/* the casts of the input are known before the analysis inserts its own */
+			LCPLHeapReport heap = heapReport ? new LCPLHeapReport(p) : null;
 
 			/* begin the semantic analysis */
 			LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+			sa.setLazy(lazy);
+			sa.setLayout(layout);
+			sa.setPreciseJoins(preciseJoins);
+			sa.setBudget(budget);
+			LCPLProfiler profiler = null;
+			if (profile) {
+				profiler = new LCPLProfiler();
+				sa.setProfiler(profiler);
+			}
+			LCPLException error = null;
 			try {
 				sa.startSemanticAnalysis();
+				
+				if (prune) {
+					LCPLDeadCodeEliminator dce = new LCPLDeadCodeEliminator(p, sa.getClassHierarchy());
+					dce.eliminate();
+					printPruned(dce);
+					if (layout) {
+						/* the removed methods leave holes in the vtables */
+						LCPLClassHierarchy hierarchy = new LCPLClassHierarchy(p.getClasses());
+						hierarchy.build();
+						LCPLLayout lcplLayout = new LCPLLayout(hierarchy.getOrderedClasses());
+						lcplLayout.assign();
+						lcplLayout.updateDispatches(p);
+					}
+				}
+				if (fold) {
+					LCPLConstantFolder cf = new LCPLConstantFolder(p);
+					cf.foldProgram();
+					System.err.println("Folded " + cf.getFoldedExpressions() + " constant expressions, "
+							+ "pooled " + cf.getPooledConstants() + " String constants into "
+							+ cf.getPoolSize() + " shared ones");
+				}
+				if (devirtualize) {
+					LCPLDevirtualizer dv = new LCPLDevirtualizer(p);
+					dv.devirtualize();
+					System.err.println("Devirtualized " + dv.getDevirtualizedSites() + " of "
+							+ dv.getDispatchSites() + " dynamic dispatch sites");
+				}
+				if (irFile != null) {
+					LCPLIRProgram ir = new LCPLLowering(p).lower();
+					FileOutputStream irOut = new FileOutputStream(irFile);
+					ir.write(irOut);
+					irOut.close();
+				}
 			} catch (LCPLException ex) {
 				System.out.println("Error in line " + ex.node.getLineNumber() + " : " + ex.message);
+				error = ex;
 			} 
-			Yaml yamlOut = new Yaml();
-			PrintStream fos = new PrintStream(new FileOutputStream(args[1]));
-			fos.println(yamlOut.dump(p));
-			fos.close();
+			if (diagnosticsFile != null) {
+				writeDiagnostics(diagnosticsFile, fileIn, error);
+			}
+			if (profiler != null) {
+				profiler.printReport(System.err);
+				sa.getMethodCache().printReport(System.err);
+			}
+			if (heap != null) {
+				heap.printReport(p, System.err);
+			}
+			if (lazy && !sa.getSkippedFeatures().isEmpty()) {
+				System.err.println("Skipped " + sa.getSkippedFeatures().size() + " bodies not reachable from Main.main:");
+				for (String feature : sa.getSkippedFeatures()) {
+					System.err.println("  " + feature);
+				}
+			}
+			Writer output;
+			if (nio) {
+				output = new LCPLChannelWriter(new File(fileOut), Charset.defaultCharset());
+			}
+			else {
+				output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileOut)));
+			}
+			emitter.emit(p, output);
+			output.close();
 		} catch (IOException ex) {
 			System.err.println("File error: " + ex.getMessage());
 			System.err.println("===================================================");
@@ -40,6 +225,34 @@ public class LCPLSemant {
 		
 	}
 
-	
+	/*
+	 * Method that writes the error of the analysis, if there is one, as a line of JSON. The
+	 * file is written, empty, also for a correct program.
+	 */
+	private static void writeDiagnostics(String file, String source, LCPLException error) throws IOException {
+		Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "US-ASCII"));
+		if (error != null) {
+			new LCPLDiagnosticWriter(output, source).write(LCPLDiagnostic.fromException(error));
+		}
+		output.close();
+	}
+
+	/*
+	 * Method that prints what the dead code elimination removed from the program.
+	 */
+	private static void printPruned(LCPLDeadCodeEliminator dce) {
+		System.err.println("Pruned " + dce.getRemovedClasses().size() + " classes, "
+				+ dce.getRemovedMethods().size() + " methods and "
+				+ dce.getRemovedInitializations().size() + " attribute initializations");
+		for (String lcplClass : dce.getRemovedClasses()) {
+			System.err.println("  class " + lcplClass);
+		}
+		for (String method : dce.getRemovedMethods()) {
+			System.err.println("  method " + method);
+		}
+		for (String attribute : dce.getRemovedInitializations()) {
+			System.err.println("  initialization " + attribute);
+		}
+	}
 
 }
@@ -1,10 +1,12 @@
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ro.pub.cs.lcpl.*;
 
 /*
- * Class which where are created the special types of classes: Object, IO, String, where are made the setups for the classes
- * and for every class uses LCPLFutureWalker objects to set up the attributes and the methods
+ * Class which adds to the program the special types of classes (Object, IO, String, from LCPLPrelude), where are made the
+ * setups for the classes and for every class uses LCPLFutureWalker objects to set up the attributes and the methods
  */
 public class LCPLSemanticAnalyzer {
 	
@@ -20,31 +22,175 @@ public class LCPLSemanticAnalyzer {
 	 * Map<className, classObject>
 	 */
 	private Map<String, LCPLClass> classes;
+	/*
+	 * Collects the expressions statistics, or null if the profiling mode is disabled.
+	 */
+	private LCPLProfiler profiler;
+	/*
+	 * The inheritance relations, available after the signatures of the classes are set.
+	 */
+	private LCPLClassHierarchy hierarchy;
+	/*
+	 * If true, only the methods bodies and the attributes reachable from Main.main are verified.
+	 */
+	private boolean lazy;
+	/*
+	 * If true, the vtables and the attributes offsets are computed after the signatures.
+	 */
+	private boolean layout;
+	/*
+	 * The features that were not verified in lazy mode, as "Class.feature (line n)".
+	 */
+	private List<String> skippedFeatures;
+	/*
+	 * If true, the built-in types are shared with the other analyses (LCPLPrelude.getShared).
+	 */
+	private boolean sharedPrelude;
+	private LCPLPrelude prelude;
+	/*
+	 * Runs the walking through the bodies of the classes, or null to walk them on this thread.
+	 */
+	private Executor executor;
+	/*
+	 * The limits of the analysis, or null if it has none.
+	 */
+	private LCPLBudget budget;
+	/*
+	 * The methods found for the dispatches, or null to look for them every time.
+	 */
+	private LCPLMethodCache methodCache;
+	/*
+	 * If true, the type of an if whose branches have different classes is their lowest common
+	 * ancestor, found in commonAncestors.
+	 */
+	private boolean preciseJoins;
+	private LCPLCommonAncestors commonAncestors;
 	
 	public LCPLSemanticAnalyzer(Program p) {
 		this.p 			 = p;
 		attributeSymbols = new LinkedHashMap<String, Map<String, Variable>>();
 		classes		 	 = new LinkedHashMap<String, LCPLClass>();
+		skippedFeatures	 = new ArrayList<String>();
+		methodCache		 = new LCPLMethodCache();
+	}
+	
+	/*
+	 * Enables the lazy mode: after the signatures of all the classes are set, only the methods
+	 * bodies and the attributes initializations reachable from Main.main are verified.
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+	
+	/*
+	 * Enables the layout stage: the vtable slots and the attributes offsets of every class
+	 * are computed after the signatures, and every dispatch gets the slot of its method.
+	 */
+	public void setLayout(boolean layout) {
+		this.layout = layout;
+	}
+	
+	/*
+	 * Enables the precise joins: an if whose branches have classes that do not inherit each
+	 * other gets the type of their lowest common ancestor instead of (none).
+	 */
+	public void setPreciseJoins(boolean preciseJoins) {
+		this.preciseJoins = preciseJoins;
+	}
+	
+	/*
+	 * Uses the shared built-in classes (LCPLPrelude.getShared) instead of new ones. The
+	 * analysis only reads them, so analyses of different programs that run at the same time
+	 * can share them; the output is the same.
+	 */
+	public void setSharedPrelude(boolean sharedPrelude) {
+		this.sharedPrelude = sharedPrelude;
+	}
+	
+	/*
+	 * Walks through the attributes and the methods bodies of every class as a task of the
+	 * executor. The bodies of a class only change the nodes of that class, so the classes are
+	 * independent once their signatures are set. The error reported is the one of the first
+	 * class in the program, as on a single thread. The profiling and the lazy mode walk on the
+	 * calling thread.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+	
+	/*
+	 * Sets the limits of the analysis: it stops with an LCPLBudgetExceededException when it is
+	 * cancelled, when its timeout passes, after too many expressions or at a class too deep in
+	 * the hierarchy. The timeout starts with the analysis, if it was not started before.
+	 */
+	public void setBudget(LCPLBudget budget) {
+		this.budget = budget;
+	}
+	
+	/*
+	 * Sets the cache of the methods found for the dispatches, or null to disable it. By default
+	 * every analysis has its own.
+	 */
+	public void setMethodCache(LCPLMethodCache methodCache) {
+		this.methodCache = methodCache;
+	}
+	
+	public LCPLMethodCache getMethodCache() {
+		return methodCache;
+	}
+	
+	public List<String> getSkippedFeatures() {
+		return skippedFeatures;
+	}
+	
+	/*
+	 * Enables the profiling mode for the walking through the methods bodies and attributes.
+	 */
+	public void setProfiler(LCPLProfiler profiler) {
+		this.profiler = profiler;
+	}
+	
+	/*
+	 * The inheritance relations of the program, or null if the analysis did not get past
+	 * the verification of the parent loops.
+	 */
+	public LCPLClassHierarchy getClassHierarchy() {
+		return hierarchy;
 	}
 	
 	/*
 	 * Method where the semantic analysis begins.
 	 */
 	public void startSemanticAnalysis() throws LCPLException {
-		setAllObjects();
-		
-		verifyClassesNames();
+		if(budget != null) {
+			budget.start();
+			budget.check(p);
+		}
+		LCPLPhaseEvent phase = LCPLPhaseEvent.start("builtins");
+		prelude = sharedPrelude ? LCPLPrelude.getShared(layout) : new LCPLPrelude();
+		prelude.install(p);
+		phase.finish();
+		
+		phase = LCPLPhaseEvent.start("classNames");
+		try {
+			registerClasses();
+		} finally {
+			phase.finish();
+		}
 		/* verify if the program contains the Main class */
 		if(!classes.containsKey(LCPLConstants.CLASSMAIN)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.classNotFoundMessage(LCPLConstants.CLASSMAIN);
-			throw new LCPLException(message, p);
+			throw new LCPLDiagnosticException(eb, message, p);
 		}
 		
-		List<LCPLClass> classesList = p.getClasses();
+		/* a new list, the loaded one may not grow */
+		List<LCPLClass> classesList = new ArrayList<LCPLClass>(p.getClasses().size() + 3);
+		classesList.addAll(p.getClasses());
 		classesList.add(p.getObjectType());
 		classesList.add(p.getIoType());
 		classesList.add(p.getStringType());
+		p.setClasses(classesList);
 			
 		walkThroughClasses();
 		
@@ -54,19 +200,24 @@ public class LCPLSemanticAnalyzer {
 		if(!containsMainClass(mainClass)) {
 			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 			String message = eb.methodNotFoundMessage(LCPLConstants.METHODMAIN, LCPLConstants.CLASSMAIN);
-			throw new LCPLException(message, mainClass);
+			throw new LCPLDiagnosticException(eb, message, mainClass);
 		}
 	}
 	
 	/*
-	 * Method that verifies if a class is already defined.
+	 * Method that saves all the classes, the special ones included, by name and verifies
+	 * if a class is already defined.
 	 */
-	private void verifyClassesNames() throws LCPLException {
+	private void registerClasses() throws LCPLException {
+		classes.put(p.getObjectType().getName(), p.getObjectType());
+		classes.put(p.getIoType().getName(), p.getIoType());
+		classes.put(p.getStringType().getName(), p.getStringType());
+		
 		for(LCPLClass lcplClass : p.getClasses()) {
 			if(classes.containsKey(lcplClass.getName())) {
 				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
 				String message = eb.classAlreadyExistsMessage(lcplClass.getName());
-				throw new LCPLException(message, lcplClass);
+				throw new LCPLDiagnosticException(eb, message, lcplClass);
 			}
 			classes.put(lcplClass.getName(), lcplClass);
 		}
@@ -77,210 +228,260 @@ public class LCPLSemanticAnalyzer {
 	 */
 	private void walkThroughClasses() throws LCPLException {
 		/* first set class properties, attributes and methods signatures */
-		for(LCPLClass lcplClass : p.getClasses()) {
-			String name = lcplClass.getName();
-			if(name.equals(p.getIoType().getName()) 
-					|| name.equals(p.getObjectType().getName()) 
-					|| name.equals(p.getStringType().getName())) {
-				continue;
+		LCPLPhaseEvent phase = LCPLPhaseEvent.start("signatures");
+		try {
+			for(LCPLClass lcplClass : p.getClasses()) {
+				String name = lcplClass.getName();
+				if(name.equals(p.getIoType().getName()) 
+						|| name.equals(p.getObjectType().getName()) 
+						|| name.equals(p.getStringType().getName())) {
+					continue;
+				}
+				
+				if(budget != null) {
+					budget.check(lcplClass);
+				}
+				setClassProperties(lcplClass);
+				
+				LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, classes, attributeSymbols);
+				fw.makeSuperficialWalking();
 			}
-			
-			setClassProperties(lcplClass);
-			
-			LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, attributeSymbols);
-			fw.makeSuperficialWalking();
+		} finally {
+			phase.finish();
 		}
 		
-		/* verify parent loop */
-		for(LCPLClass lcplClass : p.getClasses()) {
-			if(parentLoop(lcplClass, lcplClass.getParentData())) {
-				LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-				String message = eb.classRecursivelyInheritsItself(lcplClass.getName());
-				throw new LCPLException(message, lcplClass);
+		/* verify parent loop and sort the classes with the parents first */
+		phase = LCPLPhaseEvent.start("inheritance");
+		try {
+			hierarchy = new LCPLClassHierarchy(p.getClasses());
+			hierarchy.build();
+			if(budget != null) {
+				budget.checkHierarchy(hierarchy);
+			}
+			if(preciseJoins) {
+				commonAncestors = new LCPLCommonAncestors(hierarchy);
+			}
+		} finally {
+			phase.finish();
+		}
+		
+		/* the slots are needed before the bodies, which copy them into the dispatches */
+		if(layout) {
+			phase = LCPLPhaseEvent.start("layout");
+			try {
+				List<LCPLClass> orderedClasses = hierarchy.getOrderedClasses();
+				if(sharedPrelude) {
+					/* the shared built-in classes already have their layout */
+					orderedClasses = new ArrayList<LCPLClass>(orderedClasses);
+					orderedClasses.removeAll(prelude.getClasses());
+				}
+				new LCPLLayout(orderedClasses).assign();
+			} finally {
+				phase.finish();
 			}
 		}
 		
 		/* then set the methods */
-		for(LCPLClass lcplClass : p.getClasses()) {
-			String name = lcplClass.getName();
-			if(name.equals(p.getIoType().getName()) 
-					|| name.equals(p.getObjectType().getName()) 
-					|| name.equals(p.getStringType().getName())) {
-				continue;
+		phase = LCPLPhaseEvent.start("bodies");
+		try {
+			if(lazy) {
+				walkThroughReachableFeatures();
+				return;
+			}
+			if(executor != null && profiler == null) {
+				walkThroughBodiesInParallel();
+				return;
+			}
+			for(LCPLClass lcplClass : p.getClasses()) {
+				if(!isSpecialClass(lcplClass)) {
+					walkThroughBodies(lcplClass);
+				}
 			}
-			LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, attributeSymbols);
-			fw.walkthroughFutures();
+		} finally {
+			phase.finish();
 		}
 		
 	}
 	
 	/*
-	 * Method that sets up the properties for a class.
+	 * Method that walks through the attributes initializations and the methods bodies of a class.
 	 */
-	private void setClassProperties(LCPLClass lcplClass) throws LCPLException {
-		
-		Map<String, Variable> classAttributes = new LinkedHashMap<String, Variable>();
-		attributeSymbols.put(lcplClass.getName(), classAttributes);
-
-		LCPLClass parentClass = null;
-		/* if doesn't inherit any class, than its parent will be Object */
-		if(lcplClass.getParent() == null) {
-			parentClass = p.getObjectType();
+	private void walkThroughBodies(LCPLClass lcplClass) throws LCPLException {
+		LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, classes, attributeSymbols);
+		fw.setProfiler(profiler);
+		fw.setBudget(budget);
+		fw.setMethodCache(methodCache);
+		fw.setCommonAncestors(commonAncestors);
+		
+		LCPLClassCheckEvent event = new LCPLClassCheckEvent();
+		event.begin();
+		fw.walkthroughFutures();
+		if(event.shouldCommit()) {
+			event.className = lcplClass.getName();
+			event.nodeCount = fw.getVisitedExpressions();
+			event.commit();
 		}
-		else if(lcplClass.getParent().equals(p.getIoType().getName())) {
-			parentClass = p.getIoType();
+	}
+	
+	/*
+	 * Method that walks through the bodies of every class as a task of the executor and waits
+	 * for all of them. After a class fails, the classes that come after it are not walked any
+	 * more, but the ones before it are, so the error is the same as on a single thread.
+	 */
+	private void walkThroughBodiesInParallel() throws LCPLException {
+		final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+		List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+		for(LCPLClass lcplClass : p.getClasses()) {
+			if(isSpecialClass(lcplClass)) {
+				continue;
+			}
+			final LCPLClass taskClass = lcplClass;
+			final int index = tasks.size();
+			FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+				public Void call() throws Exception {
+					if(index > firstFailure.get()) {
+						return null;
+					}
+					try {
+						walkThroughBodies(taskClass);
+					} catch (Exception ex) {
+						lowerTo(firstFailure, index);
+						throw ex;
+					} catch (Error ex) {
+						lowerTo(firstFailure, index);
+						throw ex;
+					}
+					return null;
+				}
+			});
+			tasks.add(task);
+			try {
+				executor.execute(task);
+			} catch (RejectedExecutionException ex) {
+				task.run();
+			}
 		}
-		/* else, search for the class */
-		else {
-			for(LCPLClass possibleParent : p.getClasses()) {
-				if(lcplClass.getParent().equals(possibleParent.getName())) {
-					parentClass = possibleParent;
+		
+		Throwable error = null;
+		boolean interrupted = false;
+		for(FutureTask<Void> task : tasks) {
+			/* every task is waited for, so none changes the program after the analysis returns */
+			while(true) {
+				try {
+					task.get();
+					break;
+				} catch (ExecutionException ex) {
+					if(error == null) {
+						error = ex.getCause();
+					}
 					break;
+				} catch (InterruptedException ex) {
+					interrupted = true;
 				}
 			}
 		}
-		
-		/* if the parent class doesn't exist */
-		if(parentClass == null) {
-			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-			String message = eb.classNotFoundMessage(lcplClass.getParent());
-			throw new LCPLException(message, lcplClass);
+		if(interrupted) {
+			Thread.currentThread().interrupt();
 		}
-		
-		if(parentClass.getName().equals(p.getStringType().getName())) {
-			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
-			String message = eb.aClassCanNotInheritAString();
-			throw new LCPLException(message, lcplClass);
+		if(error instanceof LCPLException) {
+			throw (LCPLException)error;
+		}
+		if(error instanceof RuntimeException) {
+			throw (RuntimeException)error;
+		}
+		if(error instanceof Error) {
+			throw (Error)error;
 		}
-		
-		lcplClass.setParent(parentClass.getName());
-		lcplClass.setParentData(parentClass);
 	}
 	
-	/*
-	 * Method that sets up the special classes from lcpl language.
-	 */
-	private void setAllObjects() {
-		p.setIntType(new IntType());
-		p.setNoType(new NoType());
-		p.setNullType(new NullType());
-		
-		LCPLClass object = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.OBJECT, null, new ArrayList<Feature>());
-		p.setObjectType(object);
-		
-		LCPLClass string = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.STRING, p.getObjectType().getName(), new ArrayList<Feature>());
-		string.setParentData(p.getObjectType());
-		p.setStringType(string);
-		
-		LCPLClass io = new LCPLClass(LCPLConstants.ZERO, LCPLConstants.IO, p.getObjectType().getName(), new ArrayList<Feature>());
-		io.setParentData(p.getObjectType());
-		p.setIoType(io);
-		
-		setStringClassFeatures();
-		setIOClassFeatures();
-		setObjectClassFeatures();
+	private static void lowerTo(AtomicInteger value, int newValue) {
+		int current = value.get();
+		while(newValue < current && !value.compareAndSet(current, newValue)) {
+			current = value.get();
+		}
 	}
 	
-	/*
-	 * Method that sets up the Object class futures.
-	 */
-	private void setObjectClassFeatures() {		
-		FormalParam self; 
-		
-		/* abort */
-		Feature abort = new Method(LCPLConstants.ZERO, LCPLConstants.ABORT, new ArrayList<FormalParam>(), LCPLConstants.VOID, null);
-		((Method)abort).setParent(p.getObjectType());
-		((Method)abort).setReturnTypeData(p.getNoType());
-		
-		self = new FormalParam(LCPLConstants.SELF, p.getObjectType().getName());
-		self.setVariableType(p.getObjectType());
-		((Method)abort).setSelf(self);
-		
-		p.getObjectType().getFeatures().add(abort);
-		
-		/* typeName */
-		Feature typeName = new Method(LCPLConstants.ZERO, LCPLConstants.TYPENAME, new ArrayList<FormalParam>(), LCPLConstants.STRING, null);
-		((Method)typeName).setParent(p.getObjectType());
-		((Method)typeName).setReturnTypeData(p.getStringType());
-		
-		self = new FormalParam(LCPLConstants.SELF, p.getObjectType().getName());
-		self.setVariableType(p.getObjectType());
-		((Method)typeName).setSelf(self);
-		
-		p.getObjectType().getFeatures().add(typeName);
-		
-		/* copy */
-		Feature copy = new Method(LCPLConstants.ZERO, LCPLConstants.COPY, new ArrayList<FormalParam>(), LCPLConstants.OBJECT, null);
-		((Method)copy).setParent(p.getObjectType());
-		((Method)copy).setReturnTypeData(p.getObjectType());
-		
-		self = new FormalParam(LCPLConstants.SELF, p.getObjectType().getName());
-		self.setVariableType(p.getObjectType());
-		((Method)copy).setSelf(self);
-
-		p.getObjectType().getFeatures().add(copy);
+	private boolean isSpecialClass(LCPLClass lcplClass) {
+		String name = lcplClass.getName();
+		return name.equals(p.getIoType().getName()) 
+				|| name.equals(p.getObjectType().getName()) 
+				|| name.equals(p.getStringType().getName());
 	}
+	
 	/*
-	 * Method that sets up the String class futures.
+	 * Method that verifies only the methods bodies and the attributes initializations that can
+	 * be executed starting from Main.main. The other ones are saved as skipped, but their
+	 * signatures are verified against the parents.
 	 */
-	private void setStringClassFeatures() {
-		FormalParam self;
-		
-		/* length */ 
-		Feature length = new Method(LCPLConstants.ZERO, LCPLConstants.LENGTH, new ArrayList<FormalParam>(), p.getIntType().getName(), null);
-		((Method)length).setParent(p.getStringType());
-		((Method)length).setReturnTypeData(p.getIntType());
-		
-		self = new FormalParam(LCPLConstants.SELF, p.getStringType().getName());
-		self.setVariableType(p.getStringType());
-		((Method)length).setSelf(self);
-		
-		p.getStringType().getFeatures().add(length);
-
-		/* toInt */
-		Feature toInt = new Method(LCPLConstants.ZERO, LCPLConstants.TOINT, new ArrayList<FormalParam>(), p.getIntType().getName(), null);
-		((Method)toInt).setParent(p.getStringType());
-		((Method)toInt).setReturnTypeData(p.getIntType());
+	private void walkThroughReachableFeatures() throws LCPLException {
+		/* the features walked through, which verified themselves against the parents */
+		final Set<Feature> walkedFeatures = new HashSet<Feature>();
+		LCPLReachability reachability = new LCPLReachability(p, classes, hierarchy) {
+			@Override
+			protected void visitMethod(Method method) throws LCPLException {
+				LCPLFuturesWalker fw = new LCPLFuturesWalker(p, method.getParent(), classes, attributeSymbols);
+				fw.setProfiler(profiler);
+				fw.setBudget(budget);
+				fw.setMethodCache(methodCache);
+				fw.setCommonAncestors(commonAncestors);
+				walkedFeatures.add(method);
+				fw.walkThroughMethodBody(method);
+			}
+			
+			@Override
+			protected void visitAttribute(Attribute attribute, LCPLClass lcplClass) throws LCPLException {
+				LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, classes, attributeSymbols);
+				fw.setProfiler(profiler);
+				fw.setBudget(budget);
+				fw.setMethodCache(methodCache);
+				fw.setCommonAncestors(commonAncestors);
+				walkedFeatures.add(attribute);
+				fw.walkThroughAttribute(attribute);
+			}
+		};
+		reachability.run();
 		
-		self = new FormalParam(LCPLConstants.SELF, p.getStringType().getName());
-		self.setVariableType(p.getStringType());
-		((Method)toInt).setSelf(self);
+		/* the signatures of the skipped features are verified all the same */
+		for(LCPLClass lcplClass : p.getClasses()) {
+			if(!isSpecialClass(lcplClass)) {
+				LCPLFuturesWalker fw = new LCPLFuturesWalker(p, lcplClass, classes, attributeSymbols);
+				fw.verifyInheritedFeatures(walkedFeatures);
+			}
+		}
 		
-		p.getStringType().getFeatures().add(toInt);
+		skippedFeatures = reachability.getUnreachedFeatures();
 	}
 	
 	/*
-	 *  Methods that set up the IO class futures 
+	 * Method that sets up the properties for a class.
 	 */
-	private void setIOClassFeatures() {
-		FormalParam self;
-		
-		/* out */
-		FormalParam outParam = new FormalParam(LCPLConstants.MSG, p.getStringType().getName());
-		outParam.setVariableType(p.getStringType());
-		List<FormalParam> outParams = new ArrayList<FormalParam>();
-		outParams.add(outParam);
-		
-		Feature out = new Method(LCPLConstants.ZERO, LCPLConstants.OUT, outParams, p.getIoType().getName(), null);
-		((Method)out).setParent(p.getIoType());
-		((Method)out).setReturnTypeData(p.getIoType());
+	private void setClassProperties(LCPLClass lcplClass) throws LCPLException {
 		
-		self = new FormalParam(LCPLConstants.SELF, p.getIoType().getName());
-		self.setVariableType(p.getIoType());
-		((Method)out).setSelf(self);
+		Map<String, Variable> classAttributes = new LinkedHashMap<String, Variable>();
+		attributeSymbols.put(lcplClass.getName(), classAttributes);
+
+		/* if doesn't inherit any class, than its parent will be Object */
+		String parentName = lcplClass.getParent();
+		if(parentName == null) {
+			parentName = p.getObjectType().getName();
+		}
+		LCPLClass parentClass = classes.get(parentName);
 		
-		p.getIoType().getFeatures().add(out);
+		/* if the parent class doesn't exist */
+		if(parentClass == null) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.classNotFoundMessage(lcplClass.getParent());
+			throw new LCPLDiagnosticException(eb, message, lcplClass);
+		}
 		
-		/* in */	
-		Feature in = new Method(LCPLConstants.ZERO, LCPLConstants.IN, new ArrayList<FormalParam>(), p.getStringType().getName(), null);
-		((Method)in).setParent(p.getIoType());
-		((Method)in).setReturnTypeData(p.getStringType());
+		if(parentClass.getName().equals(p.getStringType().getName())) {
+			LCPLExceptionsBuilder eb = new LCPLExceptionsBuilder();
+			String message = eb.aClassCanNotInheritAString();
+			throw new LCPLDiagnosticException(eb, message, lcplClass);
+		}
 		
-		self = new FormalParam(LCPLConstants.SELF, p.getIoType().getName());
-		self.setVariableType(p.getIoType());
-		((Method)in).setSelf(self);
-	
-		p.getIoType().getFeatures().add(in);
+		lcplClass.setParent(parentClass.getName());
+		lcplClass.setParentData(parentClass);
 	}
 	
 	/*
@@ -300,19 +501,4 @@ public class LCPLSemanticAnalyzer {
 		
 		return containsMainClass(lcplClass.getParentData());
 	}
-	/*
-	 * Method that verifies of a class inherits itself through a inheriting loop.
-	 */
-	private boolean parentLoop(LCPLClass lcplClass, LCPLClass parentClass) {
-		if(parentClass == null) {
-			return false;
-		}
-		
-		if(lcplClass.getName().equals(parentClass.getName())) {
-			return true;
-		}
-		
-		return parentLoop(lcplClass, parentClass.getParentData());
-	}
-	
 }
@@ -0,0 +1,84 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that walks through the expressions of a program in pre-order and calls visitExpression
+ * for every one of them. It does not verify or change anything, the subclasses decide what to
+ * do with the expressions.
+ */
+public abstract class LCPLTreeScanner {
+
+	/*
+	 * Method called for every expression, before its subexpressions.
+	 */
+	protected abstract void visitExpression(Expression expression);
+
+	/*
+	 * Method that scans the attributes initializations and the methods bodies of a class.
+	 */
+	public void scanClass(LCPLClass lcplClass) {
+		for(Feature feature : lcplClass.getFeatures()) {
+			if(feature instanceof Attribute) {
+				scanExpression(((Attribute)feature).getInit());
+			}
+			else if(feature instanceof Method) {
+				scanExpression(((Method)feature).getBody());
+			}
+		}
+	}
+
+	/*
+	 * Method that scans an expression and all its subexpressions.
+	 */
+	public void scanExpression(Expression expression) {
+		if(expression == null) {
+			return;
+		}
+
+		visitExpression(expression);
+
+		if(expression instanceof Block) {
+			for(Expression e : ((Block)expression).getExpressions()) {
+				scanExpression(e);
+			}
+		}
+		else if(expression instanceof LocalDefinition) {
+			scanExpression(((LocalDefinition)expression).getInit());
+			scanExpression(((LocalDefinition)expression).getScope());
+		}
+		else if(expression instanceof BaseDispatch) {
+			scanExpression(((BaseDispatch)expression).getObject());
+			for(Expression e : ((BaseDispatch)expression).getArguments()) {
+				scanExpression(e);
+			}
+		}
+		else if(expression instanceof IfStatement) {
+			scanExpression(((IfStatement)expression).getCondition());
+			scanExpression(((IfStatement)expression).getIfExpr());
+			scanExpression(((IfStatement)expression).getThenExpr());
+		}
+		else if(expression instanceof WhileStatement) {
+			scanExpression(((WhileStatement)expression).getCondition());
+			scanExpression(((WhileStatement)expression).getLoopBody());
+		}
+		else if(expression instanceof Cast) {
+			scanExpression(((Cast)expression).getE1());
+		}
+		else if(expression instanceof SubString) {
+			scanExpression(((SubString)expression).getStringExpr());
+			scanExpression(((SubString)expression).getStartPosition());
+			scanExpression(((SubString)expression).getEndPosition());
+		}
+		else if(expression instanceof Assignment) {
+			scanExpression(((Assignment)expression).getE1());
+		}
+		else if(expression instanceof BinaryOp) {
+			scanExpression(((BinaryOp)expression).getE1());
+			scanExpression(((BinaryOp)expression).getE2());
+		}
+		else if(expression instanceof UnaryOp) {
+			scanExpression(((UnaryOp)expression).getE1());
+		}
+	}
+}
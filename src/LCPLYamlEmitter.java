@@ -0,0 +1,25 @@
+import java.io.*;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.representer.Representer;
+
+import ro.pub.cs.lcpl.Program;
+
+/*
+ * Class that writes the program as YAML, followed by an empty line like the output always had.
+ */
+public class LCPLYamlEmitter implements LCPLProgramEmitter {
+
+	public void emit(Program p, Writer output) throws IOException {
+		Yaml yaml = new Yaml(createRepresenter());
+		yaml.dump(p, output);
+		output.write(System.lineSeparator());
+	}
+
+	/*
+	 * The representer of the nodes of the program, for a subclass that needs its own.
+	 */
+	protected Representer createRepresenter() {
+		return new LCPLRepresenter();
+	}
+}
@@ -0,0 +1,24 @@
+import java.io.*;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import ro.pub.cs.lcpl.Program;
+
+/*
+ * Class that loads the whole program with a single SnakeYAML parser.
+ */
+public class LCPLYamlLoader implements LCPLProgramLoader {
+
+	public Program load(Reader input) throws IOException {
+		Yaml yaml = new Yaml(createConstructor());
+		return (Program) yaml.load(input);
+	}
+
+	/*
+	 * The constructor of the objects of the program, for a subclass that needs its own.
+	 */
+	protected Constructor createConstructor() {
+		return new Constructor(Program.class);
+	}
+}
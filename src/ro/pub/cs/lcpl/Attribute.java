@@ -29,6 +29,10 @@ public class Attribute extends TreeNode implements Feature, Variable {
 	 *   
 	 * Create here a formal parameter that will be the target of this binding. */	
 	private FormalParam attrInitSelf;
+	
+	/** The position of the attribute in the objects of its class: the attributes of the
+	 * parent come first. Set only by the layout stage, null otherwise. */
+	private Integer offset;
 
 	public Type getTypeData() {
 		return typeData;
@@ -61,6 +65,12 @@ public class Attribute extends TreeNode implements Feature, Variable {
 	public void setAttrInitSelf(FormalParam attrInitSelf) {
 		this.attrInitSelf = attrInitSelf;
 	}
+	public Integer getOffset() {
+		return offset;
+	}
+	public void setOffset(Integer offset) {
+		this.offset = offset;
+	}
 	public Attribute(int lineNumber, String name, String type, Expression init) {
 		super(lineNumber);
 		this.name = name;
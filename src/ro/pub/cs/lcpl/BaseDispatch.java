@@ -21,6 +21,10 @@ public class BaseDispatch extends Expression {
 	 *  */
 	private Method method;
 	
+	/** The vtable slot of the invoked method, copied from the method when it is resolved.
+	 * Set only if the layout stage ran, null otherwise. */
+	private Integer vtableSlot;
+	
 	public Expression getObject() {
 		return object;
 	}
@@ -39,6 +43,12 @@ public class BaseDispatch extends Expression {
 	public void setMethod(Method method) {
 		this.method = method;
 	}
+	public Integer getVtableSlot() {
+		return vtableSlot;
+	}
+	public void setVtableSlot(Integer vtableSlot) {
+		this.vtableSlot = vtableSlot;
+	}
 	public List<Expression> getArguments() {
 		return arguments;
 	}
@@ -6,6 +6,12 @@ import java.util.List;
  * [<i>object</i>.<i>name</i> <i>expression</i> , ... ]
  */
 public class Dispatch extends BaseDispatch {
+	/** The only method that the dispatch can invoke at runtime, found by the class hierarchy
+	 * analysis over the whole program, or null if the dispatch is polymorphic or it was not
+	 * devirtualized. A backend may call this method directly.
+	 */
+	private Method devirtualizedMethod;
+	
 	public Dispatch(int lineNumber, Expression object, String name,
 			List<Expression> arguments) {
 		setLineNumber(lineNumber);
@@ -15,5 +21,11 @@ public class Dispatch extends BaseDispatch {
 	}
 	public Dispatch() {}
 	
+	public Method getDevirtualizedMethod() {
+		return devirtualizedMethod;
+	}
+	public void setDevirtualizedMethod(Method devirtualizedMethod) {
+		this.devirtualizedMethod = devirtualizedMethod;
+	}
 
 }
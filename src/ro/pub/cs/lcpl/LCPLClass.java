@@ -16,6 +16,14 @@ public class LCPLClass extends TreeNode implements Type {
 	/** A reference to the superclass of this class, or "null" for the class hierarchy root (Object) */
 	private LCPLClass parentData;
 	
+	/** The virtual method table: the method invoked for every slot on an object of this class.
+	 * Set only by the layout stage, null otherwise. */
+	private List<Method> vtable;
+	
+	/** The number of attributes of an object of this class, inherited ones included.
+	 * Set only by the layout stage, null otherwise. */
+	private Integer attributesCount;
+	
 	public String getName() {
 		return name;
 	}
@@ -34,6 +42,18 @@ public class LCPLClass extends TreeNode implements Type {
 	public void setParentData(LCPLClass parentData) {
 		this.parentData = parentData;
 	}
+	public List<Method> getVtable() {
+		return vtable;
+	}
+	public void setVtable(List<Method> vtable) {
+		this.vtable = vtable;
+	}
+	public Integer getAttributesCount() {
+		return attributesCount;
+	}
+	public void setAttributesCount(Integer attributesCount) {
+		this.attributesCount = attributesCount;
+	}
 	public List<Feature> getFeatures() {
 		return features;
 	}
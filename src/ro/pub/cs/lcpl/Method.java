@@ -30,6 +30,10 @@ public class Method extends TreeNode implements Feature {
 	 * <li> An LCPLClass - for class parameters
 	 * <li> Program.noType - for methods that do not return any type */
 	private Type returnTypeData;	
+	
+	/** The slot of the method in the virtual method table of its class. An override has the
+	 * slot of the overridden method. Set only by the layout stage, null otherwise. */
+	private Integer vtableSlot;
 
 	public String getName() {
 		return name;
@@ -67,6 +71,12 @@ public class Method extends TreeNode implements Feature {
 	public void setReturnTypeData(Type returnTypeData) {
 		this.returnTypeData = returnTypeData;
 	}
+	public Integer getVtableSlot() {
+		return vtableSlot;
+	}
+	public void setVtableSlot(Integer vtableSlot) {
+		this.vtableSlot = vtableSlot;
+	}
 	public Expression getBody() {
 		return body;
 	}
@@ -0,0 +1,255 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Concurrency stress test of LCPLAnalysisService. A corpus of generated programs, correct ones
+ * and mutations with errors (LCPLMutator), is analyzed first on a single thread the way
+ * LCPLSemant does it, for every set of options (plain, -layout, -lazy). Then many threads
+ * analyze the same Program objects at the same time through shared services, with and without
+ * a shared executor, and every result must be the same as the single thread one: the JSON of
+ * the analyzed program or the error. At the end the input programs and the shared built-in
+ * classes must be unchanged.
+ *
+ * The exit status is 1 if any result differed.
+ *
+ * Usage: LCPLAnalysisStress [-threads n] [-executor-threads n] [-seconds s] [-seed s]
+ */
+public class LCPLAnalysisStress {
+
+	private static final int MUTANTS = 24;
+	private static final int REPORTED_MISMATCHES = 10;
+
+	private static final boolean[][] OPTIONS = {
+		/* lazy, layout */
+		{ false, false },
+		{ false, true },
+		{ true, false },
+	};
+
+	private List<String> names = new ArrayList<String>();
+	private List<Program> inputs = new ArrayList<Program>();
+	private List<String> inputFingerprints = new ArrayList<String>();
+	/* the expected outcome of every program with every set of options */
+	private List<String[]> expected = new ArrayList<String[]>();
+
+	private AtomicLong analyses = new AtomicLong();
+	private AtomicLong mismatches = new AtomicLong();
+
+	public static void main(String[] args) throws Exception {
+		int threads = 8;
+		int executorThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		long seconds = 30;
+		long seed = 1;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("-executor-threads") && i + 1 < args.length) {
+				executorThreads = Integer.parseInt(args[++i]);
+			}
+			else if(args[i].equals("-seconds") && i + 1 < args.length) {
+				seconds = Long.parseLong(args[++i]);
+			}
+			else if(args[i].equals("-seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			}
+			else {
+				System.err.println("Usage: LCPLAnalysisStress [-threads n] [-executor-threads n] [-seconds s] [-seed s]");
+				System.exit(2);
+			}
+		}
+
+		LCPLAnalysisStress stress = new LCPLAnalysisStress();
+		stress.buildCorpus(seed);
+		boolean ok = stress.run(threads, executorThreads, seconds, seed);
+		System.exit(ok ? 0 : 1);
+	}
+
+	private void buildCorpus(long seed) throws IOException {
+		LCPLProgramGenerator generator = new LCPLProgramGenerator(seed);
+		List<Program> programs = new ArrayList<Program>();
+		programs.add(generator.wideProgram(60));
+		programs.add(generator.deepProgram(20));
+		programs.add(generator.libraryProgram(12, 6, 8));
+		programs.add(generator.manyParametersProgram(8));
+		for(int i = 0; i < programs.size(); i++) {
+			add("generated-" + i, LCPLProgramGenerator.toYaml(programs.get(i)));
+		}
+
+		/* the mutations give programs with errors in any class, the crashes of the analyzer are left out */
+		Random random = new Random(seed);
+		int attempts = 0;
+		while(names.size() < programs.size() + MUTANTS && attempts++ < MUTANTS * 20) {
+			int index = random.nextInt(programs.size());
+			Program mutant = LCPLCompactProgram.fromProgram(programs.get(index)).toProgram();
+			new LCPLMutator(mutant).mutate(random);
+			add("mutant-" + index + "-" + attempts, LCPLProgramGenerator.toYaml(mutant));
+		}
+	}
+
+	private void add(String name, String yaml) throws IOException {
+		String[] outcomes = new String[OPTIONS.length];
+		for(int i = 0; i < OPTIONS.length; i++) {
+			outcomes[i] = referenceOutcome(yaml, OPTIONS[i][0], OPTIONS[i][1]);
+			if(outcomes[i] == null) {
+				return;
+			}
+		}
+		Program input = new LCPLYamlLoader().load(new StringReader(yaml));
+		names.add(name);
+		inputs.add(input);
+		inputFingerprints.add(json(input));
+		expected.add(outcomes);
+	}
+
+	/*
+	 * Method that analyzes a program on this thread, as LCPLSemant does, and returns the JSON of
+	 * the analyzed program, the error, or null if the analyzer crashes.
+	 */
+	private static String referenceOutcome(String yaml, boolean lazy, boolean layout) throws IOException {
+		Program p = new LCPLYamlLoader().load(new StringReader(yaml));
+		new LCPLFreezer().freeze(p);
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+		sa.setLazy(lazy);
+		sa.setLayout(layout);
+		try {
+			sa.startSemanticAnalysis();
+		} catch (LCPLException ex) {
+			return error(ex);
+		} catch (RuntimeException ex) {
+			return null;
+		}
+		return json(p);
+	}
+
+	private boolean run(int threads, int executorThreads, long seconds, final long seed) throws Exception {
+		final String preludeFingerprint = fingerprint(LCPLPrelude.getShared(false));
+		final String layoutPreludeFingerprint = fingerprint(LCPLPrelude.getShared(true));
+		int errors = 0;
+		for(String[] outcomes : expected) {
+			errors += outcomes[0].startsWith("error") ? 1 : 0;
+		}
+		System.out.println(names.size() + " programs (" + errors + " with errors), " + threads + " threads, "
+				+ executorThreads + " executor threads, " + seconds + " s");
+
+		ExecutorService executor = Executors.newFixedThreadPool(executorThreads);
+		/* services[options][0] walks on the calling thread, services[options][1] on the executor */
+		final LCPLAnalysisService[][] services = new LCPLAnalysisService[OPTIONS.length][2];
+		for(int i = 0; i < OPTIONS.length; i++) {
+			for(int j = 0; j < 2; j++) {
+				services[i][j] = new LCPLAnalysisService(j == 0 ? null : executor);
+				services[i][j].setLazy(OPTIONS[i][0]);
+				services[i][j].setLayout(OPTIONS[i][1]);
+			}
+		}
+
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		Thread[] workers = new Thread[threads];
+		for(int i = 0; i < threads; i++) {
+			final long workerSeed = seed + i;
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					Random random = new Random(workerSeed);
+					try {
+						while(System.nanoTime() < deadline) {
+							int program = random.nextInt(inputs.size());
+							int options = random.nextInt(OPTIONS.length);
+							check(services[options][random.nextInt(2)], program, options);
+						}
+					} catch (Throwable ex) {
+						failures.add(ex);
+					}
+				}
+			}, "lcpl-stress-" + i);
+			workers[i].start();
+		}
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		executor.shutdown();
+
+		for(int i = 0; i < inputs.size(); i++) {
+			if(!json(inputs.get(i)).equals(inputFingerprints.get(i))) {
+				mismatch("the input program " + names.get(i) + " was changed");
+			}
+		}
+		if(!fingerprint(LCPLPrelude.getShared(false)).equals(preludeFingerprint)
+				|| !fingerprint(LCPLPrelude.getShared(true)).equals(layoutPreludeFingerprint)) {
+			mismatch("the shared built-in classes were changed");
+		}
+		for(Throwable failure : failures) {
+			mismatches.incrementAndGet();
+			failure.printStackTrace();
+		}
+
+		System.out.println(analyses.get() + " analyses, " + String.format("%.0f", analyses.get() / (double)seconds)
+				+ " analyses/s, " + mismatches.get() + " mismatches");
+		return mismatches.get() == 0;
+	}
+
+	private void check(LCPLAnalysisService service, int program, int options) throws IOException {
+		LCPLAnalysisResult result = service.analyze(inputs.get(program));
+		String outcome = result.isCorrect() ? json(result.getProgram()) : error(result.getError());
+		analyses.incrementAndGet();
+		if(!outcome.equals(expected.get(program)[options])) {
+			mismatch(names.get(program) + " with lazy " + OPTIONS[options][0] + ", layout " + OPTIONS[options][1]
+					+ ": " + abbreviate(outcome) + " instead of " + abbreviate(expected.get(program)[options]));
+		}
+		if(result.getProgram().getObjectType() != LCPLPrelude.getShared(OPTIONS[options][1]).getObjectType()) {
+			mismatch(names.get(program) + " does not use the shared built-in classes");
+		}
+	}
+
+	private void mismatch(String message) {
+		if(mismatches.incrementAndGet() <= REPORTED_MISMATCHES) {
+			System.out.println("MISMATCH " + message);
+		}
+	}
+
+	private static String json(Program p) throws IOException {
+		StringWriter output = new StringWriter();
+		new LCPLJsonEmitter().emit(p, output);
+		return output.toString();
+	}
+
+	private static String error(LCPLException ex) {
+		return "error in line " + ex.node.getLineNumber() + " : " + ex.message;
+	}
+
+	private static String abbreviate(String outcome) {
+		return outcome.length() <= 80 ? outcome : outcome.substring(0, 80) + "...";
+	}
+
+	/*
+	 * Method that describes everything of the built-in classes the analysis could change.
+	 */
+	private static String fingerprint(LCPLPrelude prelude) {
+		StringBuilder sb = new StringBuilder();
+		for(LCPLClass lcplClass : prelude.getClasses()) {
+			sb.append(lcplClass.getName()).append(' ').append(lcplClass.getParent()).append(' ')
+				.append(System.identityHashCode(lcplClass.getParentData())).append(' ')
+				.append(lcplClass.getAttributesCount()).append(' ').append(lcplClass.getFeatures().size());
+			if(lcplClass.getVtable() != null) {
+				for(Method method : lcplClass.getVtable()) {
+					sb.append(' ').append(System.identityHashCode(method));
+				}
+			}
+			for(Feature feature : lcplClass.getFeatures()) {
+				Method method = (Method)feature;
+				sb.append('\n').append(method.getName()).append(' ').append(method.getReturnType()).append(' ')
+					.append(System.identityHashCode(method.getReturnTypeData())).append(' ')
+					.append(method.getVtableSlot()).append(' ')
+					.append(System.identityHashCode(method.getSelf())).append(' ')
+					.append(System.identityHashCode(method.getSelf().getVariableType()))
+					.append(' ').append(method.getParameters().size());
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,77 @@
+import java.io.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that compares the size and the write time of the full YAML output with the
+ * annotations written by LCPLAnnotationEmitter, for the same analyzed program. It also checks
+ * that the annotations refer only to ids of the input.
+ *
+ * Usage: LCPLAnnotationBenchmark [libraryClasses [methodsPerClass]]
+ */
+public class LCPLAnnotationBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException, LCPLException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		String source = LCPLProgramGenerator.toYaml(
+				new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20));
+		Program p = new LCPLYamlLoader().load(new StringReader(source));
+		new LCPLFreezer().freeze(p);
+		LCPLAnnotationEmitter annotations = new LCPLAnnotationEmitter(p);
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		System.out.println(libraryClasses + " classes, " + methodsPerClass + " methods each, "
+				+ annotations.getNodeCount() + " nodes in the input");
+
+		File out = File.createTempFile("lcpl-annotations", ".out");
+		out.deleteOnExit();
+		long yamlTime = Long.MAX_VALUE;
+		long annotationsTime = Long.MAX_VALUE;
+		long yamlSize = 0;
+		long annotationsSize = 0;
+		for(int i = 0; i < ROUNDS; i++) {
+			yamlTime = Math.min(yamlTime, time(new LCPLYamlEmitter(), p, out));
+			yamlSize = out.length();
+			annotationsTime = Math.min(annotationsTime, time(annotations, p, out));
+			annotationsSize = out.length();
+		}
+		checkIds(out, annotations.getNodeCount());
+
+		System.out.println(String.format("%-12s %12s %12s", "output", "size (MB)", "time (ms)"));
+		System.out.println(String.format("%-12s %12.1f %12.1f", "YAML", yamlSize / 1e6, yamlTime / 1e6));
+		System.out.println(String.format("%-12s %12.1f %12.1f", "annotations", annotationsSize / 1e6, annotationsTime / 1e6));
+		System.out.println(String.format("%-12s %11.1fx %11.1fx", "smaller", (double)yamlSize / annotationsSize,
+				(double)yamlTime / annotationsTime));
+	}
+
+	private static long time(LCPLProgramEmitter emitter, Program p, File out) throws IOException {
+		long start = System.nanoTime();
+		Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out)));
+		emitter.emit(p, output);
+		output.close();
+		return System.nanoTime() - start;
+	}
+
+	/*
+	 * Method that checks that the ids of the lines never decrease and are ids of the input.
+	 */
+	private static void checkIds(File file, int nodeCount) throws IOException {
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		if(!LCPLAnnotationEmitter.HEADER.equals(reader.readLine())) {
+			throw new IllegalStateException("The annotations do not begin with the header");
+		}
+		int last = 0;
+		String line;
+		while((line = reader.readLine()) != null) {
+			int id = Integer.parseInt(line.substring(0, line.indexOf(' ')));
+			if(id < last || id >= nodeCount) {
+				throw new IllegalStateException("Wrong id in the annotation: " + line);
+			}
+			last = id;
+		}
+		reader.close();
+	}
+}
@@ -0,0 +1,46 @@
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that measures how the semantic analysis time grows with the number of classes.
+ *
+ * Usage: LCPLClassesBenchmark [classes...]
+ */
+public class LCPLClassesBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws LCPLException {
+		int[] sizes = { 1000, 10000, 100000 };
+		if(args.length > 0) {
+			sizes = new int[args.length];
+			for(int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			analyze(sizes[0]);
+		}
+
+		System.out.println(String.format("%10s %12s %14s", "classes", "time (ms)", "us / class"));
+		for(int size : sizes) {
+			long best = Long.MAX_VALUE;
+			for(int i = 0; i < ROUNDS; i++) {
+				best = Math.min(best, analyze(size));
+			}
+			System.out.println(String.format("%10d %12.2f %14.3f", size, best / 1e6, best / 1e3 / size));
+		}
+	}
+
+	/*
+	 * Method that analyzes a new program and returns the time spent, in nanoseconds.
+	 */
+	private static long analyze(int size) throws LCPLException {
+		Program p = new LCPLProgramGenerator(size).wideProgram(size);
+
+		long start = System.nanoTime();
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		return System.nanoTime() - start;
+	}
+}
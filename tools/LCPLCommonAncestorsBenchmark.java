@@ -0,0 +1,119 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark of the lowest common ancestor queries (LCPLCommonAncestors) on a wide hierarchy
+ * and on a deep chain: the time to build the structure and the time of a query, compared with
+ * walking up the chains of the two classes. Every answer is checked against the walk. It also
+ * gives the analysis time with and without the precise joins.
+ *
+ * Usage: LCPLCommonAncestorsBenchmark [classes [depth]]
+ */
+public class LCPLCommonAncestorsBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+	private static final int QUERIES = 1000000;
+	/* the walks up a deep chain are slow, so they are timed on fewer pairs */
+	private static final int WALK_QUERIES = 2000;
+
+	public static void main(String[] args) throws LCPLException {
+		int classesCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int depth		 = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+		System.out.println(String.format("%-24s %10s %14s %14s %14s %14s", "hierarchy", "build (ms)",
+				"query (ns)", "walk (ns)", "analysis (ms)", "precise (ms)"));
+		run("wide (" + classesCount + " classes)", false, classesCount);
+		run("deep (" + depth + " classes)", true, depth);
+	}
+
+	private static void run(String name, boolean deep, int size) throws LCPLException {
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(program(deep, size));
+		sa.startSemanticAnalysis();
+		LCPLClassHierarchy hierarchy = sa.getClassHierarchy();
+		List<LCPLClass> classes = hierarchy.getOrderedClasses();
+
+		Random random = new Random(classes.size());
+		LCPLClass[] firsts = new LCPLClass[QUERIES];
+		LCPLClass[] seconds = new LCPLClass[QUERIES];
+		for(int i = 0; i < QUERIES; i++) {
+			firsts[i] = classes.get(random.nextInt(classes.size()));
+			seconds[i] = classes.get(random.nextInt(classes.size()));
+		}
+
+		long build = Long.MAX_VALUE;
+		long query = Long.MAX_VALUE;
+		long walk = Long.MAX_VALUE;
+		LCPLCommonAncestors commonAncestors = null;
+		for(int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+			long start = System.nanoTime();
+			commonAncestors = new LCPLCommonAncestors(hierarchy);
+			long built = System.nanoTime();
+			LCPLClass[] answers = new LCPLClass[QUERIES];
+			for(int i = 0; i < QUERIES; i++) {
+				answers[i] = commonAncestors.lowestCommonAncestor(firsts[i], seconds[i]);
+			}
+			long queried = System.nanoTime();
+			for(int i = 0; i < WALK_QUERIES; i++) {
+				if(walkUp(firsts[i], seconds[i]) != answers[i]) {
+					throw new IllegalStateException("Wrong common ancestor of " + firsts[i].getName()
+							+ " and " + seconds[i].getName() + ": " + answers[i].getName());
+				}
+			}
+			long walked = System.nanoTime();
+			if(round >= WARMUP_ROUNDS) {
+				build = Math.min(build, built - start);
+				query = Math.min(query, (queried - built) / QUERIES);
+				walk = Math.min(walk, (walked - queried) / WALK_QUERIES);
+			}
+		}
+
+		long analysis = Long.MAX_VALUE;
+		long precise = Long.MAX_VALUE;
+		for(int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+			long plain = analyze(program(deep, size), false);
+			long joined = analyze(program(deep, size), true);
+			if(round >= WARMUP_ROUNDS) {
+				analysis = Math.min(analysis, plain);
+				precise = Math.min(precise, joined);
+			}
+		}
+
+		System.out.println(String.format("%-24s %10.2f %14d %14d %14.2f %14.2f", name, build / 1e6, query, walk,
+				analysis / 1e6, precise / 1e6));
+	}
+
+	/*
+	 * Method that finds the common ancestor by marking the chain of the first class and
+	 * walking up the chain of the second one.
+	 */
+	private static LCPLClass walkUp(LCPLClass first, LCPLClass second) {
+		Set<LCPLClass> ancestors = new HashSet<LCPLClass>();
+		for(LCPLClass c = first; c != null; c = c.getParentData()) {
+			ancestors.add(c);
+		}
+		for(LCPLClass c = second; c != null; c = c.getParentData()) {
+			if(ancestors.contains(c)) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	private static Program program(boolean deep, int size) {
+		LCPLProgramGenerator generator = new LCPLProgramGenerator(size);
+		return deep ? generator.deepProgram(size) : generator.wideProgram(size);
+	}
+
+	/*
+	 * Method that analyzes a program and returns the time spent, in nanoseconds.
+	 */
+	private static long analyze(Program p, boolean preciseJoins) throws LCPLException {
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+		sa.setPreciseJoins(preciseJoins);
+		long start = System.nanoTime();
+		sa.startSemanticAnalysis();
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,89 @@
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that compares the heap used by an analyzed program with the heap used by its
+ * compact representation, and checks on a small program that the conversion back gives the
+ * same output. The program is measured both as generated, when the nodes share the same
+ * String objects, and as loaded from YAML, like LCPLSemant does, when every node has its own.
+ *
+ * Usage: LCPLCompactBenchmark [libraryClasses [methodsPerClass]]
+ */
+public class LCPLCompactBenchmark {
+
+	public static void main(String[] args) throws LCPLException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		checkRoundTrip();
+
+		String source = LCPLProgramGenerator.toYaml(
+				new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20));
+
+		long base = usedHeap();
+		Program p = analyzedProgram(libraryClasses, methodsPerClass);
+		long generatedHeap = usedHeap() - base;
+		p = null;
+
+		base = usedHeap();
+		p = new Yaml(new Constructor(Program.class)).loadAs(source, Program.class);
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		long loadedHeap = usedHeap() - base;
+
+		long start = System.nanoTime();
+		LCPLCompactProgram compact = LCPLCompactProgram.fromProgram(p);
+		long encodeTime = System.nanoTime() - start;
+
+		p = null;
+		long compactHeap = usedHeap() - base;
+
+		start = System.nanoTime();
+		p = compact.toProgram();
+		long decodeTime = System.nanoTime() - start;
+
+		int nodes = compact.getNodeCount();
+		System.out.println(libraryClasses + " classes, " + methodsPerClass + " methods each, " + nodes + " nodes");
+		System.out.println(String.format("%-18s %12s %14s %10s", "form", "heap (MB)", "bytes / node", "ratio"));
+		print("objects, generated", generatedHeap, nodes, compactHeap);
+		print("objects, from YAML", loadedHeap, nodes, compactHeap);
+		print("compact", compactHeap, nodes, compactHeap);
+		System.out.println(String.format("conversion to compact %.2f ms, back to objects %.2f ms",
+				encodeTime / 1e6, decodeTime / 1e6));
+	}
+
+	/*
+	 * Method that verifies that a program converted to the compact form and back is dumped
+	 * exactly as the original one.
+	 */
+	private static void checkRoundTrip() throws LCPLException {
+		Program p = analyzedProgram(50, 5);
+		Yaml yaml = new Yaml();
+		String original  = yaml.dump(p);
+		String converted = yaml.dump(LCPLCompactProgram.fromProgram(p).toProgram());
+		if(!original.equals(converted)) {
+			throw new IllegalStateException("The program converted back differs from the original one");
+		}
+		System.out.println("round trip: identical output");
+	}
+
+	private static void print(String form, long heap, int nodes, long compactHeap) {
+		System.out.println(String.format("%-18s %12.1f %14.1f %9.1fx", form, heap / 1e6, (double)heap / nodes,
+				(double)heap / compactHeap));
+	}
+
+	private static Program analyzedProgram(int libraryClasses, int methodsPerClass) throws LCPLException {
+		Program p = new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20);
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		return p;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
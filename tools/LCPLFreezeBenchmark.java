@@ -0,0 +1,161 @@
+import java.util.*;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark for LCPLFreezer: the heap used by the lists of a program before and after they are
+ * frozen, the time to iterate and to index all the lists, and the analysis time of a method
+ * with many parameters kept in LinkedLists.
+ *
+ * Usage: LCPLFreezeBenchmark [libraryClasses [methodsPerClass [parameters]]]
+ */
+public class LCPLFreezeBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws LCPLException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int parametersCount	= args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+
+		String source = LCPLProgramGenerator.toYaml(
+				new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20));
+
+		System.out.println(libraryClasses + " classes, " + methodsPerClass + " methods each");
+		System.out.println(String.format("%-20s %14s %14s %10s", "program", "loaded (MB)", "frozen (MB)", "saved"));
+		long base = usedHeap();
+		Program p = load(source);
+		long loaded = usedHeap() - base;
+		LCPLFreezer freezer = new LCPLFreezer();
+		freezer.freeze(p);
+		long frozen = usedHeap() - base;
+		printHeap("from YAML", loaded, frozen);
+
+		p = null;
+		base = usedHeap();
+		p = new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20);
+		long generated = usedHeap() - base;
+		new LCPLFreezer().freeze(p);
+		frozen = usedHeap() - base;
+		printHeap("generated", generated, frozen);
+		System.out.println(freezer.getFrozenLists() + " lists, " + freezer.getFrozenElements() + " elements");
+		System.out.println();
+
+		Program before = load(source);
+		Program after = load(source);
+		new LCPLFreezer().freeze(after);
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			walkLists(before, true);
+			walkLists(after, true);
+			walkLists(before, false);
+			walkLists(after, false);
+		}
+		System.out.println(String.format("%-20s %14s %14s %10s", "walk of all lists", "loaded (ms)", "frozen (ms)", "speedup"));
+		printTime("iterator", best(before, true), best(after, true));
+		printTime("get(i)", best(before, false), best(after, false));
+		System.out.println();
+
+		System.out.println(String.format("%-20s %14s %14s %10s", "analysis", "loaded (ms)", "frozen (ms)", "speedup"));
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			analyzeManyParameters(parametersCount / 10, false);
+			analyzeManyParameters(parametersCount / 10, true);
+		}
+		long linked = Long.MAX_VALUE;
+		long array = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			linked = Math.min(linked, analyzeManyParameters(parametersCount, false));
+			array = Math.min(array, analyzeManyParameters(parametersCount, true));
+		}
+		printTime(parametersCount + " parameters", linked, array);
+	}
+
+	private static Program load(String source) {
+		return new Yaml(new Constructor(Program.class)).loadAs(source, Program.class);
+	}
+
+	private static long best(Program p, boolean iterator) {
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			walkLists(p, iterator);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	/*
+	 * Method that reads every element of every list of the program, with an iterator or by index.
+	 */
+	private static long walkLists(Program p, final boolean iterator) {
+		final long[] count = new long[1];
+		LCPLTreeScanner scanner = new LCPLTreeScanner() {
+			@Override
+			protected void visitExpression(Expression expression) {
+				if(expression instanceof Block) {
+					count[0] += read(((Block)expression).getExpressions(), iterator);
+				}
+				else if(expression instanceof BaseDispatch) {
+					count[0] += read(((BaseDispatch)expression).getArguments(), iterator);
+				}
+			}
+		};
+		count[0] += read(p.getClasses(), iterator);
+		for(LCPLClass lcplClass : p.getClasses()) {
+			count[0] += read(lcplClass.getFeatures(), iterator);
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					count[0] += read(((Method)feature).getParameters(), iterator);
+				}
+			}
+			scanner.scanClass(lcplClass);
+		}
+		return count[0];
+	}
+
+	private static int read(List<?> list, boolean iterator) {
+		int hash = 0;
+		if(iterator) {
+			for(Object element : list) {
+				hash += System.identityHashCode(element) & 1;
+			}
+		}
+		else {
+			for(int i = 0; i < list.size(); i++) {
+				hash += System.identityHashCode(list.get(i)) & 1;
+			}
+		}
+		return hash;
+	}
+
+	private static long analyzeManyParameters(int parametersCount, boolean freeze) throws LCPLException {
+		Program p = new LCPLProgramGenerator(parametersCount).manyParametersProgram(parametersCount);
+		long start = System.nanoTime();
+		if(freeze) {
+			new LCPLFreezer().freeze(p);
+		}
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		return System.nanoTime() - start;
+	}
+
+	private static void printHeap(String program, long before, long after) {
+		System.out.println(String.format("%-20s %14.1f %14.1f %9.1f%%", program, before / 1e6, after / 1e6,
+				100.0 * (before - after) / before));
+	}
+
+	private static void printTime(String what, long before, long after) {
+		System.out.println(String.format("%-20s %14.2f %14.2f %9.1fx", what, before / 1e6, after / 1e6,
+				(double)before / after));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
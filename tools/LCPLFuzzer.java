@@ -0,0 +1,277 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Harness that runs mutated programs through LCPLSemanticAnalyzer on many threads. Every run
+ * takes a seed program, applies random mutations (LCPLMutator) and analyzes it in-process. The
+ * outcome is ok, diagnosed (an LCPLException) or crashed (any other exception or error). The
+ * crashes are grouped by the exception and the first frame of the analyzer; the first input of
+ * every group is minimized and written, with the stack trace, to the output directory.
+ *
+ * With -differential every program is also analyzed with the layout on, and a different
+ * outcome (another error message, for example) is counted as diverged and written too.
+ *
+ * The seeds are small generated programs and the YAML files given as arguments. A run is
+ * replayed from its seed program and the seed of its Random. Run it with
+ * -XX:-OmitStackTraceInFastThrow, or the JIT soon throws the frequent exceptions without a
+ * stack and the crashes lose their frame.
+ *
+ * Usage: LCPLFuzzer [-threads n] [-seconds s] [-iterations n] [-seed s] [-out dir]
+ *			[-differential] [seed.yaml...]
+ */
+public class LCPLFuzzer {
+
+	private static final int REPORT_SECONDS = 10;
+	/* the reductions tried on a crashing input, so the minimization ends in a few seconds */
+	private static final int MAX_REDUCTION_RUNS = 5000;
+
+	private List<LCPLCompactProgram> seeds = new ArrayList<LCPLCompactProgram>();
+	private boolean differential;
+	private File outDir;
+
+	private AtomicLong runs = new AtomicLong();
+	private AtomicLong ok = new AtomicLong();
+	private AtomicLong diagnosed = new AtomicLong();
+	private AtomicLong crashed = new AtomicLong();
+	private AtomicLong diverged = new AtomicLong();
+	/* the number of inputs of every crash and divergence */
+	private ConcurrentMap<String, AtomicLong> signatures = new ConcurrentHashMap<String, AtomicLong>();
+
+	public static void main(String[] args) throws Exception {
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seconds = 60;
+		long iterations = Long.MAX_VALUE;
+		long seed = System.nanoTime();
+		LCPLFuzzer fuzzer = new LCPLFuzzer();
+		fuzzer.outDir = new File("fuzz-out");
+
+		int argIndex = 0;
+		while(argIndex < args.length && args[argIndex].startsWith("-")) {
+			String option = args[argIndex++];
+			if(option.equals("-differential")) {
+				fuzzer.differential = true;
+				continue;
+			}
+			if(argIndex == args.length) {
+				throw new IllegalArgumentException("Missing value of " + option);
+			}
+			String value = args[argIndex++];
+			if(option.equals("-threads")) {
+				threads = Integer.parseInt(value);
+			}
+			else if(option.equals("-seconds")) {
+				seconds = Long.parseLong(value);
+			}
+			else if(option.equals("-iterations")) {
+				iterations = Long.parseLong(value);
+			}
+			else if(option.equals("-seed")) {
+				seed = Long.parseLong(value);
+			}
+			else if(option.equals("-out")) {
+				fuzzer.outDir = new File(value);
+			}
+			else {
+				throw new IllegalArgumentException("Unknown option " + option);
+			}
+		}
+		fuzzer.addSeeds(Arrays.copyOfRange(args, argIndex, args.length));
+		fuzzer.run(threads, seconds, iterations, seed);
+	}
+
+	private void addSeeds(String[] files) throws IOException {
+		LCPLProgramGenerator generator = new LCPLProgramGenerator(1);
+		seeds.add(LCPLCompactProgram.fromProgram(generator.wideProgram(8)));
+		seeds.add(LCPLCompactProgram.fromProgram(generator.deepProgram(6)));
+		seeds.add(LCPLCompactProgram.fromProgram(generator.libraryProgram(6, 3, 3)));
+		seeds.add(LCPLCompactProgram.fromProgram(generator.manyParametersProgram(4)));
+		for(String file : files) {
+			Reader input = new BufferedReader(new FileReader(file));
+			seeds.add(LCPLCompactProgram.fromProgram(new LCPLYamlLoader().load(input)));
+			input.close();
+		}
+	}
+
+	private void run(int threads, long seconds, final long iterations, final long seed) throws InterruptedException {
+		System.out.println("seed " + seed + ", " + threads + " threads, " + seeds.size() + " seed programs"
+				+ (differential ? ", differential" : ""));
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		final long start = System.nanoTime();
+
+		Thread[] workers = new Thread[threads];
+		for(int i = 0; i < threads; i++) {
+			final long workerSeed = seed + i;
+			workers[i] = new Thread(new Runnable() {
+				public void run() {
+					Random random = new Random(workerSeed);
+					while(System.nanoTime() < deadline && runs.get() < iterations) {
+						fuzzOnce(random.nextInt(seeds.size()), random.nextLong());
+					}
+				}
+			}, "lcpl-fuzzer-" + i);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+
+		long lastReport = System.nanoTime();
+		for(Thread worker : workers) {
+			while(worker.isAlive()) {
+				worker.join(1000);
+				if(System.nanoTime() - lastReport >= TimeUnit.SECONDS.toNanos(REPORT_SECONDS)) {
+					lastReport = System.nanoTime();
+					report(lastReport - start);
+				}
+			}
+		}
+		report(System.nanoTime() - start);
+		for(Map.Entry<String, AtomicLong> entry : signatures.entrySet()) {
+			System.out.println(String.format("%8d  %s", entry.getValue().get(), entry.getKey()));
+		}
+	}
+
+	private void report(long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.println(String.format("%6.0f s  %10d runs  %8.0f analyses/s  ok %d  diagnosed %d  crashed %d%s  unique %d",
+				seconds, runs.get(), runs.get() / seconds, ok.get(), diagnosed.get(), crashed.get(),
+				differential ? "  diverged " + diverged.get() : "", signatures.size()));
+	}
+
+	/*
+	 * Method that analyzes a mutation of a seed program and records the outcome.
+	 */
+	private void fuzzOnce(int seedIndex, long mutationSeed) {
+		String outcome = analyze(mutant(seedIndex, mutationSeed), false);
+		runs.incrementAndGet();
+		if(outcome == null) {
+			ok.incrementAndGet();
+		}
+		else if(!isCrash(outcome)) {
+			diagnosed.incrementAndGet();
+		}
+		else {
+			crashed.incrementAndGet();
+			record(outcome, seedIndex, mutationSeed, false);
+			return;
+		}
+
+		if(differential) {
+			String layoutOutcome = analyze(mutant(seedIndex, mutationSeed), true);
+			if(outcome == null ? layoutOutcome != null : !outcome.equals(layoutOutcome)) {
+				diverged.incrementAndGet();
+				record("diverged: " + outcome + " / " + layoutOutcome, seedIndex, mutationSeed, true);
+			}
+		}
+	}
+
+	private Program mutant(int seedIndex, long mutationSeed) {
+		Program p = seeds.get(seedIndex).toProgram();
+		new LCPLMutator(p).mutate(new Random(mutationSeed));
+		return p;
+	}
+
+	/*
+	 * Method that returns null if the analysis succeeds, "diagnosed: <message>" for an
+	 * LCPLException and the signature of the crash otherwise.
+	 */
+	private static String analyze(Program p, boolean layout) {
+		try {
+			LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+			sa.setLayout(layout);
+			sa.startSemanticAnalysis();
+			return null;
+		} catch (LCPLException ex) {
+			return "diagnosed: " + ex.message;
+		} catch (Throwable ex) {
+			return signature(ex);
+		}
+	}
+
+	private static boolean isCrash(String outcome) {
+		return outcome != null && !outcome.startsWith("diagnosed: ");
+	}
+
+	/*
+	 * Method that returns the exception and the first frame of the analyzer in its stack.
+	 */
+	private static String signature(Throwable ex) {
+		for(StackTraceElement frame : ex.getStackTrace()) {
+			if(frame.getClassName().startsWith("LCPL")) {
+				return ex.getClass().getName() + " at " + frame;
+			}
+		}
+		return ex.getClass().getName();
+	}
+
+	private void record(String signature, int seedIndex, long mutationSeed, boolean differentialRun) {
+		if(signatures.putIfAbsent(signature, new AtomicLong(1)) != null) {
+			signatures.get(signature).incrementAndGet();
+			return;
+		}
+
+		Program minimized = minimize(seedIndex, mutationSeed, signature, differentialRun);
+		try {
+			outDir.mkdirs();
+			String name = "case-" + seedIndex + "-" + Long.toHexString(mutationSeed);
+			PrintStream yaml = new PrintStream(new FileOutputStream(new File(outDir, name + ".yaml")));
+			yaml.print(LCPLProgramGenerator.toYaml(minimized));
+			yaml.close();
+
+			PrintStream trace = new PrintStream(new FileOutputStream(new File(outDir, name + ".txt")));
+			trace.println(signature);
+			trace.println("seed program " + seedIndex + ", mutation seed " + mutationSeed);
+			if(!differentialRun) {
+				try {
+					new LCPLSemanticAnalyzer(LCPLCompactProgram.fromProgram(minimized).toProgram()).startSemanticAnalysis();
+				} catch (Throwable ex) {
+					ex.printStackTrace(trace);
+				}
+			}
+			trace.close();
+			System.out.println("new: " + signature + " -> " + new File(outDir, name + ".yaml"));
+		} catch (IOException ex) {
+			System.err.println("Can not write the case: " + ex.getMessage());
+		}
+	}
+
+	/*
+	 * Method that applies reductions while the program keeps the same outcome, until none of
+	 * them does.
+	 */
+	private Program minimize(int seedIndex, long mutationSeed, String signature, boolean differentialRun) {
+		LCPLCompactProgram current = LCPLCompactProgram.fromProgram(mutant(seedIndex, mutationSeed));
+		int reductionRuns = 0;
+		boolean reduced = true;
+		while(reduced && reductionRuns < MAX_REDUCTION_RUNS) {
+			reduced = false;
+			int count = new LCPLMutator(current.toProgram()).reductions().size();
+			for(int i = 0; i < count && reductionRuns < MAX_REDUCTION_RUNS; i++, reductionRuns++) {
+				Program candidate = current.toProgram();
+				new LCPLMutator(candidate).reductions().get(i).run();
+				LCPLCompactProgram encoded;
+				try {
+					encoded = LCPLCompactProgram.fromProgram(candidate);
+				} catch (RuntimeException ex) {
+					continue;
+				}
+				if(encoded.getNodeCount() < current.getNodeCount() && sameOutcome(encoded, signature, differentialRun)) {
+					current = encoded;
+					reduced = true;
+					break;
+				}
+			}
+		}
+		return current.toProgram();
+	}
+
+	private static boolean sameOutcome(LCPLCompactProgram program, String signature, boolean differentialRun) {
+		String outcome = analyze(program.toProgram(), false);
+		if(!differentialRun) {
+			return signature.equals(outcome);
+		}
+		return signature.equals("diverged: " + outcome + " / " + analyze(program.toProgram(), true));
+	}
+}
@@ -0,0 +1,162 @@
+import java.io.*;
+import java.nio.charset.Charset;
+
+import org.yaml.snakeyaml.reader.UnicodeReader;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark for the FileChannel paths of LCPLSemant against the stream paths: the time to read
+ * a big file as characters (LCPLMappedReader against UnicodeReader over a FileInputStream),
+ * the time to write it (LCPLChannelWriter against PrintStream and BufferedWriter over a
+ * FileOutputStream), and the load and output of a whole program with both paths. The mapped
+ * reader is also run with small chunks and checked to read the same characters.
+ *
+ * Usage: LCPLIOBenchmark [megabytes [libraryClasses]]
+ */
+public class LCPLIOBenchmark {
+
+	private static final int ROUNDS = 3;
+	private static final long SMALL_CHUNK = (1L << 20) + 1;
+	/* String constants that are not ASCII, so some characters are split between chunks */
+	private static final String NOT_ASCII = "- \"\u00eent\u0163elegere \u20ac \ud83d\ude00\"\n";
+
+	public static void main(String[] args) throws IOException, LCPLException {
+		int megabytes		= args.length > 0 ? Integer.parseInt(args[0]) : 256;
+		int libraryClasses	= args.length > 1 ? Integer.parseInt(args[1]) : 1500;
+
+		String program = LCPLProgramGenerator.toYaml(
+				new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, 10, 20));
+		StringBuilder sb = new StringBuilder();
+		while(sb.length() < (long)megabytes << 20) {
+			sb.append(program);
+			sb.append(NOT_ASCII);
+		}
+		String text = sb.toString();
+		sb = null;
+
+		File file = File.createTempFile("lcpl-io", ".yaml");
+		File out = File.createTempFile("lcpl-io", ".out");
+		file.deleteOnExit();
+		out.deleteOnExit();
+		write(new LCPLChannelWriter(file, Charset.forName("UTF-8")), text);
+		System.out.println(file.length() / 1000000 + " MB file, " + Charset.defaultCharset() + " output");
+
+		long checksum = checksum(text);
+		if(read(new UnicodeReader(new FileInputStream(file))) != checksum
+				|| read(new LCPLMappedReader(file)) != checksum
+				|| read(new LCPLMappedReader(file, SMALL_CHUNK)) != checksum) {
+			throw new IllegalStateException("The readers do not read the same characters");
+		}
+
+		System.out.println(String.format("%-32s %12s %10s", "read", "time (ms)", "MB/s"));
+		long stream = Long.MAX_VALUE;
+		long mapped = Long.MAX_VALUE;
+		long chunked = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			read(new UnicodeReader(new FileInputStream(file)));
+			stream = Math.min(stream, System.nanoTime() - start);
+			start = System.nanoTime();
+			read(new LCPLMappedReader(file));
+			mapped = Math.min(mapped, System.nanoTime() - start);
+			start = System.nanoTime();
+			read(new LCPLMappedReader(file, SMALL_CHUNK));
+			chunked = Math.min(chunked, System.nanoTime() - start);
+		}
+		printTime("UnicodeReader(FileInputStream)", stream, file.length());
+		printTime("LCPLMappedReader", mapped, file.length());
+		printTime("LCPLMappedReader, 1 MB chunks", chunked, file.length());
+		System.out.println();
+
+		System.out.println(String.format("%-32s %12s %10s", "write", "time (ms)", "MB/s"));
+		long print = Long.MAX_VALUE;
+		long buffered = Long.MAX_VALUE;
+		long channel = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			PrintStream ps = new PrintStream(new FileOutputStream(out));
+			ps.print(text);
+			ps.close();
+			print = Math.min(print, System.nanoTime() - start);
+			start = System.nanoTime();
+			write(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out))), text);
+			buffered = Math.min(buffered, System.nanoTime() - start);
+			start = System.nanoTime();
+			write(new LCPLChannelWriter(out, Charset.defaultCharset()), text);
+			channel = Math.min(channel, System.nanoTime() - start);
+		}
+		printTime("PrintStream(FileOutputStream)", print, out.length());
+		printTime("BufferedWriter(FileOutputStream)", buffered, out.length());
+		printTime("LCPLChannelWriter", channel, out.length());
+		System.out.println();
+
+		text = null;
+		write(new LCPLChannelWriter(file, Charset.forName("UTF-8")), program);
+		System.out.println(String.format("%-32s %12s %12s", "load and output of " + file.length() / 1000000 + " MB",
+				"load (ms)", "output (ms)"));
+		long[] streams = timeProgram(file, out, false);
+		long[] channels = timeProgram(file, out, true);
+		System.out.println(String.format("%-32s %12.1f %12.1f", "streams", streams[0] / 1e6, streams[1] / 1e6));
+		System.out.println(String.format("%-32s %12.1f %12.1f", "FileChannel", channels[0] / 1e6, channels[1] / 1e6));
+	}
+
+	/*
+	 * Method that loads, analyzes and writes the program like LCPLSemant does and returns the
+	 * best load and output times.
+	 */
+	private static long[] timeProgram(File file, File out, boolean nio) throws IOException, LCPLException {
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+		for(int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			Reader input = nio ? new LCPLMappedReader(file) : new UnicodeReader(new FileInputStream(file));
+			Program p = new LCPLYamlLoader().load(input);
+			input.close();
+			best[0] = Math.min(best[0], System.nanoTime() - start);
+
+			new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+
+			start = System.nanoTime();
+			Writer output = nio ? new LCPLChannelWriter(out, Charset.defaultCharset())
+					: new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out)));
+			new LCPLYamlEmitter().emit(p, output);
+			output.close();
+			best[1] = Math.min(best[1], System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static long read(Reader reader) throws IOException {
+		char[] buffer = new char[1024];
+		long checksum = 0;
+		int count;
+		while((count = reader.read(buffer)) > 0) {
+			for(int i = 0; i < count; i++) {
+				checksum = checksum * 31 + buffer[i];
+			}
+		}
+		reader.close();
+		return checksum;
+	}
+
+	private static long checksum(String text) {
+		long checksum = 0;
+		for(int i = 0; i < text.length(); i++) {
+			checksum = checksum * 31 + text.charAt(i);
+		}
+		return checksum;
+	}
+
+	private static void write(Writer writer, String text) throws IOException {
+		/* the YAML emitter writes small pieces */
+		int piece = 256;
+		for(int i = 0; i < text.length(); i += piece) {
+			writer.write(text, i, Math.min(piece, text.length() - i));
+		}
+		writer.close();
+	}
+
+	private static void printTime(String name, long nanos, long bytes) {
+		System.out.println(String.format("%-32s %12.1f %10.1f", name, nanos / 1e6, bytes / 1e6 / (nanos / 1e9)));
+	}
+}
@@ -0,0 +1,54 @@
+import java.io.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that compares the size and the write time of the YAML output with the JSON one
+ * written by LCPLJsonEmitter, for the same analyzed program, and the memory allocated by the
+ * thread while it writes them.
+ *
+ * Usage: LCPLJsonBenchmark [libraryClasses [methodsPerClass]]
+ */
+public class LCPLJsonBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException, LCPLException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Program p = new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20);
+		new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		System.out.println(libraryClasses + " classes, " + methodsPerClass + " methods each");
+
+		File out = File.createTempFile("lcpl-json", ".out");
+		out.deleteOnExit();
+		long[] yaml = { Long.MAX_VALUE, 0, 0 };
+		long[] json = { Long.MAX_VALUE, 0, 0 };
+		for(int i = 0; i < ROUNDS; i++) {
+			time(new LCPLYamlEmitter(), p, out, yaml);
+			time(new LCPLJsonEmitter(), p, out, json);
+		}
+
+		System.out.println(String.format("%-8s %12s %12s %16s", "output", "size (MB)", "time (ms)", "allocated (MB)"));
+		System.out.println(String.format("%-8s %12.1f %12.1f %16.1f", "YAML", yaml[1] / 1e6, yaml[0] / 1e6, yaml[2] / 1e6));
+		System.out.println(String.format("%-8s %12.1f %12.1f %16.1f", "JSON", json[1] / 1e6, json[0] / 1e6, json[2] / 1e6));
+		System.out.println(String.format("speedup  %38.1fx", (double)yaml[0] / json[0]));
+	}
+
+	/*
+	 * Method that writes the program and keeps the best time, the size and the allocated bytes.
+	 */
+	private static void time(LCPLProgramEmitter emitter, Program p, File out, long[] result) throws IOException {
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean)java.lang.management.ManagementFactory.getThreadMXBean();
+		long allocated = threads.getCurrentThreadAllocatedBytes();
+		long start = System.nanoTime();
+		Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out)));
+		emitter.emit(p, output);
+		output.close();
+		result[0] = Math.min(result[0], System.nanoTime() - start);
+		result[1] = out.length();
+		result[2] = threads.getCurrentThreadAllocatedBytes() - allocated;
+	}
+}
@@ -0,0 +1,52 @@
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that compares the full analysis with the lazy one on programs that link a big
+ * library of which Main uses only a few classes.
+ *
+ * Usage: LCPLLazyBenchmark [libraryClasses [methodsPerClass [usedClasses]]]
+ */
+public class LCPLLazyBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws LCPLException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int usedClasses		= args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			analyze(libraryClasses, methodsPerClass, usedClasses, false);
+			analyze(libraryClasses, methodsPerClass, usedClasses, true);
+		}
+
+		long eager = Long.MAX_VALUE;
+		long lazy = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			eager = Math.min(eager, analyze(libraryClasses, methodsPerClass, usedClasses, false));
+			lazy = Math.min(lazy, analyze(libraryClasses, methodsPerClass, usedClasses, true));
+		}
+
+		System.out.println(libraryClasses + " library classes, " + methodsPerClass + " methods each, "
+				+ usedClasses + " used by Main");
+		System.out.println(String.format("%-8s %12s", "mode", "time (ms)"));
+		System.out.println(String.format("%-8s %12.2f", "full", eager / 1e6));
+		System.out.println(String.format("%-8s %12.2f", "lazy", lazy / 1e6));
+		System.out.println(String.format("speedup  %11.1fx", (double)eager / lazy));
+	}
+
+	/*
+	 * Method that analyzes a new program and returns the time spent, in nanoseconds.
+	 */
+	private static long analyze(int libraryClasses, int methodsPerClass, int usedClasses, boolean lazy)
+			throws LCPLException {
+		Program p = new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, usedClasses);
+
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+		sa.setLazy(lazy);
+		long start = System.nanoTime();
+		sa.startSemanticAnalysis();
+		return System.nanoTime() - start;
+	}
+}
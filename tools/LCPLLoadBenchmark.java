@@ -0,0 +1,64 @@
+import java.io.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that measures how the load time of a big program scales with the number of
+ * threads of LCPLParallelLoader, and checks that the parallel loading builds the same program
+ * as the single parser.
+ *
+ * Usage: LCPLLoadBenchmark [libraryClasses [methodsPerClass [threads...]]]
+ */
+public class LCPLLoadBenchmark {
+
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args) throws IOException {
+		int libraryClasses	= args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+		int methodsPerClass	= args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int[] threads = { 1, 2, 4, 8 };
+		if(args.length > 2) {
+			threads = new int[args.length - 2];
+			for(int i = 2; i < args.length; i++) {
+				threads[i - 2] = Integer.parseInt(args[i]);
+			}
+		}
+
+		checkSameProgram();
+
+		String source = LCPLProgramGenerator.toYaml(
+				new LCPLProgramGenerator(libraryClasses).libraryProgram(libraryClasses, methodsPerClass, 20));
+		System.out.println(libraryClasses + " classes, " + methodsPerClass + " methods each, "
+				+ source.length() / 1000000 + " MB of YAML, "
+				+ Runtime.getRuntime().availableProcessors() + " processors");
+
+		long single = time(new LCPLYamlLoader(), source);
+		System.out.println(String.format("%-10s %12s %10s", "threads", "time (ms)", "speedup"));
+		System.out.println(String.format("%-10s %12.1f %10s", "single", single / 1e6, "1.0x"));
+		for(int count : threads) {
+			long parallel = time(new LCPLParallelLoader(count), source);
+			System.out.println(String.format("%-10d %12.1f %9.1fx", count, parallel / 1e6, (double)single / parallel));
+		}
+	}
+
+	private static long time(LCPLProgramLoader loader, String source) throws IOException {
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < ROUNDS; i++) {
+			long start = System.nanoTime();
+			loader.load(new StringReader(source));
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static void checkSameProgram() throws IOException {
+		String source = LCPLProgramGenerator.toYaml(new LCPLProgramGenerator(300).libraryProgram(300, 5, 20));
+		LCPLParallelLoader loader = new LCPLParallelLoader(4);
+		String parallel = LCPLProgramGenerator.toYaml(loader.load(new StringReader(source)));
+		String single = LCPLProgramGenerator.toYaml(new LCPLYamlLoader().load(new StringReader(source)));
+		if(!loader.wasParallel() || !parallel.equals(single) || !single.equals(source)) {
+			throw new IllegalStateException("The parallel loading differs from the single parser");
+		}
+		System.out.println("parallel loading: same program as the single parser");
+	}
+}
@@ -0,0 +1,70 @@
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Benchmark that compares the analysis with and without the method resolution cache
+ * (LCPLMethodCache) on a wide hierarchy, on a library of classes that call their own methods
+ * and on a deep chain whose classes call the methods of its root.
+ *
+ * Usage: LCPLMethodCacheBenchmark [classes [depth]]
+ */
+public class LCPLMethodCacheBenchmark {
+
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 5;
+	private static final int CALLS_PER_CLASS = 32;
+
+	public static void main(String[] args) throws LCPLException {
+		int classesCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int depth		 = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+		System.out.println(String.format("%-28s %12s %12s %10s %10s", "program", "no cache (ms)", "cache (ms)",
+				"speedup", "hit rate"));
+		run("wide (" + classesCount + " classes)", 0, classesCount, depth);
+		run("library (" + classesCount / 10 + " x 20 methods)", 1, classesCount, depth);
+		run("deep (" + depth + " classes)", 2, classesCount, depth);
+	}
+
+	private static void run(String name, int kind, int classesCount, int depth) throws LCPLException {
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			analyze(program(kind, classesCount, depth), null);
+			analyze(program(kind, classesCount, depth), new LCPLMethodCache());
+		}
+
+		long uncached = Long.MAX_VALUE;
+		long cached = Long.MAX_VALUE;
+		LCPLMethodCache cache = null;
+		for(int i = 0; i < ROUNDS; i++) {
+			uncached = Math.min(uncached, analyze(program(kind, classesCount, depth), null));
+			cache = new LCPLMethodCache();
+			cached = Math.min(cached, analyze(program(kind, classesCount, depth), cache));
+		}
+
+		long lookups = cache.getHits() + cache.getMisses();
+		System.out.println(String.format("%-28s %12.2f %12.2f %9.2fx %9.1f%%", name, uncached / 1e6, cached / 1e6,
+				(double)uncached / cached, lookups == 0 ? 0 : 100.0 * cache.getHits() / lookups));
+	}
+
+	private static Program program(int kind, int classesCount, int depth) {
+		LCPLProgramGenerator generator = new LCPLProgramGenerator(kind);
+		switch(kind) {
+		case 0:
+			return generator.wideProgram(classesCount);
+		case 1:
+			return generator.libraryProgram(classesCount / 10, 20, classesCount / 10);
+		default:
+			return generator.inheritedCallsProgram(depth, CALLS_PER_CLASS);
+		}
+	}
+
+	/*
+	 * Method that analyzes a program with the given cache and returns the time spent, in
+	 * nanoseconds.
+	 */
+	private static long analyze(Program p, LCPLMethodCache cache) throws LCPLException {
+		LCPLSemanticAnalyzer sa = new LCPLSemanticAnalyzer(p);
+		sa.setMethodCache(cache);
+		long start = System.nanoTime();
+		sa.startSemanticAnalysis();
+		return System.nanoTime() - start;
+	}
+}
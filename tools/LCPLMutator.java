@@ -0,0 +1,463 @@
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that changes programs that were not analyzed, for LCPLFuzzer: the mutations swap the
+ * types, drop declarations, deepen the nesting of the expressions and rename the symbols and
+ * the methods, and the reductions make a program smaller while it still crashes the analyzer.
+ * The changes depend only on the program and on the Random, so a mutation can be replayed.
+ */
+public class LCPLMutator {
+
+	private static final String[] TYPES = { "Int", "String", "Object", "IO", "void", "Main", "Missing" };
+	private static final String[] NAMES = { "self", "x", "out", "in", "length", "copy", "abort", "missing" };
+
+	/*
+	 * A place in the tree that holds an expression.
+	 */
+	public static abstract class Slot {
+		public abstract Expression get();
+		public abstract void set(Expression expression);
+	}
+
+	private Program p;
+	private List<Slot> slots = new ArrayList<Slot>();
+	/* the nodes with a type name: classes (parent), features, parameters and expressions */
+	private List<Object> typed = new ArrayList<Object>();
+	private List<String> typeNames = new ArrayList<String>(Arrays.asList(TYPES));
+	private List<String> names = new ArrayList<String>(Arrays.asList(NAMES));
+
+	public LCPLMutator(Program p) {
+		this.p = p;
+		for(LCPLClass lcplClass : p.getClasses()) {
+			typed.add(lcplClass);
+			typeNames.add(lcplClass.getName());
+			for(Feature feature : lcplClass.getFeatures()) {
+				typed.add(feature);
+				if(feature instanceof Method) {
+					final Method method = (Method)feature;
+					names.add(method.getName());
+					for(FormalParam param : method.getParameters()) {
+						typed.add(param);
+						names.add(param.getName());
+					}
+					addSlots(new Slot() {
+						public Expression get() {
+							return method.getBody();
+						}
+						public void set(Expression expression) {
+							method.setBody(expression);
+						}
+					});
+				}
+				else {
+					final Attribute attribute = (Attribute)feature;
+					names.add(attribute.getName());
+					addSlots(new Slot() {
+						public Expression get() {
+							return attribute.getInit();
+						}
+						public void set(Expression expression) {
+							attribute.setInit(expression);
+						}
+					});
+				}
+			}
+		}
+	}
+
+	public List<Slot> getSlots() {
+		return slots;
+	}
+
+	/*
+	 * Method that applies between one and three random mutations.
+	 */
+	public void mutate(Random random) {
+		int count = 1 + random.nextInt(3);
+		for(int i = 0; i < count; i++) {
+			switch(random.nextInt(4)) {
+			case 0:
+				swapType(random);
+				break;
+			case 1:
+				dropDeclaration(random);
+				break;
+			case 2:
+				deepen(random);
+				break;
+			default:
+				rename(random);
+			}
+		}
+	}
+
+	/*
+	 * Method that returns the reductions of the program: every one removes a class, a feature,
+	 * a parameter or an element of a list, or replaces an expression with one of its
+	 * subexpressions or with nothing.
+	 */
+	public List<Runnable> reductions() {
+		List<Runnable> reductions = new ArrayList<Runnable>();
+		for(int i = 0; i < p.getClasses().size(); i++) {
+			reductions.add(remover(p, p.getClasses(), i));
+		}
+		for(LCPLClass lcplClass : p.getClasses()) {
+			for(int i = 0; i < lcplClass.getFeatures().size(); i++) {
+				reductions.add(remover(lcplClass, lcplClass.getFeatures(), i));
+			}
+			for(Feature feature : lcplClass.getFeatures()) {
+				if(feature instanceof Method) {
+					for(int i = 0; i < ((Method)feature).getParameters().size(); i++) {
+						reductions.add(remover(feature, ((Method)feature).getParameters(), i));
+					}
+				}
+			}
+		}
+		for(final Slot slot : slots) {
+			Expression expression = slot.get();
+			if(expression instanceof Block) {
+				for(int i = 0; i < ((Block)expression).getExpressions().size(); i++) {
+					reductions.add(remover(expression, ((Block)expression).getExpressions(), i));
+				}
+			}
+			else if(expression instanceof BaseDispatch) {
+				for(int i = 0; i < ((BaseDispatch)expression).getArguments().size(); i++) {
+					reductions.add(remover(expression, ((BaseDispatch)expression).getArguments(), i));
+				}
+			}
+			if(expression == null || expression instanceof VoidConstant) {
+				continue;
+			}
+			for(final Expression child : children(expression)) {
+				if(child == null) {
+					continue;
+				}
+				reductions.add(new Runnable() {
+					public void run() {
+						slot.set(child);
+					}
+				});
+			}
+			reductions.add(new Runnable() {
+				public void run() {
+					slot.set(new VoidConstant(slot.get().getLineNumber()));
+				}
+			});
+		}
+		return reductions;
+	}
+
+	private void swapType(Random random) {
+		Object node = typed.get(random.nextInt(typed.size()));
+		String type = typeNames.get(random.nextInt(typeNames.size()));
+		if(node instanceof LCPLClass) {
+			((LCPLClass)node).setParent(type);
+		}
+		else if(node instanceof Method) {
+			((Method)node).setReturnType(type);
+		}
+		else if(node instanceof Attribute) {
+			((Attribute)node).setType(type);
+		}
+		else if(node instanceof FormalParam) {
+			((FormalParam)node).setType(type);
+		}
+		else if(node instanceof Cast) {
+			((Cast)node).setType(type);
+		}
+		else if(node instanceof NewObject) {
+			((NewObject)node).setType(type);
+		}
+		else if(node instanceof LocalDefinition) {
+			((LocalDefinition)node).setType(type);
+		}
+		else if(node instanceof StaticDispatch) {
+			((StaticDispatch)node).setType(type);
+		}
+	}
+
+	private void dropDeclaration(Random random) {
+		switch(random.nextInt(4)) {
+		case 0:
+			if(p.getClasses().size() > 1) {
+				remover(p, p.getClasses(), random.nextInt(p.getClasses().size())).run();
+			}
+			break;
+		case 1:
+			LCPLClass lcplClass = p.getClasses().get(random.nextInt(p.getClasses().size()));
+			if(!lcplClass.getFeatures().isEmpty()) {
+				remover(lcplClass, lcplClass.getFeatures(), random.nextInt(lcplClass.getFeatures().size())).run();
+			}
+			break;
+		case 2:
+			Object node = typed.get(random.nextInt(typed.size()));
+			if(node instanceof Method && !((Method)node).getParameters().isEmpty()) {
+				List<FormalParam> parameters = ((Method)node).getParameters();
+				remover(node, parameters, random.nextInt(parameters.size())).run();
+			}
+			break;
+		default:
+			/* a local definition is replaced with its scope */
+			for(Slot slot : slots) {
+				if(slot.get() instanceof LocalDefinition && random.nextInt(4) == 0) {
+					slot.set(((LocalDefinition)slot.get()).getScope());
+					return;
+				}
+			}
+		}
+	}
+
+	private void deepen(Random random) {
+		if(slots.isEmpty()) {
+			return;
+		}
+		Slot slot = slots.get(random.nextInt(slots.size()));
+		Expression expression = slot.get();
+		if(expression == null) {
+			return;
+		}
+		int line = expression.getLineNumber();
+		int levels = 1 + random.nextInt(8);
+		for(int i = 0; i < levels; i++) {
+			switch(random.nextInt(5)) {
+			case 0:
+				List<Expression> expressions = new ArrayList<Expression>();
+				expressions.add(expression);
+				expression = new Block(line, expressions);
+				break;
+			case 1:
+				expression = new Cast(line, typeNames.get(random.nextInt(typeNames.size())), expression);
+				break;
+			case 2:
+				expression = new LocalDefinition(line, names.get(random.nextInt(names.size())),
+						typeNames.get(random.nextInt(typeNames.size())), null, expression);
+				break;
+			case 3:
+				IfStatement ifStatement = new IfStatement();
+				ifStatement.setLineNumber(line);
+				ifStatement.setCondition(new IntConstant(line, 1));
+				ifStatement.setIfExpr(expression);
+				ifStatement.setThenExpr(new VoidConstant(line));
+				expression = ifStatement;
+				break;
+			default:
+				expression = new Dispatch(line, expression, names.get(random.nextInt(names.size())),
+						new ArrayList<Expression>());
+			}
+			typed.add(expression);
+		}
+		slot.set(expression);
+	}
+
+	private void rename(Random random) {
+		if(slots.isEmpty()) {
+			return;
+		}
+		Slot slot = slots.get(random.nextInt(slots.size()));
+		Expression expression = slot.get();
+		String name = names.get(random.nextInt(names.size()));
+		if(expression instanceof Symbol) {
+			((Symbol)expression).setName(name);
+		}
+		else if(expression instanceof BaseDispatch) {
+			((BaseDispatch)expression).setName(name);
+		}
+		else if(expression instanceof Assignment) {
+			((Assignment)expression).setSymbol(name);
+		}
+		else {
+			slot.set(new Symbol(expression == null ? 0 : expression.getLineNumber(), name));
+		}
+	}
+
+	/*
+	 * Method that returns a reduction that removes an element of a list of the owner. The list
+	 * is copied, so the lists of the program may have a fixed size.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Runnable remover(final Object owner, final List<T> list, final int index) {
+		return new Runnable() {
+			public void run() {
+				List<T> copy = new ArrayList<T>(list);
+				copy.remove(index);
+				if(owner instanceof Program) {
+					((Program)owner).setClasses((List<LCPLClass>)copy);
+				}
+				else if(owner instanceof LCPLClass) {
+					((LCPLClass)owner).setFeatures((List<Feature>)copy);
+				}
+				else if(owner instanceof Method) {
+					((Method)owner).setParameters((List<FormalParam>)copy);
+				}
+				else if(owner instanceof Block) {
+					((Block)owner).setExpressions((List<Expression>)copy);
+				}
+				else if(owner instanceof BaseDispatch) {
+					((BaseDispatch)owner).setArguments((List<Expression>)copy);
+				}
+			}
+		};
+	}
+
+	/*
+	 * Method that adds the slots of an expression and of all its subexpressions.
+	 */
+	private void addSlots(Slot slot) {
+		slots.add(slot);
+		Expression expression = slot.get();
+		if(expression == null) {
+			return;
+		}
+		typed.add(expression);
+		if(expression instanceof Symbol) {
+			names.add(((Symbol)expression).getName());
+		}
+
+		if(expression instanceof Block) {
+			addListSlots(((Block)expression).getExpressions());
+		}
+		else if(expression instanceof BaseDispatch) {
+			final BaseDispatch dispatch = (BaseDispatch)expression;
+			addSlots(new Slot() {
+				public Expression get() {
+					return dispatch.getObject();
+				}
+				public void set(Expression e) {
+					dispatch.setObject(e);
+				}
+			});
+			addListSlots(dispatch.getArguments());
+		}
+		else {
+			Expression[] children = children(expression);
+			for(int i = 0; i < children.length; i++) {
+				addSlots(new FieldSlot(expression, i));
+			}
+		}
+	}
+
+	private void addListSlots(final List<Expression> list) {
+		for(int i = 0; i < list.size(); i++) {
+			final int index = i;
+			addSlots(new Slot() {
+				public Expression get() {
+					return list.get(index);
+				}
+				public void set(Expression e) {
+					list.set(index, e);
+				}
+			});
+		}
+	}
+
+	/*
+	 * Method that returns the subexpressions that are in fields of the expression, in the
+	 * order of FieldSlot.
+	 */
+	private static Expression[] children(Expression expression) {
+		if(expression instanceof LocalDefinition) {
+			return new Expression[] { ((LocalDefinition)expression).getInit(), ((LocalDefinition)expression).getScope() };
+		}
+		if(expression instanceof IfStatement) {
+			IfStatement ifStatement = (IfStatement)expression;
+			return new Expression[] { ifStatement.getCondition(), ifStatement.getIfExpr(), ifStatement.getThenExpr() };
+		}
+		if(expression instanceof WhileStatement) {
+			return new Expression[] { ((WhileStatement)expression).getCondition(), ((WhileStatement)expression).getLoopBody() };
+		}
+		if(expression instanceof SubString) {
+			SubString subString = (SubString)expression;
+			return new Expression[] { subString.getStringExpr(), subString.getStartPosition(), subString.getEndPosition() };
+		}
+		if(expression instanceof BinaryOp) {
+			return new Expression[] { ((BinaryOp)expression).getE1(), ((BinaryOp)expression).getE2() };
+		}
+		if(expression instanceof Cast) {
+			return new Expression[] { ((Cast)expression).getE1() };
+		}
+		if(expression instanceof Assignment) {
+			return new Expression[] { ((Assignment)expression).getE1() };
+		}
+		if(expression instanceof UnaryOp) {
+			return new Expression[] { ((UnaryOp)expression).getE1() };
+		}
+		return new Expression[0];
+	}
+
+	/*
+	 * The slot of the index-th subexpression returned by children.
+	 */
+	private static class FieldSlot extends Slot {
+		private Expression owner;
+		private int index;
+
+		FieldSlot(Expression owner, int index) {
+			this.owner = owner;
+			this.index = index;
+		}
+
+		public Expression get() {
+			return children(owner)[index];
+		}
+
+		public void set(Expression e) {
+			if(owner instanceof LocalDefinition) {
+				if(index == 0) {
+					((LocalDefinition)owner).setInit(e);
+				}
+				else {
+					((LocalDefinition)owner).setScope(e);
+				}
+			}
+			else if(owner instanceof IfStatement) {
+				if(index == 0) {
+					((IfStatement)owner).setCondition(e);
+				}
+				else if(index == 1) {
+					((IfStatement)owner).setIfExpr(e);
+				}
+				else {
+					((IfStatement)owner).setThenExpr(e);
+				}
+			}
+			else if(owner instanceof WhileStatement) {
+				if(index == 0) {
+					((WhileStatement)owner).setCondition(e);
+				}
+				else {
+					((WhileStatement)owner).setLoopBody(e);
+				}
+			}
+			else if(owner instanceof SubString) {
+				if(index == 0) {
+					((SubString)owner).setStringExpr(e);
+				}
+				else if(index == 1) {
+					((SubString)owner).setStartPosition(e);
+				}
+				else {
+					((SubString)owner).setEndPosition(e);
+				}
+			}
+			else if(owner instanceof BinaryOp) {
+				if(index == 0) {
+					((BinaryOp)owner).setE1(e);
+				}
+				else {
+					((BinaryOp)owner).setE2(e);
+				}
+			}
+			else if(owner instanceof Cast) {
+				((Cast)owner).setE1(e);
+			}
+			else if(owner instanceof Assignment) {
+				((Assignment)owner).setE1(e);
+			}
+			else if(owner instanceof UnaryOp) {
+				((UnaryOp)owner).setE1(e);
+			}
+		}
+	}
+}
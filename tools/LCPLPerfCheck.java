@@ -0,0 +1,238 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Performance regression check: a fixed corpus of generated programs goes through the whole
+ * pipeline of LCPLSemant (YAML load, freeze, analysis, YAML output to a discarding writer) and
+ * the throughput (KB of input YAML per second, from the best run) and the memory allocated per
+ * run (the median) are compared with a baseline file. The check fails when the throughput drops
+ * by more than its tolerance or the allocation grows by more than its own one; the allocation
+ * does not depend on the load of the machine, so its tolerance is much smaller.
+ *
+ * The results are written one metric per line, "<program>.<metric> <value>", sorted, so two
+ * result files (or a result file and the baseline) diff line by line. The baseline is a result
+ * file written with -update on a reference machine (every metric is the median of three passes)
+ * and committed. A run that fails is measured once more and keeps the better value of every
+ * metric, because the noise of a busy machine only makes the runs slower.
+ *
+ * Usage: LCPLPerfCheck [-baseline file] [-out file] [-tolerance percent]
+ *			[-allocation-tolerance percent] [-update]
+ */
+public class LCPLPerfCheck {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 9;
+	private static final long MIN_ROUND_NANOS = 200000000L;
+	private static final int UPDATE_PASSES = 3;
+
+	private static final String THROUGHPUT = "input_kb_per_s";
+	private static final String ALLOCATION = "allocated_kb_per_run";
+
+	public static void main(String[] args) throws Exception {
+		String baselineFile = "perf/baseline.txt";
+		String outFile = "perf-results.txt";
+		double tolerance = 30;
+		double allocationTolerance = 5;
+		boolean update = false;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-baseline") && i + 1 < args.length) {
+				baselineFile = args[++i];
+			}
+			else if(args[i].equals("-out") && i + 1 < args.length) {
+				outFile = args[++i];
+			}
+			else if(args[i].equals("-tolerance") && i + 1 < args.length) {
+				tolerance = Double.parseDouble(args[++i]);
+			}
+			else if(args[i].equals("-allocation-tolerance") && i + 1 < args.length) {
+				allocationTolerance = Double.parseDouble(args[++i]);
+			}
+			else if(args[i].equals("-update")) {
+				update = true;
+			}
+			else {
+				System.err.println("Usage: LCPLPerfCheck [-baseline file] [-out file] [-tolerance percent] "
+						+ "[-allocation-tolerance percent] [-update]");
+				System.exit(2);
+			}
+		}
+
+		Map<String, String> corpus = new LinkedHashMap<String, String>();
+		corpus.put("small", LCPLProgramGenerator.toYaml(new LCPLProgramGenerator(1).wideProgram(10)));
+		corpus.put("wide", LCPLProgramGenerator.toYaml(new LCPLProgramGenerator(2).wideProgram(300)));
+		corpus.put("deep", LCPLProgramGenerator.toYaml(new LCPLProgramGenerator(3).deepProgram(150)));
+		corpus.put("dispatch", LCPLProgramGenerator.toYaml(new LCPLProgramGenerator(4).libraryProgram(40, 15, 40)));
+
+		/* the whole corpus is warmed up first, so the first program is not measured while the JIT still compiles */
+		for(int i = 0; i < WARMUP_ROUNDS; i++) {
+			for(String source : corpus.values()) {
+				runPipeline(source);
+			}
+		}
+		if(update) {
+			/* every metric of the baseline is the median of three passes */
+			List<SortedMap<String, Double>> passes = new ArrayList<SortedMap<String, Double>>();
+			for(int i = 0; i < UPDATE_PASSES; i++) {
+				passes.add(measureCorpus(corpus));
+			}
+			SortedMap<String, Double> results = new TreeMap<String, Double>();
+			for(String metric : passes.get(0).keySet()) {
+				double[] values = new double[passes.size()];
+				for(int i = 0; i < values.length; i++) {
+					values[i] = passes.get(i).get(metric);
+				}
+				results.put(metric, median(values));
+			}
+			write(results, baselineFile);
+			System.out.println("Baseline written to " + baselineFile);
+			return;
+		}
+
+		SortedMap<String, Double> baseline = read(baselineFile);
+		SortedMap<String, Double> results = measureCorpus(corpus);
+		if(!regressions(results, baseline, tolerance, allocationTolerance).isEmpty()) {
+			/* the noise of the machine only makes a run slower, so a regression is measured again */
+			SortedMap<String, Double> again = measureCorpus(corpus);
+			for(Map.Entry<String, Double> entry : again.entrySet()) {
+				double value = entry.getValue();
+				double first = results.get(entry.getKey());
+				results.put(entry.getKey(), entry.getKey().endsWith(THROUGHPUT) ? Math.max(first, value) : Math.min(first, value));
+			}
+		}
+		write(results, outFile);
+
+		Set<String> regressions = regressions(results, baseline, tolerance, allocationTolerance);
+		System.out.println(String.format("%-34s %12s %12s %9s", "metric", "baseline", "now", "change"));
+		for(Map.Entry<String, Double> entry : results.entrySet()) {
+			Double expected = baseline.get(entry.getKey());
+			if(expected == null) {
+				System.out.println(String.format("%-34s %12s %12.1f %9s", entry.getKey(), "-", entry.getValue(), "new"));
+				continue;
+			}
+			System.out.println(String.format("%-34s %12.1f %12.1f %+8.1f%%%s", entry.getKey(), expected,
+					entry.getValue(), change(entry.getValue(), expected),
+					regressions.contains(entry.getKey()) ? "  REGRESSION" : ""));
+		}
+		System.out.println("Results written to " + outFile + ", tolerance " + tolerance + "% for the throughput, "
+				+ allocationTolerance + "% for the allocation");
+		if(!regressions.isEmpty()) {
+			System.out.println("Performance regression against " + baselineFile);
+			System.exit(1);
+		}
+	}
+
+	private static SortedMap<String, Double> measureCorpus(Map<String, String> corpus) throws IOException {
+		SortedMap<String, Double> results = new TreeMap<String, Double>();
+		for(Map.Entry<String, String> entry : corpus.entrySet()) {
+			measure(entry.getKey(), entry.getValue(), results);
+		}
+		return results;
+	}
+
+	/*
+	 * Method that returns the metrics worse than the baseline by more than the tolerance: less
+	 * throughput or more allocation.
+	 */
+	private static Set<String> regressions(Map<String, Double> results, Map<String, Double> baseline,
+			double tolerance, double allocationTolerance) {
+		Set<String> regressions = new TreeSet<String>();
+		for(Map.Entry<String, Double> entry : results.entrySet()) {
+			Double expected = baseline.get(entry.getKey());
+			if(expected == null) {
+				continue;
+			}
+			double change = change(entry.getValue(), expected);
+			if(entry.getKey().endsWith(THROUGHPUT) ? change < -tolerance : change > allocationTolerance) {
+				regressions.add(entry.getKey());
+			}
+		}
+		return regressions;
+	}
+
+	private static double change(double value, double expected) {
+		return (value - expected) * 100 / expected;
+	}
+
+	/*
+	 * Method that runs the pipeline on a program and records the throughput of the best run and
+	 * the median allocation.
+	 */
+	private static void measure(String name, String source, Map<String, Double> results) throws IOException {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+		/* a small program runs several times in a round, so the round is long enough to time */
+		long start = System.nanoTime();
+		runPipeline(source);
+		int batch = (int)Math.max(1, MIN_ROUND_NANOS / Math.max(1, System.nanoTime() - start));
+
+		long best = Long.MAX_VALUE;
+		double[] allocations = new double[ROUNDS];
+		for(int i = 0; i < ROUNDS; i++) {
+			long allocated = threads.getCurrentThreadAllocatedBytes();
+			start = System.nanoTime();
+			for(int j = 0; j < batch; j++) {
+				runPipeline(source);
+			}
+			best = Math.min(best, (System.nanoTime() - start) / batch);
+			allocations[i] = (threads.getCurrentThreadAllocatedBytes() - allocated) / batch;
+		}
+		results.put(name + "." + THROUGHPUT, round(source.length() / 1024.0 * 1e9 / best));
+		results.put(name + "." + ALLOCATION, round(median(allocations) / 1024));
+	}
+
+	private static void runPipeline(String source) throws IOException {
+		Program p = new LCPLYamlLoader().load(new StringReader(source));
+		new LCPLFreezer().freeze(p);
+		try {
+			new LCPLSemanticAnalyzer(p).startSemanticAnalysis();
+		} catch (LCPLException ex) {
+			throw new IllegalStateException("The corpus program does not analyze: " + ex.message);
+		}
+		Writer discard = new Writer() {
+			public void write(char[] chars, int offset, int length) {
+			}
+			public void flush() {
+			}
+			public void close() {
+			}
+		};
+		new LCPLYamlEmitter().emit(p, discard);
+	}
+
+	private static double median(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 10) / 10.0;
+	}
+
+	private static void write(SortedMap<String, Double> results, String file) throws IOException {
+		PrintStream out = new PrintStream(new FileOutputStream(file));
+		for(Map.Entry<String, Double> entry : results.entrySet()) {
+			out.println(entry.getKey() + " " + entry.getValue());
+		}
+		out.close();
+	}
+
+	private static SortedMap<String, Double> read(String file) throws IOException {
+		SortedMap<String, Double> results = new TreeMap<String, Double>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		String line;
+		while((line = in.readLine()) != null) {
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			results.put(fields[0], Double.parseDouble(fields[1]));
+		}
+		in.close();
+		return results;
+	}
+}
@@ -0,0 +1,238 @@
+import java.util.*;
+
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Representer;
+
+import ro.pub.cs.lcpl.*;
+
+/*
+ * Class that generates synthetic LCPL programs, as they come from the syntax analysis,
+ * for the benchmarks and the other tools. The same seed always gives the same program.
+ */
+public class LCPLProgramGenerator {
+
+	private Random random;
+
+	public LCPLProgramGenerator(long seed) {
+		random = new Random(seed);
+	}
+
+	/*
+	 * Method that generates a program with many classes: every class inherits Object or a
+	 * random class defined before it and has an attribute and two methods.
+	 */
+	public Program wideProgram(int classesCount) {
+		List<LCPLClass> classes = new ArrayList<LCPLClass>(classesCount + 1);
+		for(int i = 0; i < classesCount; i++) {
+			String parent = i == 0 || random.nextInt(4) == 0 ? null : className(random.nextInt(i));
+			classes.add(newClass(i, parent));
+		}
+		classes.add(mainClass(classesCount, Math.min(classesCount, 16)));
+
+		return new Program(0, classes);
+	}
+
+	/*
+	 * Method that generates a program with a single inheritance chain of the given depth.
+	 */
+	public Program deepProgram(int depth) {
+		List<LCPLClass> classes = new ArrayList<LCPLClass>(depth + 1);
+		for(int i = 0; i < depth; i++) {
+			classes.add(newClass(i, i == 0 ? null : className(i - 1)));
+		}
+		classes.add(mainClass(depth, Math.min(depth, 16)));
+
+		return new Program(0, classes);
+	}
+
+	/*
+	 * Method that generates a program that links a big library: every library class has many
+	 * methods that call each other, but Main uses only the first usedClasses classes.
+	 */
+	public Program libraryProgram(int libraryClasses, int methodsPerClass, int usedClasses) {
+		List<LCPLClass> classes = new ArrayList<LCPLClass>(libraryClasses + 1);
+		for(int i = 0; i < libraryClasses; i++) {
+			classes.add(libraryClass(i, methodsPerClass));
+		}
+		classes.add(mainClass(usedClasses, usedClasses));
+
+		return new Program(0, classes);
+	}
+
+	/*
+	 * Method that generates a single inheritance chain of the given depth in which every class
+	 * calls, many times, methods defined at the root of the chain.
+	 *
+	 * class C<i> inherits C<i-1>
+	 *   var Int a<i> = <i>; end;
+	 *   get<i> -> Int : a<i> + 1; end;
+	 *   name -> String : "C<i>" + [get<i>]; end;
+	 *   sum<i> -> Int : [get0] + [get<k>] + ...; end;
+	 * end;
+	 */
+	public Program inheritedCallsProgram(int depth, int callsPerClass) {
+		List<LCPLClass> classes = new ArrayList<LCPLClass>(depth + 1);
+		for(int i = 0; i < depth; i++) {
+			LCPLClass lcplClass = newClass(i, i == 0 ? null : className(i - 1));
+			int line = i * 10 + 4;
+			Expression sum = new Dispatch(line, null, "get0", new ArrayList<Expression>());
+			for(int j = 1; j < callsPerClass; j++) {
+				String method = "get" + random.nextInt(Math.min(i + 1, 8));
+				sum = new Addition(line, sum, new Dispatch(line, null, method, new ArrayList<Expression>()));
+			}
+			lcplClass.getFeatures().add(new Method(line, "sum" + i, new ArrayList<FormalParam>(), "Int", sum));
+			classes.add(lcplClass);
+		}
+		classes.add(mainClass(depth, Math.min(depth, 16)));
+
+		return new Program(0, classes);
+	}
+
+	/*
+	 * Method that generates a program with a method with many parameters, overridden in a
+	 * subclass and called from Main. The parameters are in LinkedLists, like the default ones
+	 * of Method.
+	 *
+	 * class A  m Int p0, ... -> Int : p0; end; end;
+	 * class B inherits A  m Int p0, ... -> Int : p1; end; end;
+	 * class Main inherits IO  main : out [(new B).m 0, 1, ...]; end; end;
+	 */
+	public Program manyParametersProgram(int parametersCount) {
+		List<LCPLClass> classes = new ArrayList<LCPLClass>();
+		for(int i = 0; i < 2; i++) {
+			List<FormalParam> parameters = new LinkedList<FormalParam>();
+			for(int j = 0; j < parametersCount; j++) {
+				parameters.add(new FormalParam("p" + j, "Int"));
+			}
+			List<Feature> features = new ArrayList<Feature>();
+			features.add(new Method(i + 1, "m", parameters, "Int", new Symbol(i + 1, "p" + Math.min(i, parametersCount - 1))));
+			classes.add(new LCPLClass(i + 1, i == 0 ? "A" : "B", i == 0 ? null : "A", features));
+		}
+
+		List<Expression> arguments = new LinkedList<Expression>();
+		for(int j = 0; j < parametersCount; j++) {
+			arguments.add(new IntConstant(3, j));
+		}
+		List<Expression> outArguments = new ArrayList<Expression>();
+		outArguments.add(new Dispatch(3, new NewObject(3, "B"), "m", arguments));
+		List<Feature> features = new ArrayList<Feature>();
+		features.add(new Method(3, "main", new ArrayList<FormalParam>(), "void",
+				new Dispatch(3, null, "out", outArguments)));
+		classes.add(new LCPLClass(3, "Main", "IO", features));
+
+		return new Program(0, classes);
+	}
+
+	/*
+	 * Method that writes a generated program as the syntax analysis does, without the empty fields.
+	 */
+	public static String toYaml(Program p) {
+		Representer representer = new Representer() {
+			@Override
+			protected NodeTuple representJavaBeanProperty(Object bean, Property property, Object value, Tag tag) {
+				return value == null ? null : super.representJavaBeanProperty(bean, property, value, tag);
+			}
+		};
+		return new Yaml(representer).dump(p);
+	}
+
+	public static String className(int index) {
+		return "C" + index;
+	}
+
+	/*
+	 * class C<index> inherits <parent>
+	 *   var Int a<index> = <index>; end;
+	 *   get<index> -> Int : a<index> + 1; end;
+	 *   name -> String : "C<index>" + [get<index>]; end;
+	 * end;
+	 */
+	private LCPLClass newClass(int index, String parent) {
+		int line = index * 10 + 1;
+		List<Feature> features = new ArrayList<Feature>();
+
+		features.add(new Attribute(line + 1, "a" + index, "Int", new IntConstant(line + 1, index)));
+
+		Expression get = new Addition(line + 2, new Symbol(line + 2, "a" + index), new IntConstant(line + 2, 1));
+		features.add(new Method(line + 2, "get" + index, new ArrayList<FormalParam>(), "Int", get));
+
+		Expression name = new Addition(line + 3, new StringConstant(line + 3, className(index)),
+				new Dispatch(line + 3, null, "get" + index, new ArrayList<Expression>()));
+		features.add(new Method(line + 3, "name", new ArrayList<FormalParam>(), "String", name));
+
+		return new LCPLClass(line, className(index), parent, features);
+	}
+
+	/*
+	 * class C<index>
+	 *   name -> String : "C<index>" + [m0 1]; end;
+	 *   m<j> Int x -> Int : local Int y = x * <j> + 1; end; if y < 100 then [m<j+1> y] else y - x end; end;
+	 *   ...
+	 * end;
+	 */
+	private LCPLClass libraryClass(int index, int methodsCount) {
+		int line = index * (methodsCount + 2) + 1;
+		List<Feature> features = new ArrayList<Feature>();
+
+		List<Expression> nameArguments = new ArrayList<Expression>();
+		nameArguments.add(new IntConstant(line, 1));
+		Expression name = new Addition(line, new StringConstant(line, className(index)),
+				new Dispatch(line, null, "m0", nameArguments));
+		features.add(new Method(line, "name", new ArrayList<FormalParam>(), "String", name));
+
+		for(int j = 0; j < methodsCount; j++) {
+			int methodLine = line + j + 1;
+			Expression init = new Addition(methodLine,
+					new Multiplication(methodLine, new Symbol(methodLine, "x"), new IntConstant(methodLine, j)),
+					new IntConstant(methodLine, 1));
+
+			Expression next;
+			if(j + 1 < methodsCount) {
+				List<Expression> arguments = new ArrayList<Expression>();
+				arguments.add(new Symbol(methodLine, "y"));
+				next = new Dispatch(methodLine, null, "m" + (j + 1), arguments);
+			}
+			else {
+				next = new Symbol(methodLine, "y");
+			}
+			Expression body = new IfStatement(methodLine,
+					new LessThan(methodLine, new Symbol(methodLine, "y"), new IntConstant(methodLine, 100)),
+					next,
+					new Subtraction(methodLine, new Symbol(methodLine, "y"), new Symbol(methodLine, "x")));
+
+			List<FormalParam> parameters = new ArrayList<FormalParam>();
+			parameters.add(new FormalParam("x", "Int"));
+			features.add(new Method(methodLine, "m" + j, parameters, "Int",
+					new LocalDefinition(methodLine, "y", "Int", init, body)));
+		}
+
+		return new LCPLClass(line, className(index), null, features);
+	}
+
+	/*
+	 * class Main inherits IO
+	 *   main : out (new C<i>).name; ... end;
+	 * end;
+	 */
+	private LCPLClass mainClass(int classesCount, int calls) {
+		int line = classesCount * 10 + 1;
+		List<Expression> expressions = new ArrayList<Expression>();
+		for(int i = 0; i < calls; i++) {
+			int index = random.nextInt(classesCount);
+			Expression name = new Dispatch(line + 2, new NewObject(line + 2, className(index)), "name",
+					new ArrayList<Expression>());
+			List<Expression> arguments = new ArrayList<Expression>();
+			arguments.add(name);
+			expressions.add(new Dispatch(line + 2, null, "out", arguments));
+		}
+
+		List<Feature> features = new ArrayList<Feature>();
+		features.add(new Method(line + 1, "main", new ArrayList<FormalParam>(), "void",
+				new Block(line + 1, expressions)));
+
+		return new LCPLClass(line, "Main", "IO", features);
+	}
+}